@@ -0,0 +1,251 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.StreamParser.ByteReader;
+
+/**
+ * Binds a document straight onto an object builder without building the intermediate
+ * {@link Parser.Value} tree. Keys without a setter and values of an unexpected type are
+ * skipped, just like a {@code isString}/{@code isJSON} callback that does not fire.
+ *
+ * <pre>
+ * Binder.of(CustomerBuilder::new, Customer.Builder::build)
+ *     .string("name", Customer.Builder::name)
+ *     .nested("address", Customer.Builder::address, Binder.&lt;Address.Builder, Address&gt; of(AddressBuilder::new, Address.Builder::build)
+ *         .string("city", Address.Builder::city))
+ *     .bind(stream)
+ * </pre>
+ */
+public interface Binder<T> {
+
+    /**
+     * @return bound object or null when the value at the cursor is not of the expected type.
+     */
+    T consume(final ByteReader reader) throws JSONParserException;
+
+    default Either<T, JSONParserException> bind(final String document) {
+        if (document == null || document.isEmpty())
+            return Either.fail(new JSONParserException("empty json"));
+        return bind(new ByteReader.StringByteReader(document));
+    }
+
+    default Either<T, JSONParserException> bind(final InputStream stream) {
+        return StreamParser.withReader(stream::read, this::bind);
+    }
+
+    default Either<T, JSONParserException> bind(final ByteReader reader) {
+        try {
+            StreamParser.skipWhitespace(reader);
+            if (reader.peek() == -1)
+                return Either.fail(reader.error("empty document", 0));
+            final T value = consume(reader);
+            StreamParser.skipWhitespace(reader);
+            if (reader.peek() != -1)
+                return Either.fail(reader.error("unexpected '" + (char) reader.peek() + "' after document", 0));
+            return Either.succ(value);
+        } catch (final StreamParser.Abort e) {
+            return Either.fail(e.failure);
+        } catch (final NumberFormatException e) {
+            return Either.fail(reader.error("malformed number", 0));
+        } catch (final JSONParserException e) {
+            return Either.fail(e);
+        }
+    }
+
+    public static <B, T> Binding<B, T> of(final Supplier<B> builder, final Function<B, T> build) {
+        return new Binding<>(builder, build);
+    }
+
+    public static Binder<String> string() {
+        return reader -> {
+            if (reader.peek() != '"') {
+                StreamParser.skipValue(reader);
+                return null;
+            }
+            reader.next();
+            return StreamParser.readString(reader, new StringBuilder());
+        };
+    }
+
+    public static Binder<Long> integer() {
+        return reader -> {
+            if (!isNumber(reader.peek()))
+                return skip(reader);
+            return StreamParser.readLong(reader);
+        };
+    }
+
+    public static Binder<Double> number() {
+        return reader -> {
+            if (!isNumber(reader.peek()))
+                return skip(reader);
+            return StreamParser.readDouble(reader);
+        };
+    }
+
+    public static Binder<Boolean> bool() {
+        return reader -> {
+            final int ch = reader.peek();
+            if (ch != 't' && ch != 'f')
+                return skip(reader);
+            final String expected = ch == 't' ? "true" : "false";
+            for (int i = 0; i < expected.length(); i++) {
+                if (reader.peek() != expected.charAt(i))
+                    throw StreamParser.abort(reader, "true or false expected", 0);
+                reader.next();
+            }
+            return ch == 't';
+        };
+    }
+
+    static boolean isNumber(final int ch) {
+        return ch == '-' || (ch >= '0' && ch <= '9');
+    }
+
+    static <T> T skip(final ByteReader reader) {
+        StreamParser.skipValue(reader);
+        return null;
+    }
+
+    final static class Binding<B, T> implements Binder<T> {
+
+        interface Field<B> {
+            void consume(final ByteReader reader, final B builder) throws JSONParserException;
+        }
+
+        private final Supplier<B> builder;
+
+        private final Function<B, T> build;
+
+        private final Map<String, Field<B>> fields = new HashMap<>();
+
+        Binding(final Supplier<B> builder, final Function<B, T> build) {
+            this.builder = builder;
+            this.build = build;
+        }
+
+        public Binding<B, T> string(final String key, final BiConsumer<B, String> setter) {
+            return field(key, Binder.string(), setter);
+        }
+
+        public Binding<B, T> integer(final String key, final ObjLongConsumer<B> setter) {
+            fields.put(key, (reader, bld) -> {
+                if (isNumber(reader.peek()))
+                    setter.accept(bld, StreamParser.readLong(reader));
+                else
+                    StreamParser.skipValue(reader);
+            });
+            return this;
+        }
+
+        public Binding<B, T> number(final String key, final ObjDoubleConsumer<B> setter) {
+            fields.put(key, (reader, bld) -> {
+                if (isNumber(reader.peek()))
+                    setter.accept(bld, StreamParser.readDouble(reader));
+                else
+                    StreamParser.skipValue(reader);
+            });
+            return this;
+        }
+
+        public Binding<B, T> bool(final String key, final BiConsumer<B, Boolean> setter) {
+            return field(key, Binder.bool(), setter);
+        }
+
+        /**
+         * binds the value with the given binder and hands the result to the setter.
+         */
+        public <C> Binding<B, T> field(final String key, final Binder<C> binder, final BiConsumer<B, C> setter) {
+            fields.put(key, (reader, bld) -> {
+                final C value = binder.consume(reader);
+                if (value != null)
+                    setter.accept(bld, value);
+            });
+            return this;
+        }
+
+        /**
+         * binds the nested object into a child builder owned by the parent builder.
+         */
+        public <C> Binding<B, T> nested(final String key, final Function<B, C> child, final Binding<C, ?> binding) {
+            fields.put(key, (reader, bld) -> {
+                if (reader.peek() == '{')
+                    binding.fill(reader, child.apply(bld));
+                else
+                    StreamParser.skipValue(reader);
+            });
+            return this;
+        }
+
+        /**
+         * binds every element of the array and hands each one to the adder.
+         */
+        public <C> Binding<B, T> array(final String key, final Binder<C> element, final BiConsumer<B, C> adder) {
+            fields.put(key, (reader, bld) -> {
+                if (reader.peek() != '[') {
+                    StreamParser.skipValue(reader);
+                    return;
+                }
+                reader.next();
+                StreamParser.skipWhitespace(reader);
+                if (reader.peek() == ']') {
+                    reader.next();
+                    return;
+                }
+                do {
+                    StreamParser.skipWhitespace(reader);
+                    final C value = element.consume(reader);
+                    if (value != null)
+                        adder.accept(bld, value);
+                } while (StreamParser.separator(reader, ']'));
+            });
+            return this;
+        }
+
+        @Override
+        public T consume(final ByteReader reader) throws JSONParserException {
+            if (reader.peek() != '{')
+                return skip(reader);
+            final B bld = builder.get();
+            fill(reader, bld);
+            return build.apply(bld);
+        }
+
+        void fill(final ByteReader reader, final B bld) throws JSONParserException {
+            final StringBuilder key = new StringBuilder();
+            reader.next();
+            StreamParser.skipWhitespace(reader);
+            if (reader.peek() == '}') {
+                reader.next();
+                return;
+            }
+            do {
+                StreamParser.skipWhitespace(reader);
+                if (reader.peek() != '"')
+                    throw StreamParser.unexpected(reader, "a key");
+                reader.next();
+                key.setLength(0);
+                final Field<B> field = fields.get(StreamParser.readString(reader, key));
+                StreamParser.skipWhitespace(reader);
+                if (reader.peek() != ':')
+                    throw StreamParser.unexpected(reader, "':'");
+                reader.next();
+                StreamParser.skipWhitespace(reader);
+                if (field == null)
+                    StreamParser.skipValue(reader);
+                else
+                    field.consume(reader, bld);
+            } while (StreamParser.separator(reader, '}'));
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+/**
+ * Incremental parser fed with chunks of arbitrary size. A resumable structural scanner
+ * tracks nesting and string state across chunk boundaries and frames one value at a time,
+ * which is then parsed by {@link StreamParser}. Only the value in progress is buffered, up to
+ * the document size of the {@link ParserLimits}; the rest of a larger value is skipped and it
+ * yields an error value.
+ *
+ * <pre>
+ * final ChunkParser chunks = ChunkParser.elements();
+ * chunks.feed(ByteBuffer.wrap("[{\"a\":1},".getBytes()));
+ * chunks.next(); // {"a":1}
+ * chunks.next(); // null, needs more input
+ * </pre>
+ */
+public interface ChunkParser {
+
+    /**
+     * hands the next chunk to the parser. The buffer is consumed lazily by {@link #next()}
+     * and must not be modified until it is fully consumed.
+     */
+    ChunkParser feed(final ByteBuffer chunk);
+
+    /**
+     * marks the end of input; a trailing top level scalar is completed by the next call
+     * to {@link #next()}, an unterminated value yields an error value.
+     */
+    ChunkParser end();
+
+    /**
+     * @return next complete value or null when more input (or {@link #end()}) is needed.
+     */
+    Value next();
+
+    /**
+     * @return parser for concatenated or newline delimited top level values.
+     */
+    public static ChunkParser values() {
+        return values(ParserLimits.defaults());
+    }
+
+    /**
+     * @return parser for concatenated or newline delimited top level values, each one within limits.
+     */
+    public static ChunkParser values(final ParserLimits limits) {
+        return new Framer(false, limits);
+    }
+
+    /**
+     * @return parser emitting the elements of top level arrays one at a time.
+     */
+    public static ChunkParser elements() {
+        return elements(ParserLimits.defaults());
+    }
+
+    /**
+     * @return parser emitting the elements of top level arrays one at a time, each one within limits.
+     */
+    public static ChunkParser elements(final ParserLimits limits) {
+        return new Framer(true, limits);
+    }
+
+    final static class Framer implements ChunkParser {
+
+        private static final int MAX_RECORD = Integer.MAX_VALUE - 8;
+
+        private final boolean elements;
+
+        private final int maxRecord;
+
+        private final Parser parser;
+
+        private ByteBuffer chunk = ByteBuffer.allocate(0);
+
+        private byte[] record = new byte[256];
+
+        private int length;
+
+        private int depth;
+
+        private boolean started;
+
+        private boolean scalar;
+
+        private boolean inString;
+
+        private boolean escape;
+
+        private boolean inArray;
+
+        /* in elements mode: an element ended, so ',' or ']' comes next. */
+        private boolean separator;
+
+        /* in elements mode: a ',' was read, so an element comes next. */
+        private boolean comma;
+
+        private boolean ended;
+
+        /* set while the rest of a value beyond the document size limit is skipped. */
+        private boolean oversized;
+
+        /* failure behind the error value last returned by next(), if it returned one. */
+        JSONParserException failure;
+
+        Framer(final boolean elements, final ParserLimits limits) {
+            this.elements = elements;
+            this.maxRecord = (int) Math.min(limits.maxDocumentSize(), MAX_RECORD);
+            this.parser = Parser.streamParser(limits);
+        }
+
+        @Override
+        public ChunkParser feed(final ByteBuffer chunk) {
+            if (this.chunk.hasRemaining())
+                throw new IllegalStateException("previous chunk is not consumed yet");
+            this.chunk = chunk;
+            return this;
+        }
+
+        @Override
+        public ChunkParser end() {
+            ended = true;
+            return this;
+        }
+
+        @Override
+        public Value next() {
+            failure = null;
+            while (chunk.hasRemaining()) {
+                final byte b = chunk.get(chunk.position());
+                if (!started) {
+                    chunk.get();
+                    if (isWhitespace(b)) {
+                        continue;
+                    } else if (elements && !inArray) {
+                        if (b == '[')
+                            inArray = true;
+                        else
+                            return fail(new JSONParserException("array expected, got '" + (char) b + "'"));
+                        continue;
+                    } else if (elements && b == ',') {
+                        if (!separator)
+                            return fail(new JSONParserException("value expected, got ','"));
+                        separator = false;
+                        comma = true;
+                        continue;
+                    } else if (elements && b == ']') {
+                        inArray = separator = false;
+                        if (comma) {
+                            comma = false;
+                            return fail(new JSONParserException("value expected, got ']'"));
+                        }
+                        continue;
+                    } else if (elements && separator) {
+                        /* reported once; the element is framed by the next call as if the ',' were there. */
+                        chunk.position(chunk.position() - 1);
+                        separator = false;
+                        return fail(new JSONParserException("',' or ']' expected, got '" + (char) b + "'"));
+                    }
+                    comma = false;
+                    started = true;
+                    append(b);
+                    if (b == '{' || b == '[') {
+                        depth = 1;
+                    } else if (b == '"') {
+                        inString = true;
+                    } else {
+                        scalar = true;
+                    }
+                } else if (scalar) {
+                    if (isDelimiter(b))
+                        return complete();
+                    chunk.get();
+                    append(b);
+                } else if (inString) {
+                    chunk.get();
+                    append(b);
+                    if (escape) {
+                        escape = false;
+                    } else if (b == '\\') {
+                        escape = true;
+                    } else if (b == '"') {
+                        inString = false;
+                        if (depth == 0)
+                            return complete();
+                    }
+                } else {
+                    chunk.get();
+                    append(b);
+                    if (b == '"') {
+                        inString = true;
+                    } else if (b == '{' || b == '[') {
+                        depth ++;
+                    } else if ((b == '}' || b == ']') && --depth == 0) {
+                        return complete();
+                    }
+                }
+            }
+            if (ended && started) {
+                if (scalar)
+                    return complete();
+                started = oversized = false;
+                length = 0;
+                return fail(new JSONParserException("unexpected end of document"));
+            }
+            return null;
+        }
+
+        private void append(final byte b) {
+            if (oversized)
+                return;
+            if (length == maxRecord) {
+                oversized = true;
+                return;
+            }
+            if (length == record.length)
+                record = Arrays.copyOf(record, (int) Math.min(record.length * 2L, maxRecord));
+            record[length ++] = b;
+        }
+
+        private Value complete() {
+            final String document = oversized ? null : new String(record, 0, length, StandardCharsets.UTF_8);
+            started = scalar = inString = escape = oversized = false;
+            separator = elements;
+            depth = length = 0;
+            if (record.length > 1 << 16)
+                record = new byte[256];
+            if (document == null)
+                return fail(new JSONParserException("document larger than " + maxRecord + " bytes").limit());
+            final AtomicReference<Value> value = new AtomicReference<>();
+            parser.parse(document)
+            .ifSuccess(value::set)
+            .ifFailure(e -> value.set(fail(e)));
+            return value.get();
+        }
+
+        private Value fail(final JSONParserException e) {
+            failure = e;
+            return Value.err(e.getLocalizedMessage());
+        }
+
+        private static boolean isWhitespace(final byte b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+
+        private static boolean isDelimiter(final byte b) {
+            return isWhitespace(b) || b == ',' || b == ']' || b == '}' || b == '[' || b == '{' || b == '"';
+        }
+    }
+}
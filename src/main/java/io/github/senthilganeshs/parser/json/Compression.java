@@ -0,0 +1,533 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+
+/**
+ * Compressed documents, inflated or deflated by the JDK's {@link Inflater} and
+ * {@link Deflater} on another thread, so that compression overlaps parsing and
+ * generating instead of adding to them. The two threads hand each other {@value #BUFFERS}
+ * buffers of {@value #SIZE} bytes round a ring; whichever side is faster waits for a free
+ * buffer, so memory stays bounded however large the document.
+ *
+ * <pre>
+ * Parser.create().parse(new FileInputStream("export.json.gz"), Compression.GZIP);
+ * Generator.create().write(value, new FileOutputStream("export.json.gz"), Compression.GZIP);
+ * </pre>
+ *
+ * The pipeline threads come from a shared pool of daemon threads unless an {@link Executor}
+ * is given.
+ */
+public enum Compression {
+
+    /** RFC 1952, concatenated members included. */
+    GZIP {
+        @Override
+        InputStream decoder(final InputStream in) throws IOException {
+            return new GZIPInputStream(in, SIZE);
+        }
+
+        @Override
+        DeflaterOutputStream encoder(final OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, SIZE);
+        }
+    },
+
+    /** RFC 1950 zlib streams, as HTTP's deflate content encoding. */
+    DEFLATE {
+        @Override
+        InputStream decoder(final InputStream in) {
+            return new InflaterInputStream(in, new Inflater(), SIZE) {
+                @Override
+                public void close() throws IOException {
+                    inf.end();
+                    super.close();
+                }
+            };
+        }
+
+        @Override
+        DeflaterOutputStream encoder(final OutputStream out) {
+            return new DeflaterOutputStream(out, new Deflater(), SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+    };
+
+    static final int BUFFERS = 4;
+
+    static final int SIZE = 1 << 16;
+
+    private static final ExecutorService PIPELINE = Executors.newCachedThreadPool(task -> {
+        final Thread thread = new Thread(task, "purejson-compression");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    abstract InputStream decoder(final InputStream in) throws IOException;
+
+    abstract DeflaterOutputStream encoder(final OutputStream out) throws IOException;
+
+    /**
+     * @return the decompressed bytes of in, inflated ahead of the reads. Closing it stops
+     * the pipeline and closes in.
+     */
+    public InputStream inflate(final InputStream in) {
+        return inflate(in, PIPELINE);
+    }
+
+    public InputStream inflate(final InputStream in, final Executor executor) {
+        return inflating(in, executor, true);
+    }
+
+    /**
+     * @param owner whether closing the inflating stream closes in.
+     */
+    Inflating inflating(final InputStream in, final Executor executor, final boolean owner) {
+        final Inflating inflating = new Inflating(this, in, owner);
+        executor.execute(inflating::run);
+        return inflating;
+    }
+
+    /**
+     * parses from stream, inflated on the shared pipeline threads. The stream is not closed.
+     */
+    Either<Parser.Value, Parser.JSONParserException> parse(final Parser parser, final InputStream stream) {
+        final Inflating in = inflating(stream, PIPELINE, false);
+        try {
+            return parser.parse(in);
+        } finally {
+            in.stop();
+        }
+    }
+
+    /**
+     * runs body on a deflating stream over out and closes it; a body that throws leaves
+     * out without the end of the compressed stream.
+     * @return compressed bytes written.
+     */
+    Either<Long, IOException> write(final OutputStream out, final Consumer<Deflating> body) {
+        final Deflating deflating = deflate(out);
+        try {
+            body.accept(deflating);
+        } catch (final UncheckedIOException e) {
+            deflating.abort();
+            return Either.fail(e.getCause());
+        } catch (final RuntimeException e) {
+            deflating.abort();
+            throw e;
+        }
+        try {
+            deflating.close();
+            return Either.succ(deflating.written());
+        } catch (final IOException e) {
+            return Either.fail(e);
+        }
+    }
+
+    /**
+     * @return stream compressing what is written to it into out. Closing it waits for the
+     * compressed bytes to be written and flushes out, but does not close it.
+     */
+    public Deflating deflate(final OutputStream out) {
+        return deflate(out, PIPELINE);
+    }
+
+    public Deflating deflate(final OutputStream out, final Executor executor) {
+        final Deflating deflating = new Deflating(this, out);
+        executor.execute(deflating::run);
+        return deflating;
+    }
+
+    /**
+     * A buffer of the ring, or the failure of the pipeline thread when buf is null.
+     */
+    final static class Chunk {
+
+        final byte[] buf;
+
+        int length;
+
+        boolean last;
+
+        final IOException failure;
+
+        Chunk(final byte[] buf) {
+            this.buf = buf;
+            this.failure = null;
+        }
+
+        Chunk(final IOException failure) {
+            this.buf = null;
+            this.failure = failure;
+            this.last = true;
+        }
+    }
+
+    static BlockingQueue<Chunk> ring() {
+        final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(BUFFERS);
+        for (int i = 0; i < BUFFERS; i++)
+            free.add(new Chunk(new byte[SIZE]));
+        return free;
+    }
+
+    static InterruptedIOException interrupted() {
+        Thread.currentThread().interrupt();
+        return new InterruptedIOException("interrupted while waiting for the compression pipeline");
+    }
+
+    /**
+     * Reads what the pipeline thread inflated into the ring.
+     */
+    public final static class Inflating extends InputStream {
+
+        private final Compression compression;
+
+        private final InputStream in;
+
+        private final boolean owner;
+
+        private final BlockingQueue<Chunk> free = ring();
+
+        /* one more than the buffers so that a failure can always be queued. */
+        private final BlockingQueue<Chunk> full = new ArrayBlockingQueue<>(BUFFERS + 1);
+
+        private volatile boolean closed;
+
+        private Chunk current;
+
+        private int pos;
+
+        private boolean ended;
+
+        Inflating(final Compression compression, final InputStream in, final boolean owner) {
+            this.compression = compression;
+            this.in = in;
+            this.owner = owner;
+        }
+
+        /* the pipeline thread. */
+        void run() {
+            /* ends the decoder's inflater without closing in, which is the reader's. */
+            try (InputStream decoder = compression.decoder(new FilterInputStream(in) {
+                @Override
+                public void close() {
+                }
+            })) {
+                for (;;) {
+                    final Chunk chunk = free.take();
+                    if (closed)
+                        return;
+                    int length = 0;
+                    for (int n; length < chunk.buf.length
+                        && (n = decoder.read(chunk.buf, length, chunk.buf.length - length)) != -1; )
+                        length += n;
+                    chunk.length = length;
+                    final boolean last = length < chunk.buf.length;
+                    chunk.last = last;
+                    full.put(chunk);
+                    if (last)
+                        return;
+                }
+            } catch (final IOException e) {
+                full.offer(new Chunk(e));
+            } catch (final InterruptedException e) {
+                full.offer(new Chunk(new InterruptedIOException("compression pipeline interrupted")));
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0)
+                return 0;
+            while (current == null || pos == current.length) {
+                if (ended || closed)
+                    return -1;
+                if (current != null) {
+                    if (current.last) {
+                        ended = true;
+                        return -1;
+                    }
+                    free.offer(current);
+                }
+                try {
+                    current = full.take();
+                } catch (final InterruptedException e) {
+                    current = null;
+                    throw interrupted();
+                }
+                pos = 0;
+                if (current.failure != null) {
+                    ended = true;
+                    throw new IOException(current.failure.getMessage(), current.failure);
+                }
+            }
+            final int n = Math.min(len, current.length - pos);
+            System.arraycopy(current.buf, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        /**
+         * stops the pipeline without closing the compressed stream.
+         */
+        void stop() {
+            closed = true;
+            /* wakes the pipeline thread if it waits for a buffer; it then sees closed. */
+            if (current != null && current.buf != null)
+                free.offer(current);
+            current = null;
+            for (Chunk chunk; (chunk = full.poll()) != null; ) {
+                if (chunk.buf != null)
+                    free.offer(chunk);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            stop();
+            if (owner)
+                in.close();
+        }
+    }
+
+    /**
+     * Fills buffers of the ring for the pipeline thread to deflate.
+     */
+    public final static class Deflating extends OutputStream {
+
+        private final Compression compression;
+
+        private final OutputStream out;
+
+        private final BlockingQueue<Chunk> free = ring();
+
+        private final BlockingQueue<Chunk> full = new ArrayBlockingQueue<>(BUFFERS);
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile IOException failure;
+
+        private Chunk current;
+
+        private boolean closed;
+
+        private long written;
+
+        Deflating(final Compression compression, final OutputStream out) {
+            this.compression = compression;
+            this.out = out;
+        }
+
+        /*
+         * the pipeline thread; after a failure it keeps handing buffers back until the last.
+         * Once failed, what the encoder still has to say, the end of the stream included, is
+         * dropped so that out is left truncated rather than complete.
+         */
+        void run() {
+            final OutputStream counted = new FilterOutputStream(out) {
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    if (failure != null)
+                        return;
+                    out.write(b, off, len);
+                    written += len;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            DeflaterOutputStream encoder = null;
+            try {
+                for (;;) {
+                    final Chunk chunk = full.take();
+                    /* read before the chunk goes back to the writer, which reuses it. */
+                    final boolean last = chunk.last;
+                    try {
+                        if (failure == null) {
+                            if (encoder == null)
+                                encoder = compression.encoder(counted);
+                            encoder.write(chunk.buf, 0, chunk.length);
+                            if (last) {
+                                encoder.finish();
+                                out.flush();
+                            }
+                        }
+                    } catch (final IOException e) {
+                        failure = e;
+                    }
+                    free.put(chunk);
+                    if (last)
+                        return;
+                }
+            } catch (final InterruptedException e) {
+                failure = new InterruptedIOException("compression pipeline interrupted");
+            } finally {
+                if (encoder != null) {
+                    try {
+                        encoder.close();
+                    } catch (final IOException e) {
+                        if (failure == null)
+                            failure = e;
+                    }
+                }
+                done.countDown();
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (closed)
+                throw new IOException("stream closed");
+            if (failure != null)
+                throw new IOException(failure.getMessage(), failure);
+            try {
+                append(b, off, len);
+            } catch (final UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * write without the checked exception, for {@link Generator.Encoder.Output}.
+         * @throws UncheckedIOException if interrupted while waiting for a buffer.
+         */
+        void append(final byte[] b, int off, int len) {
+            while (len > 0) {
+                if (current == null)
+                    current = take();
+                final int n = Math.min(len, current.buf.length - current.length);
+                System.arraycopy(b, off, current.buf, current.length, n);
+                current.length += n;
+                off += n;
+                len -= n;
+                if (current.length == current.buf.length)
+                    handOff(false);
+            }
+        }
+
+        private Chunk take() {
+            try {
+                final Chunk chunk = free.take();
+                chunk.length = 0;
+                chunk.last = false;
+                return chunk;
+            } catch (final InterruptedException e) {
+                throw new UncheckedIOException(interrupted());
+            }
+        }
+
+        private void handOff(final boolean last) {
+            if (current == null)
+                current = take();
+            current.last = last;
+            try {
+                full.put(current);
+            } catch (final InterruptedException e) {
+                throw new UncheckedIOException(interrupted());
+            }
+            current = null;
+        }
+
+        /**
+         * hands the buffer filled so far to the pipeline thread.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (!closed && current != null && current.length > 0) {
+                try {
+                    handOff(false);
+                } catch (final UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+
+        /**
+         * waits for the pipeline thread to write the end of the compressed stream.
+         * @throws IOException the first failure of the pipeline.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try {
+                    handOff(true);
+                    done.await();
+                } catch (final UncheckedIOException e) {
+                    throw e.getCause();
+                } catch (final InterruptedException e) {
+                    throw interrupted();
+                }
+            }
+            if (failure != null)
+                throw new IOException(failure.getMessage(), failure);
+        }
+
+        /**
+         * stops the pipeline without ending the compressed stream, after a failure to
+         * produce the rest of it, and waits for the pipeline thread to stop writing to out.
+         */
+        void abort() {
+            if (closed)
+                return;
+            closed = true;
+            if (failure == null)
+                failure = new IOException("aborted");
+            try {
+                handOff(true);
+                done.await();
+            } catch (final UncheckedIOException e) {
+                // interrupted; the pipeline thread stays parked on an empty ring.
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * @return compressed bytes written to the output, final once closed.
+         */
+        public long written() {
+            return written;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Shortest decimal that rounds back to a double, after Giulietti's Schubfach: the rounding
+ * interval of the double is scaled by a 126 bit approximation of a power of ten so that it
+ * holds at most one decimal of the length being tried, found with a few multiplications.
+ * The powers of ten are computed once with {@link BigInteger}. Not thread safe; one instance
+ * per {@link Generator.Encoder}.
+ */
+final class Decimal {
+
+    private static final int K_MIN = -324;
+
+    private static final int K_MAX = 292;
+
+    private static final int Q_MIN = -1074;
+
+    private static final long C_MIN = 1L << 52;
+
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    /* g1 and g0 of each power of ten from K_MIN, see pow10(). */
+    private static final long[] G = new long[(K_MAX - K_MIN + 1) * 2];
+
+    static {
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            final BigInteger g = pow10(-k);
+            G[(k - K_MIN) << 1] = g.shiftRight(63).longValue();
+            G[(k - K_MIN) << 1 | 1] = g.longValue() & MASK_63;
+        }
+    }
+
+    /* "00" to "99". */
+    static final byte[] PAIRS = new byte[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            PAIRS[i << 1] = (byte) ('0' + i / 10);
+            PAIRS[i << 1 | 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    /**
+     * @return floor(beta) + 1 where 10^e = beta 2^r with 2^125 &lt;= beta &lt; 2^126.
+     */
+    private static BigInteger pow10(final int e) {
+        if (e >= 0) {
+            final BigInteger n = BigInteger.TEN.pow(e);
+            final int r = n.bitLength() - 126;
+            return (r >= 0 ? n.shiftRight(r) : n.shiftLeft(-r)).add(BigInteger.ONE);
+        }
+        final BigInteger d = BigInteger.TEN.pow(-e);
+        return BigInteger.ONE.shiftLeft(125 + d.bitLength()).divide(d).add(BigInteger.ONE);
+    }
+
+    /** ASCII digits of the shortest decimal, without trailing zeros. */
+    final byte[] digits = new byte[20];
+
+    int length;
+
+    /** the value is 0.digits times 10 to the point. */
+    int point;
+
+    /**
+     * @param v positive and finite.
+     */
+    Decimal of(final double v) {
+        final long bits = Double.doubleToRawLongBits(v);
+        final int bq = (int) (bits >>> 52) & 0x7FF;
+        if (bq == 0)
+            return subnormal(v);
+        final int mq = -Q_MIN + 1 - bq;
+        final long c = C_MIN | bits & C_MIN - 1;
+        if (0 < mq && mq < 53) {
+            final long f = c >> mq;
+            if (f << mq == c)
+                return digits(f, 0);
+        }
+        return decimal(-mq, c);
+    }
+
+    /*
+     * with few significant bits the interval can hold decimals two or more digits shorter,
+     * which the search below does not look for; subnormals are rare enough to round exactly.
+     */
+    private Decimal subnormal(final double v) {
+        final BigDecimal exact = new BigDecimal(v);
+        for (int n = 1; ; n++) {
+            final BigDecimal rounded = exact.round(new MathContext(n, RoundingMode.HALF_EVEN));
+            if (rounded.doubleValue() == v)
+                return digits(rounded.unscaledValue().longValue(), -rounded.scale());
+        }
+    }
+
+    private Decimal decimal(final int q, final long c) {
+        final int out = (int) c & 0x1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 2;
+        final long g1 = G[(k - K_MIN) << 1];
+        final long g0 = G[(k - K_MIN) << 1 | 1];
+        final long vb = rop(g1, g0, cb << h);
+        final long vbl = rop(g1, g0, cbl << h);
+        final long vbr = rop(g1, g0, cbr << h);
+
+        final long s = vb >> 2;
+        if (s >= 100) {
+            final long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            final long tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return digits(upin ? sp10 : tp10, k);
+        }
+        final long t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return digits(uin ? s : t, k);
+        final long cmp = vb - (s + t << 1);
+        return digits(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k);
+    }
+
+    /* f times 10 to e. */
+    private Decimal digits(long f, final int e) {
+        int exponent = e;
+        while (f % 10 == 0) {
+            f /= 10;
+            exponent ++;
+        }
+        length = write(f, digits, 0);
+        point = length + exponent;
+        return this;
+    }
+
+    /**
+     * writes the digits of a non negative value two at a time.
+     * @return number of digits.
+     */
+    static int write(long value, final byte[] buf, final int offset) {
+        final int length = length(value);
+        int at = offset + length;
+        while (value >= 100) {
+            final int pair = (int) (value % 100) << 1;
+            value /= 100;
+            buf[-- at] = PAIRS[pair | 1];
+            buf[-- at] = PAIRS[pair];
+        }
+        if (value >= 10) {
+            buf[-- at] = PAIRS[(int) value << 1 | 1];
+            buf[-- at] = PAIRS[(int) value << 1];
+        } else {
+            buf[-- at] = (byte) ('0' + value);
+        }
+        return length;
+    }
+
+    /**
+     * @return number of decimal digits of a non negative value.
+     */
+    static int length(final long value) {
+        long p = 10;
+        for (int i = 1; i < 19; i++) {
+            if (value < p)
+                return i;
+            p *= 10;
+        }
+        return 19;
+    }
+
+    /* floor(q log10 2), floor(q log10 2 - log10 4/3) and floor(e log2 10) for the exponents in use. */
+    private static int flog10pow2(final int q) {
+        return (int) (q * 661_971_961_083L >> 41);
+    }
+
+    private static int flog10threeQuartersPow2(final int q) {
+        return (int) (q * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    private static int flog2pow10(final int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /* g 2^-127 cp rounded to odd, where g = g1 2^63 + g0. */
+    private static long rop(final long g1, final long g0, final long cp) {
+        final long x1 = multiplyHigh(g0, cp);
+        final long y0 = g1 * cp;
+        final long y1 = multiplyHigh(g1, cp);
+        final long z = (y0 >>> 1) + x1;
+        final long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /* Math.multiplyHigh, which Java 8 lacks. */
+    static long multiplyHigh(final long x, final long y) {
+        final long x1 = x >> 32;
+        final long x2 = x & 0xFFFFFFFFL;
+        final long y1 = y >> 32;
+        final long y2 = y & 0xFFFFFFFFL;
+        final long z2 = x2 * y2;
+        final long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        final long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+}
@@ -0,0 +1,200 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.security.SecureRandom;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+/**
+ * Insertion ordered map behind parsed objects that outgrow their {@link Value.Shape}.
+ * Keys are placed by a SipHash-1-3 of their contents under a key drawn at startup instead
+ * of {@code hashCode}, so documents crafted to collide under {@code String.hashCode} spread
+ * like any others and lookups stay constant time. Entries sit in two arrays in insertion
+ * order next to an open addressed index; there is no entry object per member.
+ */
+final class Dictionary extends AbstractMap<Value, Value> {
+
+    private static final long K0;
+
+    private static final long K1;
+
+    static {
+        final SecureRandom random = new SecureRandom();
+        K0 = random.nextLong();
+        K1 = random.nextLong();
+    }
+
+    private Value[] keys = new Value[8];
+
+    private Value[] values = new Value[8];
+
+    private int[] hashes = new int[8];
+
+    /* position + 1 of the entry, 0 for free; at most half full. */
+    private int[] index = new int[16];
+
+    private int size;
+
+    /**
+     * @return seeded hash of an object key, different on every run.
+     */
+    static int hash(final Value key) {
+        if (key == null)
+            return 0;
+        if (key instanceof Value.StringValue)
+            return ((Value.StringValue) key).keyHash();
+        return (int) mix(key.hashCode());
+    }
+
+    /**
+     * SipHash-1-3 of the UTF-16LE encoding of s.
+     */
+    static int hash(final String s) {
+        long v0 = K0 ^ 0x736f6d6570736575L;
+        long v1 = K1 ^ 0x646f72616e646f6dL;
+        long v2 = K0 ^ 0x6c7967656e657261L;
+        long v3 = K1 ^ 0x7465646279746573L;
+        final int n = s.length();
+        final int blocks = n >> 2;
+        for (int b = 0; b <= blocks; b++) {
+            long m;
+            final int i = b << 2;
+            if (b < blocks) {
+                m = s.charAt(i) | (long) s.charAt(i + 1) << 16 | (long) s.charAt(i + 2) << 32 | (long) s.charAt(i + 3) << 48;
+            } else {
+                m = (long) (n << 1) << 56;
+                for (int j = i; j < n; j++)
+                    m |= (long) s.charAt(j) << ((j - i) << 4);
+            }
+            v3 ^= m;
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+            v0 ^= m;
+        }
+        v2 ^= 0xff;
+        for (int r = 0; r < 3; r++) {
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+        final long h = v0 ^ v1 ^ v2 ^ v3;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long mix(final long h) {
+        long x = (h ^ K0) * 0x9E3779B97F4A7C15L;
+        x ^= x >>> 32;
+        return x ^ K1;
+    }
+
+    private int find(final Object key, final int hash) {
+        final int mask = index.length - 1;
+        int pos = hash & mask;
+        int slot;
+        while ((slot = index[pos]) != 0) {
+            if (hashes[slot - 1] == hash && Objects.equals(keys[slot - 1], key))
+                return slot - 1;
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public Value get(final Object key) {
+        if (key != null && !(key instanceof Value))
+            return null;
+        final int i = find(key, hash((Value) key));
+        return i < 0 ? null : values[i];
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return (key == null || key instanceof Value) && find(key, hash((Value) key)) >= 0;
+    }
+
+    @Override
+    public Value put(final Value key, final Value value) {
+        final int hash = hash(key);
+        final int i = find(key, hash);
+        if (i >= 0) {
+            final Value old = values[i];
+            values[i] = value;
+            return old;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            index = new int[size * 4];
+            for (int j = 0; j < size; j++)
+                place(hashes[j], j);
+        }
+        keys[size] = key;
+        values[size] = value;
+        hashes[size] = hash;
+        place(hash, size ++);
+        return null;
+    }
+
+    private void place(final int hash, final int entry) {
+        final int mask = index.length - 1;
+        int pos = hash & mask;
+        while (index[pos] != 0)
+            pos = (pos + 1) & mask;
+        index[pos] = entry + 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super Value, ? super Value> action) {
+        for (int i = 0; i < size; i++)
+            action.accept(keys[i], values[i]);
+    }
+
+    @Override
+    public Set<Map.Entry<Value, Value>> entrySet() {
+        return new AbstractSet<Map.Entry<Value, Value>>() {
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Map.Entry<Value, Value>> iterator() {
+                return new Iterator<Map.Entry<Value, Value>>() {
+
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Map.Entry<Value, Value> next() {
+                        if (next >= size)
+                            throw new NoSuchElementException();
+                        final int i = next ++;
+                        return new SimpleImmutableEntry<>(keys[i], values[i]);
+                    }
+                };
+            }
+        };
+    }
+}
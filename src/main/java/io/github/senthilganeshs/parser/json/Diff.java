@@ -0,0 +1,231 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+import io.github.senthilganeshs.parser.json.Patch.Streamer;
+import io.github.senthilganeshs.parser.json.Patch.Tree;
+import io.github.senthilganeshs.parser.json.StreamParser.ByteReader;
+
+/**
+ * Lockstep diff of two documents into a JSON Patch, see {@link Patch#diff(InputStream, InputStream)}.
+ * Scalars are compared byte for byte; identical subtrees are walked without being materialized.
+ */
+final class Diff {
+
+    final static class Ops {
+
+        Value value = Value.arr();
+
+        void add(final String op, final List<String> path, final Value operand) {
+            Value entry = Value.json()
+                .with(Value.string("op"), Value.string(op))
+                .with(Value.string("path"), Value.string(Tree.pointer(path)));
+            if (operand != null)
+                entry = entry.with(Value.string("value"), operand);
+            value = value.append(entry);
+        }
+    }
+
+    private final ByteReader lhs;
+
+    private final ByteReader rhs;
+
+    private final Streamer source;
+
+    private final Streamer target;
+
+    private final Ops ops = new Ops();
+
+    private Diff(final ByteReader lhs, final ByteReader rhs) {
+        this.lhs = lhs;
+        this.rhs = rhs;
+        this.source = new Streamer(lhs, null);
+        this.target = new Streamer(rhs, null);
+    }
+
+    static Either<Value, JSONParserException> of(final InputStream source, final InputStream target) {
+        return StreamParser.withReader(source::read, lhs -> StreamParser.withReader(target::read, rhs -> {
+            final Diff diff = new Diff(lhs, rhs);
+            try {
+                StreamParser.skipWhitespace(lhs);
+                StreamParser.skipWhitespace(rhs);
+                diff.diff(new ArrayList<>());
+                return Either.succ(diff.ops.value);
+            } catch (final StreamParser.Abort e) {
+                return Either.fail(e.failure);
+            } catch (final IOException e) {
+                return Either.fail(new JSONParserException(e));
+            } catch (final JSONParserException e) {
+                return Either.fail(e);
+            }
+        }));
+    }
+
+    private void diff(final List<String> path) throws IOException, JSONParserException {
+        final int a = lhs.peek();
+        final int b = rhs.peek();
+        if (a == '{' && b == '{') {
+            objects(path);
+        } else if (a == '[' && b == '[') {
+            arrays(path);
+        } else {
+            final byte[] before = source.raw();
+            final byte[] after = target.raw();
+            if (!Arrays.equals(before, after))
+                ops.add("replace", path, Streamer.parse(after));
+        }
+    }
+
+    private void objects(final List<String> path) throws IOException, JSONParserException {
+        final Map<String, byte[]> removed = new LinkedHashMap<>();
+        final Map<String, byte[]> added = new LinkedHashMap<>();
+        boolean moreA = open(lhs, '}');
+        boolean moreB = open(rhs, '}');
+        while (moreA || moreB) {
+            if (moreA && moreB) {
+                final String a = Streamer.decode(source.key());
+                final String b = Streamer.decode(target.key());
+                if (a.equals(b)) {
+                    path.add(a);
+                    diff(path);
+                    path.remove(path.size() - 1);
+                } else {
+                    settle(path, a, source.raw(), removed, added, true);
+                    settle(path, b, target.raw(), added, removed, false);
+                }
+            } else if (moreA) {
+                settle(path, Streamer.decode(source.key()), source.raw(), removed, added, true);
+            } else {
+                settle(path, Streamer.decode(target.key()), target.raw(), added, removed, false);
+            }
+            if (moreA)
+                moreA = more(source, lhs, '}');
+            if (moreB)
+                moreB = more(target, rhs, '}');
+        }
+        for (final String key : removed.keySet()) {
+            path.add(key);
+            ops.add("remove", path, null);
+            path.remove(path.size() - 1);
+        }
+        for (final Map.Entry<String, byte[]> e : added.entrySet()) {
+            path.add(e.getKey());
+            ops.add("add", path, Streamer.parse(e.getValue()));
+            path.remove(path.size() - 1);
+        }
+    }
+
+    /**
+     * pairs a member seen out of order with its counterpart, or parks it until one shows up.
+     */
+    private void settle(final List<String> path, final String key, final byte[] raw,
+        final Map<String, byte[]> own, final Map<String, byte[]> other, final boolean isSource)
+        throws JSONParserException {
+        final byte[] counterpart = other.remove(key);
+        if (counterpart == null) {
+            own.put(key, raw);
+        } else if (!Arrays.equals(raw, counterpart)) {
+            path.add(key);
+            diff(path, Streamer.parse(isSource ? raw : counterpart), Streamer.parse(isSource ? counterpart : raw), ops);
+            path.remove(path.size() - 1);
+        }
+    }
+
+    private void arrays(final List<String> path) throws IOException, JSONParserException {
+        boolean moreA = open(lhs, ']');
+        boolean moreB = open(rhs, ']');
+        int index = 0;
+        while (moreA && moreB) {
+            path.add(String.valueOf(index ++));
+            diff(path);
+            path.remove(path.size() - 1);
+            moreA = more(source, lhs, ']');
+            moreB = more(target, rhs, ']');
+        }
+        path.add(String.valueOf(index));
+        while (moreA) {
+            source.skipValue();
+            ops.add("remove", path, null);
+            moreA = more(source, lhs, ']');
+        }
+        path.set(path.size() - 1, "-");
+        while (moreB) {
+            ops.add("add", path, Streamer.parse(target.raw()));
+            moreB = more(target, rhs, ']');
+        }
+        path.remove(path.size() - 1);
+    }
+
+    /**
+     * consumes the opening bracket.
+     * @return true if the container has members.
+     */
+    private static boolean open(final ByteReader reader, final char close) {
+        reader.next();
+        StreamParser.skipWhitespace(reader);
+        return closed(reader, close);
+    }
+
+    private static boolean more(final Streamer streamer, final ByteReader reader, final char close)
+        throws JSONParserException {
+        streamer.next(close);
+        return closed(reader, close);
+    }
+
+    private static boolean closed(final ByteReader reader, final char close) {
+        if (reader.peek() != close)
+            return true;
+        reader.next();
+        return false;
+    }
+
+    static void diff(final List<String> path, final Value source, final Value target, final Ops ops) {
+        if (Values.isObject(source) && Values.isObject(target)) {
+            source.isJSON((k, v) -> k.isString(key -> {
+                path.add(key);
+                final Value counterpart = Tree.child(target, k);
+                if (counterpart == null)
+                    ops.add("remove", path, null);
+                else
+                    diff(path, v, counterpart, ops);
+                path.remove(path.size() - 1);
+            }));
+            target.isJSON((k, v) -> k.isString(key -> {
+                if (Tree.child(source, k) == null) {
+                    path.add(key);
+                    ops.add("add", path, v);
+                    path.remove(path.size() - 1);
+                }
+            }));
+        } else if (Values.isArray(source) && Values.isArray(target)) {
+            final List<Value> before = new ArrayList<>();
+            final List<Value> after = new ArrayList<>();
+            source.isArray(before::add);
+            target.isArray(after::add);
+            final int common = Math.min(before.size(), after.size());
+            for (int i = 0; i < common; i++) {
+                path.add(String.valueOf(i));
+                diff(path, before.get(i), after.get(i), ops);
+                path.remove(path.size() - 1);
+            }
+            path.add(String.valueOf(common));
+            for (int i = common; i < before.size(); i++)
+                ops.add("remove", path, null);
+            path.set(path.size() - 1, "-");
+            for (int i = common; i < after.size(); i++)
+                ops.add("add", path, after.get(i));
+            path.remove(path.size() - 1);
+        } else if (!source.equals(target)) {
+            ops.add("replace", path, target);
+        }
+    }
+}
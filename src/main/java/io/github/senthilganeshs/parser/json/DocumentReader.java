@@ -0,0 +1,157 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+import io.github.senthilganeshs.parser.json.StreamParser.ByteReader;
+
+/**
+ * Reads top level values written one after the other, with or without whitespace between
+ * them ({@code {..}{..}[..]} or newline delimited), from a blocking stream or channel. All
+ * values are read through one buffer owned by the reader, so a long lived feed is parsed
+ * without allocating buffers per document. {@link ParserLimits#maxDocumentSize()} applies
+ * to each value with the whitespace before it.
+ * <p>
+ * {@link #hasNext()} blocks until the next value starts or the input ends. A malformed value
+ * or a failed read is returned as a failure and ends the iteration, since the rest of the
+ * input cannot be framed reliably. The input is not closed. A reader is not thread safe,
+ * but can be handed from one thread to another.
+ *
+ * <pre>
+ * DocumentReader.of(socket.getInputStream()).stream()
+ *     .forEach(doc -> doc.ifSuccess(handler).ifFailure(System.out::println));
+ * </pre>
+ */
+public interface DocumentReader extends Iterator<Either<Value, JSONParserException>> {
+
+    /**
+     * @return values remaining in the input, in order.
+     */
+    default Stream<Either<Value, JSONParserException>> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+            Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    public static DocumentReader of(final InputStream stream) {
+        return of(stream, ParserLimits.defaults(), Instrumentation.NONE);
+    }
+
+    /**
+     * @param instrumentation told of every value read, see {@link Instrumentation#parsed}.
+     */
+    public static DocumentReader of(final InputStream stream, final ParserLimits limits,
+        final Instrumentation instrumentation) {
+        return new Reader(stream::read, limits, instrumentation);
+    }
+
+    /**
+     * @param channel in blocking mode.
+     */
+    public static DocumentReader of(final ReadableByteChannel channel) {
+        return of(channel, ParserLimits.defaults(), Instrumentation.NONE);
+    }
+
+    public static DocumentReader of(final ReadableByteChannel channel, final ParserLimits limits,
+        final Instrumentation instrumentation) {
+        return new Reader(ByteReader.Source.of(channel), limits, instrumentation);
+    }
+
+    final static class Reader implements DocumentReader {
+
+        private final ByteReader.Source source;
+
+        private final ParserLimits limits;
+
+        private final Instrumentation instrumentation;
+
+        /* created by the first hasNext, so that constructing a reader does not block. */
+        private ByteReader.StreamByteReader reader;
+
+        private Either<Value, JSONParserException> next;
+
+        private boolean done;
+
+        /* the reader sees a failed read as the end of input; the cause is kept here. */
+        private IOException broken;
+
+        private long refills;
+
+        Reader(final ByteReader.Source source, final ParserLimits limits, final Instrumentation instrumentation) {
+            this.source = source;
+            this.limits = limits;
+            this.instrumentation = instrumentation;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done)
+                next = read();
+            return next != null;
+        }
+
+        @Override
+        public Either<Value, JSONParserException> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            final Either<Value, JSONParserException> value = next;
+            next = null;
+            return value;
+        }
+
+        private int fill(final byte[] buf, final int offset, final int length) throws IOException {
+            try {
+                final int n = source.read(buf, offset, length);
+                if (n > 0)
+                    refills ++;
+                return n;
+            } catch (final IOException e) {
+                broken = e;
+                throw e;
+            }
+        }
+
+        /**
+         * @return next value or failure, null at the end of input.
+         */
+        private Either<Value, JSONParserException> read() {
+            final long start = System.nanoTime();
+            final long from = reader == null ? 0 : reader.position();
+            final long refilled = refills;
+            Either<Value, JSONParserException> result;
+            try {
+                if (reader == null)
+                    reader = new ByteReader.StreamByteReader(this::fill, new byte[ByteReader.StreamByteReader.BUF_SIZE], limits);
+                else
+                    reader.begin();
+                if (instrumentation != Instrumentation.NONE)
+                    reader.count();
+                StreamParser.skipWhitespace(reader);
+                if (reader.peek() == -1) {
+                    done = true;
+                    return broken == null ? null : Either.fail(new JSONParserException(broken));
+                }
+                result = Either.succ(StreamParser.value(reader));
+            } catch (final StreamParser.Abort e) {
+                done = true;
+                result = Either.fail(broken == null ? e.failure : new JSONParserException(broken));
+            } catch (final NumberFormatException e) {
+                done = true;
+                result = Either.fail(reader.error("malformed number", 0));
+            }
+            if (instrumentation == Instrumentation.NONE)
+                return result;
+            return StreamParser.report(instrumentation, result, start,
+                reader == null ? 0 : reader.position() - from, refills - refilled, reader);
+        }
+    }
+}
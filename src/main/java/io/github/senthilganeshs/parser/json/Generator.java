@@ -1,20 +1,101 @@
 package io.github.senthilganeshs.parser.json;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
 import io.github.senthilganeshs.parser.json.Parser.Value;
 
 public interface Generator {
 
     String generate (final Value value);
 
+    /**
+     * writes the UTF-8 text of value to out, compressed on another thread while it is
+     * generated, see {@link Compression}. out is flushed but not closed.
+     * @return number of compressed bytes written.
+     * @throws IllegalArgumentException for values that have no JSON text.
+     */
+    default Either<Long, IOException> write(final Value value, final OutputStream out, final Compression compression) {
+        final byte[] text = generate(value).getBytes(StandardCharsets.UTF_8);
+        return compression.write(out, sink -> sink.append(text, 0, text.length));
+    }
+
+    /**
+     * @return the default generator. It is stateless and safe to share between threads.
+     */
     public static Generator create() {
         return Simple.INSTANCE;
     }
+
+    /**
+     * @return the default generator, reporting every document to instrumentation.
+     */
+    public static Generator create(final Instrumentation instrumentation) {
+        if (instrumentation == Instrumentation.NONE)
+            return create();
+        return value -> {
+            final long start = System.nanoTime();
+            final String text = create().generate(value);
+            instrumentation.generated(text.length(), System.nanoTime() - start);
+            return text;
+        };
+    }
+
+    /**
+     * @return RFC 8785 (JCS) generator: keys sorted by UTF-16 code units, no whitespace, minimal
+     * string escaping and ECMAScript number formatting.
+     */
+    public static Canonical canonical() {
+        return Canonical.INSTANCE;
+    }
+
+    /**
+     * @return generator splitting large arrays and objects across the common fork/join pool.
+     */
+    public static Parallel parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @return generator splitting large arrays and objects across pool.
+     */
+    public static Parallel parallel(final ForkJoinPool pool) {
+        return new Parallel(pool, Parallel.LEAF);
+    }
+
+    /**
+     * copies the document dropping all insignificant whitespace. Tokens are copied as raw bytes
+     * without building values; concatenated documents come out one per line.
+     * @return number of bytes written.
+     */
+    public static Either<Long, JSONParserException> minify(final InputStream in, final OutputStream out) {
+        return Reformatter.run(in, out, -1);
+    }
+
+    /**
+     * copies the document with one member or element per line, indented by indent spaces per level.
+     * @return number of bytes written.
+     */
+    public static Either<Long, JSONParserException> pretty(final InputStream in, final OutputStream out, final int indent) {
+        return Reformatter.run(in, out, Math.max(0, indent));
+    }
     
+    /**
+     * Members in their own order, numbers as Java prints them, see {@link Encoder}.
+     */
     enum Simple implements Generator {
 
         INSTANCE
@@ -22,43 +103,558 @@ public interface Generator {
         
         @Override
         public String generate(final Value value) {
-            final StringBuilder bld = new StringBuilder();
-            value.isNull(() -> bld.append("null"));
-            value.isString(str -> bld.append("\"" + str + "\""));
-            value.isInteger(bld::append);
-            value.isDouble(bld::append);
-            value.isBool(bld::append);
-            
-            if (!bld.toString().isEmpty())
-                return bld.toString();
-            
-            final List<String> array = new ArrayList<>();
-            final boolean isArray = (value instanceof Value.ArrayValue);
-            value.isArray(v -> {
-                array.add(generate(v));   
+            return new Encoder(false, 256).value(value).text();
+        }
+
+        @Override
+        public Either<Long, IOException> write(final Value value, final OutputStream out, final Compression compression) {
+            return compression.write(out, sink -> new Encoder(sink::append, false).value(value).flush());
+        }
+    }
+
+    enum Canonical implements Generator {
+
+        INSTANCE
+        ;
+
+        @Override
+        public String generate(final Value value) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new Encoder(out::write).value(value).flush();
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Either<Long, IOException> write(final Value value, final OutputStream out, final Compression compression) {
+            return compression.write(out, sink -> new Encoder(sink::append).value(value).flush());
+        }
+
+        /**
+         * feeds the canonical UTF-8 form of value to the digest without building it and
+         * completes the digest.
+         */
+        public byte[] digest(final Value value, final MessageDigest digest) {
+            new Encoder(digest::update).value(value).flush();
+            return digest.digest();
+        }
+    }
+
+    /**
+     * Generator for large documents. Arrays and objects with more than {@value #LEAF} members
+     * are cut into ranges that workers of a {@link ForkJoinPool} encode to UTF-8 side by side,
+     * each into chunks of its own; the chunks are then concatenated, or written to a channel
+     * as they are with one gathering write. Members keep their order and strings are escaped.
+     * Smaller values are encoded on the calling pool thread, so the split costs nothing for
+     * them, but the parallel generator only pays off for documents of hundreds of kilobytes.
+     */
+    final static class Parallel implements Generator {
+
+        static final int LEAF = 512;
+
+        private final ForkJoinPool pool;
+
+        private final int leaf;
+
+        Parallel(final ForkJoinPool pool, final int leaf) {
+            this.pool = pool;
+            this.leaf = leaf;
+        }
+
+        @Override
+        public String generate(final Value value) {
+            final List<ByteBuffer> chunks = chunks(value);
+            int length = 0;
+            for (final ByteBuffer chunk : chunks)
+                length += chunk.remaining();
+            final byte[] text = new byte[length];
+            int at = 0;
+            for (final ByteBuffer chunk : chunks) {
+                final int n = chunk.remaining();
+                chunk.get(text, at, n);
+                at += n;
+            }
+            return new String(text, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * writes the UTF-8 text of value to channel, with as few gathering writes as the
+         * channel allows. The channel is not closed.
+         * @return number of bytes written.
+         * @throws IllegalArgumentException for values that have no JSON text.
+         */
+        public Either<Long, IOException> write(final Value value, final GatheringByteChannel channel) {
+            final ByteBuffer[] chunks = chunks(value).toArray(new ByteBuffer[0]);
+            return Either.wrap(() -> {
+                long written = 0;
+                for (int first = 0; first < chunks.length; ) {
+                    written += channel.write(chunks, first, chunks.length - first);
+                    while (first < chunks.length && !chunks[first].hasRemaining())
+                        first ++;
+                }
+                return written;
             });
-            
-            if (isArray) {
-                bld.append("[");
-                array.stream().reduce((lhs, rhs) -> lhs + "," + rhs).ifPresent(bld::append);
-                bld.append("]");
-                return bld.toString();
-            }
-            
-            final Map<String, String> map = new LinkedHashMap<>();
-            final boolean isMap = (value instanceof Value.JSONValue);
-            value.isJSON((k, v) -> {
-                map.put(generate(k), generate(v));                
+        }
+
+        /**
+         * deflates the chunks as they are, without joining them first.
+         */
+        @Override
+        public Either<Long, IOException> write(final Value value, final OutputStream out, final Compression compression) {
+            final List<ByteBuffer> chunks = chunks(value);
+            return compression.write(out, sink -> {
+                for (final ByteBuffer chunk : chunks)
+                    sink.append(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
             });
-            
-            if (isMap) {
-                bld.append("{");
-                map.entrySet().stream()
-                .map(e -> e.getKey() + ":" + e.getValue())
-                .reduce((lhs, rhs) -> lhs + "," + rhs).ifPresent(bld::append);
-                bld.append("}");
-            }            
-            return bld.toString();
-        }   
-    }   
-}
\ No newline at end of file
+        }
+
+        /**
+         * @throws IllegalArgumentException for values that have no JSON text.
+         */
+        List<ByteBuffer> chunks(final Value value) {
+            return pool.invoke(new Part(this, null, new Value[] {value}, 0, 1));
+        }
+    }
+
+    /**
+     * Encodes members from up to to of a container, splitting ranges wider than the leaf
+     * size in halves. Keys are null for arrays.
+     */
+    final static class Part extends RecursiveTask<List<ByteBuffer>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Parallel generator;
+
+        private final Value[] keys;
+
+        private final Value[] values;
+
+        private final int from;
+
+        private final int to;
+
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+
+        private Encoder encoder = new Encoder(false, 1024);
+
+        Part(final Parallel generator, final Value[] keys, final Value[] values, final int from, final int to) {
+            this.generator = generator;
+            this.keys = keys;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ByteBuffer> compute() {
+            if (to - from > generator.leaf) {
+                final int mid = (from + to) >>> 1;
+                final Part left = new Part(generator, keys, values, from, mid);
+                left.fork();
+                final List<ByteBuffer> right = new Part(generator, keys, values, mid, to).compute();
+                final List<ByteBuffer> all = left.join();
+                all.addAll(right);
+                return all;
+            }
+            for (int i = from; i < to; i++) {
+                if (i > 0)
+                    encoder.write(',');
+                if (keys != null)
+                    encoder.key(keys[i]);
+                value(values[i]);
+            }
+            cut();
+            return chunks;
+        }
+
+        private void value(final Value value) {
+            final boolean object = Values.isObject(value);
+            if (!object && !Values.isArray(value)) {
+                encoder.value(value);
+                return;
+            }
+            final int size = Values.size(value);
+            encoder.write(object ? '{' : '[');
+            if (size > generator.leaf) {
+                final Value[] members = new Value[size];
+                final Value[] names = object ? new Value[size] : null;
+                final int[] n = {0};
+                if (object) {
+                    value.isJSON((k, v) -> {
+                        names[n[0]] = k;
+                        members[n[0] ++] = v;
+                    });
+                } else {
+                    value.isArray(v -> members[n[0] ++] = v);
+                }
+                cut();
+                chunks.addAll(new Part(generator, names, members, 0, size).compute());
+            } else {
+                final boolean[] first = {true};
+                if (object) {
+                    value.isJSON((k, v) -> {
+                        if (!first[0])
+                            encoder.write(',');
+                        first[0] = false;
+                        encoder.key(k);
+                        value(v);
+                    });
+                } else {
+                    value.isArray(v -> {
+                        if (!first[0])
+                            encoder.write(',');
+                        first[0] = false;
+                        value(v);
+                    });
+                }
+            }
+            encoder.write(object ? '}' : ']');
+        }
+
+        /* ends the chunk being encoded, so chunks of a nested split go after it. */
+        private void cut() {
+            if (encoder.pos > 0) {
+                chunks.add(ByteBuffer.wrap(encoder.buf, 0, encoder.pos));
+                encoder = new Encoder(false, Math.max(1024, encoder.pos));
+            }
+        }
+    }
+
+    /**
+     * Writes the UTF-8 form of a value through a small buffer, either canonical or with
+     * members in their own order and numbers as Java prints them. Without an output the
+     * buffer grows instead, and holds the whole text.
+     */
+    final static class Encoder {
+
+        interface Output {
+            void write(final byte[] buf, final int offset, final int length);
+        }
+
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+        /* character after the backslash for ASCII that has to be escaped, 0 otherwise. */
+        private static final byte[] ESCAPES = new byte[128];
+
+        static {
+            for (int ch = 0; ch < 0x20; ch++)
+                ESCAPES[ch] = 'u';
+            ESCAPES['"'] = '"';
+            ESCAPES['\\'] = '\\';
+            ESCAPES['\b'] = 'b';
+            ESCAPES['\f'] = 'f';
+            ESCAPES['\n'] = 'n';
+            ESCAPES['\r'] = 'r';
+            ESCAPES['\t'] = 't';
+        }
+
+        private final Output out;
+
+        private final boolean canonical;
+
+        private byte[] buf;
+
+        private int pos;
+
+        private final Decimal decimal = new Decimal();
+
+        Encoder(final Output out) {
+            this(out, true);
+        }
+
+        Encoder(final Output out, final boolean canonical) {
+            this.out = out;
+            this.canonical = canonical;
+            this.buf = new byte[512];
+        }
+
+        /**
+         * @return encoder collecting the text, see {@link #text()}.
+         */
+        Encoder(final boolean canonical, final int capacity) {
+            this.out = null;
+            this.canonical = canonical;
+            this.buf = new byte[Math.max(capacity, 32)];
+        }
+
+        Encoder flush() {
+            if (out != null) {
+                out.write(buf, 0, pos);
+                pos = 0;
+            }
+            return this;
+        }
+
+        /**
+         * @return text collected without an output.
+         */
+        String text() {
+            return new String(buf, 0, pos, StandardCharsets.UTF_8);
+        }
+
+        /* makes room for n more bytes. */
+        private void room(final int n) {
+            if (pos + n <= buf.length)
+                return;
+            if (out == null) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            } else {
+                flush();
+                if (n > buf.length)
+                    buf = new byte[n];
+            }
+        }
+
+        private void write(final int b) {
+            if (pos == buf.length)
+                room(1);
+            buf[pos ++] = (byte) b;
+        }
+
+        Encoder value(final Value value) {
+            if (value instanceof Value.StringValue) {
+                string(((Value.StringValue) value).value());
+            } else if (value instanceof Value.IntValue) {
+                number(((Value.IntValue) value).value());
+            } else if (value instanceof Value.DoubleValue) {
+                number(((Value.DoubleValue) value).value());
+            } else if (value instanceof Value.BoolValue) {
+                ascii(((Value.BoolValue) value).value() ? "true" : "false");
+            } else if (value instanceof Value.NilValue) {
+                ascii("null");
+            } else if (canonical && value instanceof Value.ShapedJSONValue) {
+                shaped((Value.ShapedJSONValue) value);
+            } else if (canonical && Values.isObject(value)) {
+                object(value);
+            } else if (Values.isObject(value)) {
+                write('{');
+                final boolean[] first = {true};
+                value.isJSON((k, v) -> {
+                    if (!first[0])
+                        write(',');
+                    first[0] = false;
+                    key(k);
+                    value(v);
+                });
+                write('}');
+            } else if (Values.isArray(value)) {
+                write('[');
+                final boolean[] first = {true};
+                value.isArray(v -> {
+                    if (!first[0])
+                        write(',');
+                    first[0] = false;
+                    value(v);
+                });
+                write(']');
+            } else {
+                final String[] error = {"unsupported value"};
+                value.isError(e -> error[0] = e);
+                throw new IllegalArgumentException(error[0]);
+            }
+            return this;
+        }
+
+        private void shaped(final Value.ShapedJSONValue object) {
+            final Value.Shape shape = object.shape();
+            write('{');
+            final int[] order = shape.sorted();
+            for (int i = 0; i < order.length; i++) {
+                if (i > 0)
+                    write(',');
+                string(((Value.StringValue) shape.key(order[i])).value());
+                write(':');
+                value(object.slot(order[i]));
+            }
+            write('}');
+        }
+
+        private void object(final Value object) {
+            final List<String> keys = new ArrayList<>();
+            final List<Value> values = new ArrayList<>();
+            object.isJSON((k, v) -> {
+                if (!(k instanceof Value.StringValue))
+                    throw new IllegalArgumentException("key cannot be non string type.");
+                keys.add(((Value.StringValue) k).value());
+                values.add(v);
+            });
+            final Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++)
+                order[i] = i;
+            Arrays.sort(order, (a, b) -> keys.get(a).compareTo(keys.get(b)));
+            write('{');
+            for (int i = 0; i < order.length; i++) {
+                if (i > 0)
+                    write(',');
+                string(keys.get(order[i]));
+                write(':');
+                value(values.get(order[i]));
+            }
+            write('}');
+        }
+
+        /* writes key and the colon after it. */
+        private void key(final Value key) {
+            if (!(key instanceof Value.StringValue))
+                throw new IllegalArgumentException("key cannot be non string type.");
+            string(((Value.StringValue) key).value());
+            write(':');
+        }
+
+        private void ascii(final String text) {
+            room(text.length());
+            for (int i = 0; i < text.length(); i++)
+                buf[pos ++] = (byte) text.charAt(i);
+        }
+
+        /**
+         * copies runs of ASCII that need no escaping straight into the buffer, as much of
+         * the run at a time as the buffer holds.
+         */
+        private void string(final String text) {
+            write('"');
+            final int length = text.length();
+            int i = 0;
+            while (i < length) {
+                if (pos == buf.length)
+                    room(1);
+                final int end = Math.min(length, i + buf.length - pos);
+                char ch = 0;
+                while (i < end && (ch = text.charAt(i)) < 0x80 && ESCAPES[ch] == 0) {
+                    buf[pos ++] = (byte) ch;
+                    i ++;
+                }
+                if (i == end)
+                    continue;
+                if (ch < 0x80) {
+                    escape(ch);
+                } else if (ch < 0x800) {
+                    room(2);
+                    buf[pos ++] = (byte) (0xC0 | (ch >> 6));
+                    buf[pos ++] = (byte) (0x80 | (ch & 0x3F));
+                } else if (Character.isHighSurrogate(ch) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    final int cp = Character.toCodePoint(ch, text.charAt(++ i));
+                    room(4);
+                    buf[pos ++] = (byte) (0xF0 | (cp >> 18));
+                    buf[pos ++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[pos ++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[pos ++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(ch)) {
+                    /* JCS has no text for it; plain JSON keeps it as an escape, as it was parsed. */
+                    if (canonical)
+                        throw new IllegalArgumentException("lone surrogate in string");
+                    room(6);
+                    buf[pos ++] = '\\';
+                    buf[pos ++] = 'u';
+                    buf[pos ++] = HEX[ch >> 12];
+                    buf[pos ++] = HEX[(ch >> 8) & 0xF];
+                    buf[pos ++] = HEX[(ch >> 4) & 0xF];
+                    buf[pos ++] = HEX[ch & 0xF];
+                } else {
+                    room(3);
+                    buf[pos ++] = (byte) (0xE0 | (ch >> 12));
+                    buf[pos ++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                    buf[pos ++] = (byte) (0x80 | (ch & 0x3F));
+                }
+                i ++;
+            }
+            write('"');
+        }
+
+        private void escape(final char ch) {
+            final byte escape = ESCAPES[ch];
+            room(6);
+            buf[pos ++] = '\\';
+            buf[pos ++] = escape;
+            if (escape == 'u') {
+                buf[pos ++] = '0';
+                buf[pos ++] = '0';
+                buf[pos ++] = HEX[ch >> 4];
+                buf[pos ++] = HEX[ch & 0xF];
+            }
+        }
+
+        /* integers are IEEE 754 doubles in JCS; beyond 2^53 they round like one. */
+        private void number(final long value) {
+            if (canonical && (value < -(1L << 53) || value > 1L << 53)) {
+                number((double) value);
+                return;
+            }
+            digits(value);
+        }
+
+        private void digits(final long value) {
+            if (value == Long.MIN_VALUE) {
+                ascii(Long.toString(value));
+                return;
+            }
+            room(20);
+            if (value < 0)
+                buf[pos ++] = '-';
+            pos += Decimal.write(Math.abs(value), buf, pos);
+        }
+
+        private void zeros(final int n) {
+            room(n);
+            for (int i = 0; i < n; i++)
+                buf[pos ++] = '0';
+        }
+
+        /* digits from of the decimal, up to to. */
+        private void digits(final int from, final int to) {
+            room(to - from);
+            System.arraycopy(decimal.digits, from, buf, pos, to - from);
+            pos += to - from;
+        }
+
+        /**
+         * The shortest digits that round trip, see {@link Decimal}, laid out as ECMAScript
+         * Number::toString when canonical (plain for exponents in [-6, 21), scientific
+         * otherwise) and as Double.toString otherwise (plain in [10^-3, 10^7), scientific
+         * with an upper case E otherwise, and always a fraction).
+         */
+        private void number(final double value) {
+            if (Double.isNaN(value) || Double.isInfinite(value))
+                throw new IllegalArgumentException("NaN and Infinity are not valid json numbers");
+            if (value == 0) {
+                ascii(canonical ? "0" : Double.doubleToRawLongBits(value) < 0 ? "-0.0" : "0.0");
+                return;
+            }
+            if (canonical && value >= -0x1p53 && value <= 0x1p53 && (long) value == value) {
+                digits((long) value);
+                return;
+            }
+            if (value < 0)
+                write('-');
+            final int k = decimal.of(Math.abs(value)).length;
+            final int n = decimal.point;
+            if (canonical ? k <= n && n <= 21 : k <= n && n <= 7) {
+                digits(0, k);
+                zeros(n - k);
+                if (!canonical)
+                    ascii(".0");
+            } else if (canonical ? 0 < n && n <= 21 : 0 < n && n <= 7) {
+                digits(0, n);
+                write('.');
+                digits(n, k);
+            } else if (canonical ? -6 < n && n <= 0 : -3 < n && n <= 0) {
+                ascii("0.");
+                zeros(-n);
+                digits(0, k);
+            } else {
+                digits(0, 1);
+                if (k > 1) {
+                    write('.');
+                    digits(1, k);
+                } else if (!canonical) {
+                    ascii(".0");
+                }
+                write(canonical ? 'e' : 'E');
+                if (canonical && n > 0)
+                    write('+');
+                digits(n - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.senthilganeshs.parser.json;
+
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+
+/**
+ * Receives one call per document from the parsers and generators it is handed to, see
+ * {@link Parser#streamParser(ParserLimits, Instrumentation)}, {@link Parser#compile(Schema, ParserLimits, Instrumentation)}
+ * and {@link Generator#create(Instrumentation)}. Calls are made on the parsing thread after
+ * the document is done, so implementations must be thread safe and should return quickly;
+ * {@link Metrics} aggregates them into counters and latency histograms.
+ * <p>
+ * Parsers and generators given {@link #NONE} (the default) skip the clock and the bookkeeping
+ * altogether.
+ */
+public interface Instrumentation {
+
+    /**
+     * kinds of values counted by {@link Instrumentation#parsed}.
+     */
+    enum Kind {
+        OBJECT, ARRAY, STRING, INTEGER, NUMBER, BOOLEAN, NULL
+    }
+
+    static Instrumentation NONE = new Instrumentation() {
+    };
+
+    /**
+     * @param bytes characters of a string document, bytes of a stream.
+     * @param nanos wall time of the parse.
+     * @param refills reads from the underlying stream or channel, 0 for strings.
+     * @param depth deepest nesting of arrays and objects, 0 for a scalar document.
+     * @param values number of values of each {@link Kind}, indexed by ordinal.
+     */
+    default void parsed(final long bytes, final long nanos, final long refills, final int depth, final int[] values) {
+    }
+
+    /**
+     * @param bytes characters or bytes read before the parse gave up.
+     */
+    default void failed(final JSONParserException.Kind kind, final long bytes, final long nanos) {
+    }
+
+    /**
+     * @param chars length of the generated text in UTF-16 characters, not encoded bytes.
+     */
+    default void generated(final long chars, final long nanos) {
+    }
+}
@@ -0,0 +1,353 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.RuntimeOperationsException;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+
+/**
+ * {@link Instrumentation} that adds every report to striped counters, so threads parsing at
+ * the same time do not contend, and latencies to log bucketed histograms. Reading is
+ * weakly consistent: a snapshot taken while documents are being parsed may count some of
+ * them in one figure and not yet in another.
+ *
+ * <pre>
+ * final Metrics metrics = Metrics.create();
+ * final Parser parser = Parser.streamParser(ParserLimits.defaults(), metrics);
+ * metrics.register("orders");
+ * </pre>
+ */
+public final class Metrics implements Instrumentation {
+
+    private final LongAdder documents = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private final LongAdder refills = new LongAdder();
+
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder[] values = adders(Instrumentation.Kind.values().length);
+
+    private final LongAdder[] failures = adders(JSONParserException.Kind.values().length);
+
+    private final Histogram parseLatency = new Histogram();
+
+    private final LongAdder generated = new LongAdder();
+
+    private final LongAdder generatedChars = new LongAdder();
+
+    private final Histogram generateLatency = new Histogram();
+
+    private Metrics() {
+    }
+
+    public static Metrics create() {
+        return new Metrics();
+    }
+
+    private static LongAdder[] adders(final int n) {
+        final LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    @Override
+    public void parsed(final long bytes, final long nanos, final long refills, final int depth, final int[] values) {
+        documents.increment();
+        this.bytes.add(bytes);
+        this.refills.add(refills);
+        maxDepth.accumulate(depth);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != 0)
+                this.values[i].add(values[i]);
+        }
+        parseLatency.record(nanos);
+    }
+
+    @Override
+    public void failed(final JSONParserException.Kind kind, final long bytes, final long nanos) {
+        failures[kind.ordinal()].increment();
+        this.bytes.add(bytes);
+        parseLatency.record(nanos);
+    }
+
+    @Override
+    public void generated(final long chars, final long nanos) {
+        generated.increment();
+        generatedChars.add(chars);
+        generateLatency.record(nanos);
+    }
+
+    /**
+     * @return documents parsed successfully.
+     */
+    public long documents() {
+        return documents.sum();
+    }
+
+    /**
+     * @return input read by all parses, failed ones included: UTF-16 characters of string
+     * documents and bytes of streams and channels, which agree only for ASCII text.
+     */
+    public long bytes() {
+        return bytes.sum();
+    }
+
+    public long refills() {
+        return refills.sum();
+    }
+
+    /**
+     * @return deepest nesting of any document parsed.
+     */
+    public long maxDepth() {
+        return maxDepth.get();
+    }
+
+    public long values(final Instrumentation.Kind kind) {
+        return values[kind.ordinal()].sum();
+    }
+
+    public long failures(final JSONParserException.Kind kind) {
+        return failures[kind.ordinal()].sum();
+    }
+
+    /**
+     * @return nanoseconds per parse, failed ones included.
+     */
+    public Histogram parseLatency() {
+        return parseLatency;
+    }
+
+    public long generated() {
+        return generated.sum();
+    }
+
+    /**
+     * @return UTF-16 characters generated, the unit {@link #bytes()} uses for string documents.
+     */
+    public long generatedChars() {
+        return generatedChars.sum();
+    }
+
+    public Histogram generateLatency() {
+        return generateLatency;
+    }
+
+    /**
+     * publishes these metrics on the platform MBean server as
+     * {@code io.github.senthilganeshs.parser.json:type=Metrics,name=<name>}.
+     */
+    public Either<ObjectName, JMException> register(final String name) {
+        if (name == null)
+            return Either.fail(new MalformedObjectNameException("metrics name is null"));
+        try {
+            final ObjectName objectName = new ObjectName("io.github.senthilganeshs.parser.json:type=Metrics,name="
+                + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(this), objectName);
+            return Either.succ(objectName);
+        } catch (final JMException e) {
+            return Either.fail(e);
+        } catch (final RuntimeOperationsException e) {
+            final JMException failure = new JMException(e.getMessage());
+            failure.initCause(e);
+            return Either.fail(failure);
+        }
+    }
+
+    /**
+     * Recorder of non negative longs in buckets of one sixteenth of a power of two, so any
+     * value read back is within 6.25% of one recorded. Each bucket is a {@link LongAdder}.
+     */
+    public final static class Histogram {
+
+        private static final int SUB_BITS = 4;
+
+        private static final int SUB = 1 << SUB_BITS;
+
+        private final LongAdder[] counts = adders((64 - SUB_BITS) * SUB);
+
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+        }
+
+        void record(final long value) {
+            final long v = Math.max(0, value);
+            counts[bucket(v)].increment();
+            max.accumulate(v);
+        }
+
+        static int bucket(final long v) {
+            if (v < SUB)
+                return (int) v;
+            final int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+            return ((shift + 1) << SUB_BITS) + (int) ((v >>> shift) & (SUB - 1));
+        }
+
+        /**
+         * @return largest value that falls into bucket.
+         */
+        static long highest(final int bucket) {
+            if (bucket < SUB)
+                return bucket;
+            final int shift = (bucket >>> SUB_BITS) - 1;
+            return ((long) (SUB + (bucket & (SUB - 1)) + 1) << shift) - 1;
+        }
+
+        public long count() {
+            long count = 0;
+            for (final LongAdder c : counts)
+                count += c.sum();
+            return count;
+        }
+
+        public long max() {
+            return max.get();
+        }
+
+        /**
+         * @param percentile between 0 and 100.
+         * @return value that percentile of the recordings are at or below, 0 when empty.
+         */
+        public long percentile(final double percentile) {
+            final long[] snapshot = new long[counts.length];
+            long count = 0;
+            for (int i = 0; i < counts.length; i++)
+                count += snapshot[i] = counts[i].sum();
+            if (count == 0)
+                return 0;
+            final long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                seen += snapshot[i];
+                if (seen >= rank)
+                    return Math.min(highest(i), max());
+            }
+            return max();
+        }
+    }
+
+    /**
+     * JMX view of {@link Metrics}. Latencies are in nanoseconds.
+     */
+    public interface MetricsMXBean {
+
+        long getDocumentsParsed();
+
+        long getBytesParsed();
+
+        long getBufferRefills();
+
+        long getMaxDepth();
+
+        Map<String, Long> getValues();
+
+        Map<String, Long> getFailures();
+
+        long getParseLatencyP50();
+
+        long getParseLatencyP99();
+
+        long getParseLatencyP999();
+
+        long getParseLatencyMax();
+
+        long getDocumentsGenerated();
+
+        long getCharsGenerated();
+
+        long getGenerateLatencyP99();
+    }
+
+    final static class MBean implements MetricsMXBean {
+
+        private final Metrics metrics;
+
+        MBean(final Metrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public long getDocumentsParsed() {
+            return metrics.documents();
+        }
+
+        @Override
+        public long getBytesParsed() {
+            return metrics.bytes();
+        }
+
+        @Override
+        public long getBufferRefills() {
+            return metrics.refills();
+        }
+
+        @Override
+        public long getMaxDepth() {
+            return metrics.maxDepth();
+        }
+
+        @Override
+        public Map<String, Long> getValues() {
+            final Map<String, Long> values = new LinkedHashMap<>();
+            for (final Instrumentation.Kind kind : Instrumentation.Kind.values())
+                values.put(kind.name(), metrics.values(kind));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getFailures() {
+            final Map<String, Long> failures = new LinkedHashMap<>();
+            for (final JSONParserException.Kind kind : JSONParserException.Kind.values())
+                failures.put(kind.name(), metrics.failures(kind));
+            return failures;
+        }
+
+        @Override
+        public long getParseLatencyP50() {
+            return metrics.parseLatency().percentile(50);
+        }
+
+        @Override
+        public long getParseLatencyP99() {
+            return metrics.parseLatency().percentile(99);
+        }
+
+        @Override
+        public long getParseLatencyP999() {
+            return metrics.parseLatency().percentile(99.9);
+        }
+
+        @Override
+        public long getParseLatencyMax() {
+            return metrics.parseLatency().max();
+        }
+
+        @Override
+        public long getDocumentsGenerated() {
+            return metrics.generated();
+        }
+
+        @Override
+        public long getCharsGenerated() {
+            return metrics.generatedChars();
+        }
+
+        @Override
+        public long getGenerateLatencyP99() {
+            return metrics.generateLatency().percentile(99);
+        }
+    }
+}
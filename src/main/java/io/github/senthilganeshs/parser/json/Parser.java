@@ -1,16 +1,23 @@
 package io.github.senthilganeshs.parser.json;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -21,41 +28,211 @@ public interface Parser {
     Either<Value, JSONParserException> parse(final String document);
     
     default Either<Value, JSONParserException> parse (final InputStream stream) {
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(stream))) {
-            String line = null;
-            final StringBuilder document = new StringBuilder();
-            do {
-                try {
-                    line = in.readLine();
-                    if (line != null)
-                        document.append(line);
-                } catch (IOException e) {
-                    break;
-                }
-            } while (line != null);
-            return parse(document.toString());
-        } catch (IOException e1) {
-            return Either.fail(new JSONParserException(e1));
+        try {
+            final ByteArrayOutputStream document = new ByteArrayOutputStream();
+            final byte[] buf = new byte[8192];
+            int read;
+            while ((read = stream.read(buf)) != -1) {
+                document.write(buf, 0, read);
+            }
+            return parse(new String(document.toByteArray(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return Either.fail(new JSONParserException(e));
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // nothing left to read.
+            }
         }
     }
 
+    default Either<Value, JSONParserException> parse (final ReadableByteChannel channel) {
+        return parse(Channels.newInputStream(channel));
+    }
+
+    /**
+     * parses a compressed document, inflated on another thread while it is parsed, see
+     * {@link Compression}. The stream is not closed.
+     */
+    default Either<Value, JSONParserException> parse (final InputStream stream, final Compression compression) {
+        return compression.parse(this, stream);
+    }
+
     public static Parser streamParser() {
         return StreamParser.streamParser();
     }
     
+    public static Parser streamParser(final ParserLimits limits) {
+        return streamParser(limits, Instrumentation.NONE);
+    }
+    
+    /**
+     * @return stream parser reporting every document to instrumentation.
+     */
+    public static Parser streamParser(final ParserLimits limits, final Instrumentation instrumentation) {
+        return new StreamParser.Parser2(limits, instrumentation);
+    }
+    
     public static Parser simple() {
-        return new Simple();
+        return new Simple(ParserLimits.defaults());
+    }
+    
+    public static Parser simple(final ParserLimits limits) {
+        return new Simple(limits);
     }
     
+    /**
+     * @return the default parser. Parsers are stateless and safe to share between threads;
+     * per parse scratch space is thread confined (see {@link Scratch}).
+     */
     public static Parser create() {
         return streamParser(); //default is streamparser
     }
 
+    public static Parser compile(final Schema schema) {
+        return compile(schema, ParserLimits.defaults());
+    }
+
+    public static Parser compile(final Schema schema, final ParserLimits limits) {
+        return compile(schema, limits, Instrumentation.NONE);
+    }
+
+    public static Parser compile(final Schema schema, final ParserLimits limits, final Instrumentation instrumentation) {
+        return new Schema.Compiled(schema, limits, instrumentation);
+    }
+
+    /**
+     * Checks that the stream holds exactly one RFC 8259 JSON text in UTF-8 without building
+     * any value. The stream is read to the end but not closed.
+     * @return number of bytes read, or the first error with its line, column and byte offset.
+     */
+    public static Either<Long, JSONParserException> validate(final InputStream stream) {
+        return validate(stream, ParserLimits.defaults());
+    }
+
+    public static Either<Long, JSONParserException> validate(final InputStream stream, final ParserLimits limits) {
+        return Validator.run(stream, limits);
+    }
+
     final static class Simple implements Parser {
 
+        private final ParserLimits limits;
+
+        Simple(final ParserLimits limits) {
+            this.limits = limits;
+        }
+
         @Override
         public Either<Value, JSONParserException> parse(final String document) {
-            return Parser.ALL.parse(document);
+            if (document != null) {
+                final JSONParserException exceeded = exceeds(document, limits);
+                if (exceeded != null)
+                    return Either.fail(exceeded);
+            }
+            final Either<Value, JSONParserException> result = Parser.ALL.parse(document);
+            final JSONParserException[] failure = {null};
+            result.ifFailure(e -> failure[0] = e);
+            if (failure[0] == null || document == null)
+                return result;
+            return Either.fail(locate(document, failure[0]));
+        }
+
+        /**
+         * the combinators only see fragments of the document, so the position of a failure
+         * is found afterwards by the strict validator. Failures it does not agree with are
+         * left as they are.
+         */
+        private static JSONParserException locate(final String document, final JSONParserException e) {
+            final JSONParserException[] located = {e};
+            Validator.run(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)), ParserLimits.NONE)
+            .ifFailure(v -> {
+                if (v.offset() < 0)
+                    return;
+                int chars = 0;
+                for (long bytes = 0; bytes < v.offset() && chars < document.length(); chars ++) {
+                    final char ch = document.charAt(chars);
+                    bytes += ch < 0x80 ? 1 : ch < 0x800 || Character.isSurrogate(ch) ? 2 : 3;
+                }
+                located[0] = JSONParserException.at(v.reason(), document, chars);
+            });
+            return located[0];
+        }
+
+        /**
+         * String.trim would also strip the control characters JSON does not allow.
+         * @return token without leading and trailing JSON whitespace.
+         */
+        static String trim(final String token) {
+            int from = 0;
+            int to = token.length();
+            while (from < to && whitespace(token.charAt(from)))
+                from ++;
+            while (to > from && whitespace(token.charAt(to - 1)))
+                to --;
+            return token.substring(from, to);
+        }
+
+        private static boolean whitespace(final char ch) {
+            return ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t';
+        }
+
+        /**
+         * one pass over the document before the combinators, which recurse per level and copy
+         * every level's contents, get to see it.
+         * @return the first limit exceeded, or null.
+         */
+        private static JSONParserException exceeds(final String document, final ParserLimits limits) {
+            if (document.length() > limits.maxDocumentSize())
+                return JSONParserException.at("document larger than " + limits.maxDocumentSize() + " characters",
+                    document, (int) limits.maxDocumentSize()).limit();
+            final int maxDepth = limits.maxDepth();
+            boolean[] objects = new boolean[16];
+            int[] keys = new int[16];
+            int depth = 0;
+            int string = -1;
+            boolean escape = false;
+            for (int i = 0; i < document.length(); i++) {
+                final char ch = document.charAt(i);
+                if (string >= 0) {
+                    if (escape)
+                        escape = false;
+                    else if (ch == '\\')
+                        escape = true;
+                    else if (ch == '"')
+                        string = -1;
+                    if (string >= 0 && i - string >= limits.maxStringLength())
+                        return JSONParserException.at("string longer than " + limits.maxStringLength() + " characters", document, i).limit();
+                    continue;
+                }
+                switch (ch) {
+                case '"':
+                    string = i + 1;
+                    break;
+                case '{':
+                case '[':
+                    if (depth == maxDepth)
+                        return JSONParserException.at("nested deeper than " + maxDepth + " levels", document, i).limit();
+                    if (depth == objects.length) {
+                        objects = Arrays.copyOf(objects, depth * 2);
+                        keys = Arrays.copyOf(keys, depth * 2);
+                    }
+                    objects[depth] = ch == '{';
+                    keys[depth ++] = 0;
+                    break;
+                case '}':
+                case ']':
+                    if (depth > 0)
+                        depth --;
+                    break;
+                case ':':
+                    if (depth > 0 && objects[depth - 1] && ++keys[depth - 1] > limits.maxKeys())
+                        return JSONParserException.at("object with more than " + limits.maxKeys() + " keys", document, i).limit();
+                    break;
+                default:
+                }
+            }
+            return null;
         }
     }
 
@@ -100,7 +277,7 @@ public interface Parser {
 
     public static Parser empty(final Parser other) {
         return token -> {
-            if (token == null || token.isEmpty()) {
+            if (token == null || Simple.trim(token).isEmpty()) {
                 return Either.fail(new JSONParserException("empty document"));
             }
             return other.parse(token);
@@ -108,7 +285,96 @@ public interface Parser {
     }
 
     public static Parser trimmed(final Parser other) {
-        return token -> other.parse(token.trim());
+        return token -> other.parse(Simple.trim(token));
+    }
+
+    /**
+     * @return parser returning the shared, previously parsed value for documents seen before.
+     * At most maxEntries documents are kept. They are spread by hash over up to 16 stripes
+     * that share maxEntries between them, and each stripe evicts its own least recently used
+     * document first, so a stripe can evict while others still have room.
+     */
+    public static CachingParser cached(final Parser other, final int maxEntries) {
+        return new CachingParser(other, maxEntries);
+    }
+
+    final static class CachingParser implements Parser {
+
+        private final Parser other;
+
+        private final List<Map<String, Value>> stripes = new ArrayList<>();
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+
+        private final LongAdder evictions = new LongAdder();
+
+        CachingParser(final Parser other, final int maxEntries) {
+            if (maxEntries < 1)
+                throw new IllegalArgumentException("maxEntries must be positive");
+            this.other = other;
+            final int count = Integer.highestOneBit(Math.min(16, maxEntries));
+            for (int i = 0; i < count; i++) {
+                /* the remainder goes one apiece to the first stripes, so the capacities add up to maxEntries. */
+                final int perStripe = maxEntries / count + (i < maxEntries % count ? 1 : 0);
+                stripes.add(new LinkedHashMap<String, Value>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(final Map.Entry<String, Value> eldest) {
+                        if (size() <= perStripe)
+                            return false;
+                        evictions.increment();
+                        return true;
+                    }
+                });
+            }
+        }
+
+        @Override
+        public Either<Value, JSONParserException> parse(final String document) {
+            if (document == null || document.isEmpty())
+                return other.parse(document);
+            final int h = document.hashCode();
+            final Map<String, Value> stripe = stripes.get((h ^ (h >>> 16)) & (stripes.size() - 1));
+            final Value cached;
+            synchronized (stripe) {
+                cached = stripe.get(document);
+            }
+            if (cached != null) {
+                hits.increment();
+                return Either.succ(cached);
+            }
+            misses.increment();
+            return other.parse(document).ifSuccess(value -> {
+                synchronized (stripe) {
+                    stripe.put(document, value);
+                }
+            });
+        }
+
+        public long hits() {
+            return hits.sum();
+        }
+
+        public long misses() {
+            return misses.sum();
+        }
+
+        public long evictions() {
+            return evictions.sum();
+        }
+
+        public int size() {
+            int size = 0;
+            for (final Map<String, Value> stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
     }
 
     final static class NilParser implements Parser {
@@ -152,6 +418,8 @@ public interface Parser {
 
         @Override
         public Either<Value, JSONParserException> parse(String document) {
+            if (!NumberParser.grammar(document))
+                return other.parse(document);
             try {
                 return Either.succ(Value.integer(Long.parseLong(document)));
             } catch (NumberFormatException e) {
@@ -169,12 +437,50 @@ public interface Parser {
 
         @Override
         public Either<Value, JSONParserException> parse(String document) {
+            if (!grammar(document))
+                return other.parse(document);
             try {
                 return Either.succ(Value.number(Double.parseDouble(document)));
             } catch (NumberFormatException e) {
                 return other.parse(document);
             }
         }
+
+        /**
+         * Long and Double also take "+1", "01", ".5", "5.", "NaN", "0x1p3" and type suffixes,
+         * none of which are JSON numbers.
+         * @return true if token is -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?
+         */
+        static boolean grammar(final String token) {
+            final int length = token.length();
+            int i = 0;
+            if (i < length && token.charAt(i) == '-')
+                i ++;
+            if (i == length || !digit(token.charAt(i)))
+                return false;
+            if (token.charAt(i ++) != '0')
+                while (i < length && digit(token.charAt(i)))
+                    i ++;
+            if (i < length && token.charAt(i) == '.') {
+                if (++i == length || !digit(token.charAt(i)))
+                    return false;
+                while (i < length && digit(token.charAt(i)))
+                    i ++;
+            }
+            if (i < length && (token.charAt(i) == 'e' || token.charAt(i) == 'E')) {
+                if (++i < length && (token.charAt(i) == '+' || token.charAt(i) == '-'))
+                    i ++;
+                if (i == length || !digit(token.charAt(i)))
+                    return false;
+                while (i < length && digit(token.charAt(i)))
+                    i ++;
+            }
+            return i == length;
+        }
+
+        private static boolean digit(final char ch) {
+            return ch >= '0' && ch <= '9';
+        }
     }
 
     final static class StringParser implements Parser {
@@ -188,30 +494,95 @@ public interface Parser {
         @Override
         public Either<Value, JSONParserException> parse(final String token) {
             if (token.startsWith("\"")) {
-                final int start = token.indexOf('"');
+                final String value = decode(token);
+                if (value != null)
+                    return Either.succ(Value.string(value));
                 final int end = token.lastIndexOf('"');
-                if (start == 0 && end == token.length() - 1)
-                    return Either.succ(Value.string(token.substring(start, end + 1)));
-                else {
-                    return Either.succ(Value.err(String.format("Parser error at %d\n%s\n%s\n%s",
-                        end + 1, token, dashes(end + 1),
-                        "Expecting 'EOF', '}', ':', ']', got " + token.substring(end + 1))));
-                }
+                return Either.fail(JSONParserException.at(
+                    "Expecting 'EOF', '}', ':', ']', got " + token.substring(end + 1), token, end + 1));
             }
             return other.parse(token);
         }
 
-        private final String dashes(final int pos) {
-            final char dash = '-';
-            final StringBuilder bld = new StringBuilder();
-            for (int i = 0; i < pos; i++) {
-                bld.append(dash);
+        /**
+         * @return contents of token with its escapes decoded, or null unless token is exactly
+         * one string literal.
+         */
+        static String decode(final String token) {
+            if (token.length() < 2 || token.charAt(0) != '"' || token.charAt(token.length() - 1) != '"')
+                return null;
+            final StringBuilder bld = new StringBuilder(token.length());
+            final int end = token.length() - 1;
+            for (int i = 1; i < end; i++) {
+                final char ch = token.charAt(i);
+                if (ch == '"' || ch < 0x20)
+                    return null;
+                if (ch != '\\') {
+                    bld.append(ch);
+                    continue;
+                }
+                if (++i == end)
+                    return null;
+                switch (token.charAt(i)) {
+                case '"': bld.append('"'); break;
+                case '\\': bld.append('\\'); break;
+                case '/': bld.append('/'); break;
+                case 'b': bld.append('\b'); break;
+                case 'f': bld.append('\f'); break;
+                case 'n': bld.append('\n'); break;
+                case 'r': bld.append('\r'); break;
+                case 't': bld.append('\t'); break;
+                case 'u':
+                    if (i + 4 >= end)
+                        return null;
+                    int code = 0;
+                    for (int j = 1; j <= 4; j++) {
+                        final char hex = token.charAt(i + j);
+                        /* Character.digit also takes fullwidth and other non-ASCII digits. */
+                        final int digit = hex < 0x80 ? Character.digit(hex, 16) : -1;
+                        if (digit < 0)
+                            return null;
+                        code = (code << 4) + digit;
+                    }
+                    bld.append((char) code);
+                    i += 4;
+                    break;
+                default:
+                    return null;
+                }
             }
-            bld.append("^");
             return bld.toString();
         }
     }
 
+    /**
+     * @return index of the first stop character in s from from on that is outside strings and
+     * brackets, s.length() if there is none, or -1 if brackets or quotes do not balance.
+     */
+    static int boundary(final String s, final int from, final char stop) {
+        int depth = 0;
+        boolean string = false;
+        for (int i = from; i < s.length(); i++) {
+            final char ch = s.charAt(i);
+            if (string) {
+                if (ch == '\\')
+                    i ++;
+                else if (ch == '"')
+                    string = false;
+            } else if (ch == '"') {
+                string = true;
+            } else if (ch == '[' || ch == '{') {
+                depth ++;
+            } else if (ch == ']' || ch == '}') {
+                if (--depth < 0)
+                    return -1;
+            } else if (ch == stop && depth == 0) {
+                return i;
+            }
+        }
+        return depth == 0 && !string ? s.length() : -1;
+    }
+
     final static class ArrayParser implements Parser {
 
         private final Parser other;
@@ -224,57 +595,25 @@ public interface Parser {
         public Either<Value, JSONParserException> parse(final String token) {
             if (token.charAt(0) == '[' && token.charAt(token.length() - 1) == ']') {
                 final List<Value> values = new ArrayList<>();
+                final JSONParserException[] failure = {null};
                 final String inner = token.substring(1, token.length() - 1);
-                int nb = 0;
-                int nbr = 0;
-                int s = 0;
-                final AtomicBoolean isOpen = new AtomicBoolean(false);
-                int quotes = 0;
-                for (int i = 0; i < inner.length(); i++) {
-                    if (Character.isWhitespace(inner.charAt(i))) {
-                        continue; // skip whitespace.
-                    } else if (inner.charAt(i) == '[') {
-                        nb++;
-                    } else if (inner.charAt(i) == ']') {
-                        nb--;
-                    } else if (inner.charAt(i) == '{') {
-                        nbr++;
-                    } else if (inner.charAt(i) == '}') {
-                        nbr--;
-                    } else if (inner.charAt(i) == ',') {
-                        if (nb == 0 && nbr == 0 && quotes == 0) {
-                            values.add(asValue(inner.substring(s, i)));
-                            s = i + 1;
-                        }
-                    } else if (inner.charAt(i) =='"') {
-                        if (isOpen.compareAndSet(false, true))
-                            quotes++;
-                        else if (isOpen.compareAndSet(true, false))
-                            quotes--;
-                    }
-
-                    if (i == inner.length() - 1) {
-                        if (nbr == 0 && nb == 0 && quotes == 0) {
-                            Parser.ALL.parse(inner.substring(s, i + 1).trim()).ifSuccess(
-                                values::add);
-                        }
-                    }
+                if (Simple.trim(inner).isEmpty())
+                    return Either.succ(new Value.ArrayValue(values));
+                for (int s = 0; failure[0] == null && s <= inner.length(); ) {
+                    final int e = boundary(inner, s, ',');
+                    if (e < 0)
+                        return Either.fail(new JSONParserException("unbalanced brackets"));
+                    Parser.ALL.parse(Simple.trim(inner.substring(s, e))).ifSuccess(values::add)
+                    .ifFailure(f -> failure[0] = f);
+                    s = e + 1;
                 }
-                return Either.succ(Value.arr(values));
+                if (failure[0] != null)
+                    return Either.fail(failure[0]);
+                return Either.succ(new Value.ArrayValue(values));
             }
 
             return other.parse(token);
         }
-
-        private Value asValue(final String value) {
-            final AtomicReference<Value> result = new AtomicReference<>();
-            final AtomicReference<JSONParserException> excep = new AtomicReference<>();
-            Parser.ALL.parse(value).ifSuccess(result::set).ifFailure(excep::set);
-            if (excep.get() != null) {
-                return Value.err(excep.get().getLocalizedMessage());
-            }
-            return result.get();
-        }
     }
 
     final static class JSONParser implements Parser {
@@ -288,58 +627,29 @@ public interface Parser {
         @Override
         public Either<Value, JSONParserException> parse(final String token) {
             if (token.startsWith("{") && token.endsWith("}")) {
-                final Map<Value, Value> map = new HashMap<>();
+                final Value.Shape.Builder map = Value.Shape.builder();
+                final JSONParserException[] failure = {null};
                 final String inner = token.substring(1, token.length() - 1);
-                int nbr = 0;
-                int nb = 0;
-                int vs = 0;
-                int ks = 0;
-                String key = "";
-                final AtomicBoolean isOpen = new AtomicBoolean(false);
-                int quotes = 0;
-                for (int i = 0; i < inner.length(); i++) {
-                    if (Character.isWhitespace(inner.charAt(i))) {
-                        // skip reference
-                    } else if (inner.charAt(i) == '{') {
-                        nbr++;
-                    } else if (inner.charAt(i) == '}') {
-                        nbr--;
-                    } else if (inner.charAt(i) == '[') {
-                        nb++;
-                    } else if (inner.charAt(i) == ']') {
-                        nb--;
-                    } else if (inner.charAt(i) =='"') {
-                        if (isOpen.compareAndSet(false, true))
-                            quotes++;
-                        else if (isOpen.compareAndSet(true, false))
-                            quotes--;
-                    } else if (inner.charAt(i) == ',') {
-                        if (nbr == 0 && nb == 0 && quotes == 0) {
-                            ks = i + 1;
-                            final String _key = key;
-                            Parser.ALL.parse(inner.substring(vs, i).trim()).ifSuccess(
-                                value -> {
-                                    if (!_key.isEmpty()) {
-                                        map.put(Value.string(_key), value);
-                                    }
-                                });
-                            key = "";
-                        }
-                    } else if (inner.charAt(i) == ':') {
-                        if (nbr == 0 && nb == 0 && quotes == 0) {
-                            key = inner.substring(ks, i).trim();
-                            vs = i + 1;
-                        }
-                    }
-                    if (i == inner.length() - 1) {
-                        if (nbr == 0 && nb == 0 && quotes == 0) {
-                            final String _key = key;
-                            Parser.ALL.parse(inner.substring(vs, i + 1).trim()).ifSuccess(
-                                value -> map.put(Value.string(_key), value));
-                        }
-                    }
+                if (Simple.trim(inner).isEmpty())
+                    return Either.succ(map.build());
+                for (int s = 0; failure[0] == null && s <= inner.length(); ) {
+                    final int colon = boundary(inner, s, ':');
+                    final int e = colon < 0 ? -1 : boundary(inner, colon + 1, ',');
+                    if (e < 0)
+                        return Either.fail(new JSONParserException("unbalanced brackets"));
+                    if (colon == inner.length())
+                        return Either.fail(new JSONParserException("':' expected"));
+                    final String key = StringParser.decode(Simple.trim(inner.substring(s, colon)));
+                    if (key == null)
+                        return Either.fail(new JSONParserException("key cannot be non string type."));
+                    Parser.ALL.parse(Simple.trim(inner.substring(colon + 1, e)))
+                    .ifSuccess(value -> map.put(Value.string(key), value))
+                    .ifFailure(f -> failure[0] = f);
+                    s = e + 1;
                 }
-                return Either.succ(Value.json(map));
+                if (failure[0] != null)
+                    return Either.fail(failure[0]);
+                return Either.succ(map.build());
             }
             return other.parse(token);
         }
@@ -350,6 +660,11 @@ public interface Parser {
         void code();
     }
 
+    /**
+     * Values compare structurally: objects by their members in any order, arrays element by
+     * element and numbers by value (1 equals 1.0). Container hashes are computed on first use
+     * and cached, so values can serve as keys of hash based collections.
+     */
     interface Value {
         default Value isString(final Consumer<String> action) {
             return this;
@@ -391,6 +706,35 @@ public interface Parser {
             return this;
         }
 
+        /**
+         * @return copy of this object with key bound to value. Values are immutable; the copy
+         * shares all untouched entries with this one. Non objects are returned as is.
+         */
+        default Value with(final Value key, final Value value) {
+            return this;
+        }
+
+        /**
+         * @return copy of this object without key. Non objects are returned as is.
+         */
+        default Value without(final Value key) {
+            return this;
+        }
+
+        /**
+         * @return copy of this array with value appended. Non arrays are returned as is.
+         */
+        default Value append(final Value value) {
+            return this;
+        }
+
+        /**
+         * @return copy of this array with the element at index replaced. Non arrays are returned as is.
+         */
+        default Value withAt(final int index, final Value value) {
+            return this;
+        }
+
         public static Value nil() {
             return new NilValue();
         }
@@ -415,12 +759,36 @@ public interface Parser {
             return new ErrorValue(value);
         }
 
+        /**
+         * @return array of a copy of values, so that later changes to the list do not show.
+         */
         public static Value arr(final List<Value> values) {
-            return new ArrayValue(values);
+            return new ArrayValue(new ArrayList<>(values));
         }
 
+        /**
+         * @return object of a copy of values, so that later changes to the map do not show.
+         */
         public static Value json(final Map<Value, Value> values) {
-            return new JSONValue(values);
+            return new JSONValue(new LinkedHashMap<>(values));
+        }
+
+        public static Value json(final Shape shape, final Value[] slots) {
+            return new ShapedJSONValue(shape, slots);
+        }
+
+        /**
+         * @return empty object to be grown with {@link #with(Value, Value)}.
+         */
+        public static Value json() {
+            return PersistentJSONValue.EMPTY;
+        }
+
+        /**
+         * @return empty array to be grown with {@link #append(Value)}.
+         */
+        public static Value arr() {
+            return PersistentArrayValue.EMPTY;
         }
 
         final static class IntValue implements Value {
@@ -430,11 +798,30 @@ public interface Parser {
                 this.value = value;
             }
 
+            long value() {
+                return value;
+            }
+
             @Override
             public Value isInteger(final Consumer<Long> action) {
                 action.accept(value);
                 return this;
             }
+
+            @Override
+            public int hashCode() {
+                return Long.hashCode(value);
+            }
+
+            /**
+             * integers equal doubles of the same integral value, e.g. 1 and 1.0.
+             */
+            @Override
+            public boolean equals(final Object other) {
+                if (other instanceof IntValue)
+                    return ((IntValue) other).value == value;
+                return other instanceof DoubleValue && other.equals(this);
+            }
         }
 
         final static class DoubleValue implements Value {
@@ -444,24 +831,52 @@ public interface Parser {
                 this.value = value;
             }
 
+            double value() {
+                return value;
+            }
+
             @Override
             public Value isDouble(final Consumer<Double> action) {
                 action.accept(value);
                 return this;
             }
+
+            private boolean isIntegral() {
+                return value >= -0x1p63 && value < 0x1p63 && (long) value == value;
+            }
+
+            @Override
+            public int hashCode() {
+                return isIntegral() ? Long.hashCode((long) value) : Double.hashCode(value);
+            }
+
+            @Override
+            public boolean equals(final Object other) {
+                if (other instanceof DoubleValue) {
+                    final double that = ((DoubleValue) other).value;
+                    return that == value || Double.compare(that, value) == 0;
+                }
+                return other instanceof IntValue && isIntegral() && (long) value == ((IntValue) other).value;
+            }
         }
 
         final static class JSONValue implements Value {
 
             private final Map<Value, Value> map;
 
+            private int hash;
+
             JSONValue(final Map<Value, Value> map) {
                 this.map = map;
             }
 
+            int size() {
+                return map.size();
+            }
+
             @Override
             public Value isJSON(final BiConsumer<Value, Value> action) {
-                map.entrySet().forEach(e -> action.accept(e.getKey(), e.getValue()));
+                map.forEach(action);
                 return this;
             }
             
@@ -471,15 +886,462 @@ public interface Parser {
                     action.accept(map.get(key));
                 return this;
             }
+
+            @Override
+            public Value with(final Value key, final Value value) {
+                return PersistentJSONValue.over(this, map.size()).with(key, value);
+            }
+
+            @Override
+            public Value without(final Value key) {
+                return map.containsKey(key) ? PersistentJSONValue.over(this, map.size()).without(key) : this;
+            }
+
+            @Override
+            public int hashCode() {
+                int h = hash;
+                if (h == 0)
+                    hash = h = Values.hashObject(this);
+                return h;
+            }
+
+            @Override
+            public boolean equals(final Object other) {
+                return Values.equalObjects(this, other);
+            }
+        }
+
+        /**
+         * Objects with the same ordered key set share one Shape (hidden class). The shape holds
+         * the keys and an open addressed index over them, so each object only carries its slots.
+         * Shapes are reached through a transition tree rooted at {@link #ROOT}. A shape keeps its
+         * parent alive while parents hold their transitions weakly, so a layout lasts as long as
+         * some object uses it; documents with many one off layouts leave nothing behind. Objects
+         * with more than {@value #MAX_KEYS} keys or a non string key fall back to the map backed
+         * {@link JSONValue}.
+         */
+        final static class Shape {
+
+            private static final int MAX_KEYS = 64;
+
+            /* transitions to collected shapes, to be removed from their parents. */
+            private static final ReferenceQueue<Shape> COLLECTED = new ReferenceQueue<>();
+
+            static final Shape ROOT = new Shape(null, new Value[0]);
+
+            /* only there to keep the path from the root alive. */
+            @SuppressWarnings("unused")
+            private final Shape parent;
+
+            private final Value[] keys;
+
+            private final int[] index;
+
+            private final ConcurrentHashMap<Value, Transition> transitions = new ConcurrentHashMap<>();
+
+            private volatile int[] sorted;
+
+            private Shape(final Shape parent, final Value[] keys) {
+                this.parent = parent;
+                this.keys = keys;
+                int capacity = 2;
+                while (capacity < keys.length * 2)
+                    capacity <<= 1;
+                this.index = new int[capacity];
+                for (int i = 0; i < keys.length; i++) {
+                    int pos = spread(keys[i].hashCode()) & (capacity - 1);
+                    while (index[pos] != 0)
+                        pos = (pos + 1) & (capacity - 1);
+                    index[pos] = i + 1;
+                }
+            }
+
+            private static int spread(final int h) {
+                return h ^ (h >>> 16);
+            }
+
+            int size() {
+                return keys.length;
+            }
+
+            Value key(final int i) {
+                return keys[i];
+            }
+
+            /**
+             * @return slot indices ordered by key, as UTF-16 code units; computed once per shape.
+             */
+            int[] sorted() {
+                int[] order = sorted;
+                if (order == null) {
+                    final Integer[] boxed = new Integer[keys.length];
+                    for (int i = 0; i < boxed.length; i++)
+                        boxed[i] = i;
+                    Arrays.sort(boxed, (a, b) -> ((StringValue) keys[a]).value().compareTo(((StringValue) keys[b]).value()));
+                    order = new int[boxed.length];
+                    for (int i = 0; i < boxed.length; i++)
+                        order[i] = boxed[i];
+                    sorted = order;
+                }
+                return order;
+            }
+
+            int indexOf(final Value key) {
+                if (key == null)
+                    return -1;
+                int pos = spread(key.hashCode()) & (index.length - 1);
+                int slot;
+                while ((slot = index[pos]) != 0) {
+                    if (keys[slot - 1].equals(key))
+                        return slot - 1;
+                    pos = (pos + 1) & (index.length - 1);
+                }
+                return -1;
+            }
+
+            /**
+             * @return shape with key appended or null when the object has to stay a dictionary.
+             */
+            Shape with(final Value key) {
+                if (!(key instanceof StringValue) || keys.length >= MAX_KEYS)
+                    return null;
+                final Transition known = transitions.get(key);
+                final Shape next = known == null ? null : known.get();
+                if (next != null)
+                    return next;
+                purge();
+                /* held here until returned, the map only refers to it weakly. */
+                final Shape[] created = {null};
+                transitions.compute(key, (k, current) -> {
+                    created[0] = current == null ? null : current.get();
+                    if (created[0] != null)
+                        return current;
+                    final Value[] grown = Arrays.copyOf(keys, keys.length + 1);
+                    grown[keys.length] = k;
+                    created[0] = new Shape(this, grown);
+                    return new Transition(this, k, created[0]);
+                });
+                return created[0];
+            }
+
+            private static void purge() {
+                for (Reference<? extends Shape> ref; (ref = COLLECTED.poll()) != null; ) {
+                    final Transition transition = (Transition) ref;
+                    transition.from.transitions.remove(transition.key, transition);
+                }
+            }
+
+            final static class Transition extends WeakReference<Shape> {
+
+                private final Shape from;
+
+                private final Value key;
+
+                Transition(final Shape from, final Value key, final Shape to) {
+                    super(to, COLLECTED);
+                    this.from = from;
+                    this.key = key;
+                }
+            }
+
+            static Builder builder() {
+                return new Builder();
+            }
+
+            final static class Builder {
+
+                private Shape shape = ROOT;
+
+                private Value[] slots = new Value[8];
+
+                private Map<Value, Value> dictionary;
+
+                Builder put(final Value key, final Value value) {
+                    if (key == null && value == null)
+                        return this; // empty object
+                    if (dictionary != null) {
+                        dictionary.put(key, value);
+                        return this;
+                    }
+                    final int i = shape.indexOf(key);
+                    if (i >= 0) {
+                        slots[i] = value;
+                        return this;
+                    }
+                    final Shape next = shape.with(key);
+                    if (next == null) {
+                        dictionary = new Dictionary();
+                        for (int j = 0; j < shape.size(); j++)
+                            dictionary.put(shape.key(j), slots[j]);
+                        dictionary.put(key, value);
+                        return this;
+                    }
+                    if (shape.size() == slots.length)
+                        slots = Arrays.copyOf(slots, slots.length * 2);
+                    slots[shape.size()] = value;
+                    shape = next;
+                    return this;
+                }
+
+                Value build() {
+                    if (dictionary != null)
+                        return new JSONValue(dictionary);
+                    return Value.json(shape, Arrays.copyOf(slots, shape.size()));
+                }
+            }
+        }
+
+        final static class ShapedJSONValue implements Value {
+
+            private final Shape shape;
+
+            private final Value[] slots;
+
+            private int hash;
+
+            ShapedJSONValue(final Shape shape, final Value[] slots) {
+                this.shape = shape;
+                this.slots = slots;
+            }
+
+            Shape shape() {
+                return shape;
+            }
+
+            int size() {
+                return slots.length;
+            }
+
+            Value slot(final int i) {
+                return slots[i];
+            }
+
+            @Override
+            public Value isJSON(final BiConsumer<Value, Value> action) {
+                for (int i = 0; i < slots.length; i++)
+                    action.accept(shape.key(i), slots[i]);
+                return this;
+            }
+
+            @Override
+            public Value isJSONKey(final Value key, final Consumer<Value> action) {
+                final int i = shape.indexOf(key);
+                if (i >= 0)
+                    action.accept(slots[i]);
+                return this;
+            }
+
+            /**
+             * stays shaped while the key fits the shape or one of its transitions; the slots
+             * are copied, at most {@value Shape#MAX_KEYS} of them.
+             */
+            @Override
+            public Value with(final Value key, final Value value) {
+                final int i = shape.indexOf(key);
+                if (i >= 0) {
+                    final Value[] copy = slots.clone();
+                    copy[i] = value;
+                    return new ShapedJSONValue(shape, copy);
+                }
+                final Shape next = key == null ? null : shape.with(key);
+                if (next == null)
+                    return key == null ? this : PersistentJSONValue.over(this, slots.length).with(key, value);
+                final Value[] copy = Arrays.copyOf(slots, slots.length + 1);
+                copy[slots.length] = value;
+                return new ShapedJSONValue(next, copy);
+            }
+
+            @Override
+            public Value without(final Value key) {
+                return shape.indexOf(key) < 0 ? this : PersistentJSONValue.over(this, slots.length).without(key);
+            }
+
+            @Override
+            public int hashCode() {
+                int h = hash;
+                if (h == 0)
+                    hash = h = Values.hashObject(this);
+                return h;
+            }
+
+            @Override
+            public boolean equals(final Object other) {
+                if (other instanceof ShapedJSONValue && ((ShapedJSONValue) other).shape == shape)
+                    return other == this || Arrays.equals(slots, ((ShapedJSONValue) other).slots);
+                return Values.equalObjects(this, other);
+            }
+        }
+
+        /**
+         * Object built through {@link #with(Value, Value)}. A hash trie maps each key to its
+         * position in a vector of entries, which keeps insertion order. Removed entries leave a
+         * hole that is compacted once holes outnumber live entries.
+         * <p>
+         * Updating a parsed object does not copy it: the object stays underneath as the base,
+         * the members changed or removed since are kept in a second trie and new keys follow
+         * the base in the vector, so the first update costs what later ones do. The base is
+         * folded into the trie once there are more changes than live base members.
+         */
+        final static class PersistentJSONValue implements Value {
+
+            static final PersistentJSONValue EMPTY =
+                new PersistentJSONValue(Persistent.HashTrie.empty(), Persistent.Vector.empty(), null, 0,
+                    Persistent.HashTrie.empty());
+
+            /* change of a base member that was removed. */
+            private static final Value[] REMOVED = {};
+
+            private final Persistent.HashTrie<Value, Integer> index;
+
+            private final Persistent.Vector<Value[]> entries;
+
+            /* parsed object underneath, or null. */
+            private final Value base;
+
+            /* members of the base not removed. */
+            private final int live;
+
+            /* base member to {new value} or REMOVED. */
+            private final Persistent.HashTrie<Value, Value[]> changed;
+
+            private int hash;
+
+            private PersistentJSONValue(final Persistent.HashTrie<Value, Integer> index,
+                final Persistent.Vector<Value[]> entries, final Value base, final int live,
+                final Persistent.HashTrie<Value, Value[]> changed) {
+                this.index = index;
+                this.entries = entries;
+                this.base = base;
+                this.live = live;
+                this.changed = changed;
+            }
+
+            /**
+             * @return object over a parsed one of the given size, which is not copied.
+             */
+            static PersistentJSONValue over(final Value base, final int size) {
+                return new PersistentJSONValue(EMPTY.index, EMPTY.entries, base, size, EMPTY.changed);
+            }
+
+            static PersistentJSONValue of(final Value value) {
+                final Value[] copy = {EMPTY};
+                value.isJSON((k, v) -> {
+                    if (k != null)
+                        copy[0] = copy[0].with(k, v);
+                });
+                return (PersistentJSONValue) copy[0];
+            }
+
+            int size() {
+                return live + index.size();
+            }
+
+            @Override
+            public Value isJSON(final BiConsumer<Value, Value> action) {
+                if (base != null) {
+                    base.isJSON((k, v) -> {
+                        final Value[] change = changed.size() == 0 ? null : changed.get(k);
+                        if (change == null)
+                            action.accept(k, v);
+                        else if (change != REMOVED)
+                            action.accept(k, change[0]);
+                    });
+                }
+                entries.forEach(e -> {
+                    if (e != null)
+                        action.accept(e[0], e[1]);
+                });
+                return this;
+            }
+
+            @Override
+            public Value isJSONKey(final Value key, final Consumer<Value> action) {
+                if (key == null)
+                    return this;
+                final Value[] member = inBase(key);
+                if (member != null && member != REMOVED) {
+                    action.accept(member[0]);
+                    return this;
+                }
+                final Integer i = index.get(key);
+                if (i != null)
+                    action.accept(entries.get(i)[1]);
+                return this;
+            }
+
+            /**
+             * @return {value} of a base member, REMOVED or null if the base never had the key.
+             */
+            private Value[] inBase(final Value key) {
+                if (base == null)
+                    return null;
+                final Value[] change = changed.get(key);
+                if (change != null)
+                    return change;
+                final Value value = Values.member(base, key);
+                return value == null ? null : new Value[] {value};
+            }
+
+            @Override
+            public Value with(final Value key, final Value value) {
+                if (key == null)
+                    return this;
+                final Value[] member = inBase(key);
+                if (member != null && member != REMOVED)
+                    return new PersistentJSONValue(index, entries, base, live, changed.put(key, new Value[] {value}));
+                final Value[] entry = {key, value};
+                final Integer i = index.get(key);
+                if (i != null)
+                    return new PersistentJSONValue(index, entries.set(i, entry), base, live, changed);
+                return new PersistentJSONValue(index.put(key, entries.size()), entries.append(entry), base, live, changed);
+            }
+
+            @Override
+            public Value without(final Value key) {
+                if (key == null)
+                    return this;
+                final Value[] member = inBase(key);
+                if (member != null && member != REMOVED) {
+                    final PersistentJSONValue removed =
+                        new PersistentJSONValue(index, entries, base, live - 1, changed.put(key, REMOVED));
+                    return removed.changed.size() > 32 && removed.changed.size() > removed.live ? of(removed) : removed;
+                }
+                final Integer i = index.get(key);
+                if (i == null)
+                    return this;
+                final PersistentJSONValue removed =
+                    new PersistentJSONValue(index.remove(key), entries.set(i, null), base, live, changed);
+                final int holes = removed.entries.size() - removed.index.size();
+                return holes > 32 && holes > removed.index.size() ? of(removed) : removed;
+            }
+
+            @Override
+            public int hashCode() {
+                int h = hash;
+                if (h == 0)
+                    hash = h = Values.hashObject(this);
+                return h;
+            }
+
+            @Override
+            public boolean equals(final Object other) {
+                return Values.equalObjects(this, other);
+            }
         }
 
         final static class ArrayValue implements Value {
             private final List<Value> values;
 
+            private int hash;
+
             ArrayValue(final List<Value> values) {
                 this.values = values;
             }
 
+            int size() {
+                return values.size();
+            }
+
             @Override
             public Value isArray(final Consumer<Value> action) {
                 values.forEach(action);
@@ -493,6 +1355,87 @@ public interface Parser {
                 action.accept(values.get(index));
                 return this;
             }
+
+            @Override
+            public Value append(final Value value) {
+                return PersistentArrayValue.of(this).append(value);
+            }
+
+            @Override
+            public Value withAt(final int index, final Value value) {
+                return PersistentArrayValue.of(this).withAt(index, value);
+            }
+
+            @Override
+            public int hashCode() {
+                int h = hash;
+                if (h == 0)
+                    hash = h = Values.hashArray(this);
+                return h;
+            }
+
+            @Override
+            public boolean equals(final Object other) {
+                return Values.equalArrays(this, other);
+            }
+        }
+
+        final static class PersistentArrayValue implements Value {
+
+            static final PersistentArrayValue EMPTY = new PersistentArrayValue(Persistent.Vector.empty());
+
+            private final Persistent.Vector<Value> values;
+
+            private int hash;
+
+            private PersistentArrayValue(final Persistent.Vector<Value> values) {
+                this.values = values;
+            }
+
+            static PersistentArrayValue of(final Value value) {
+                final Value[] copy = {EMPTY};
+                value.isArray(v -> copy[0] = copy[0].append(v));
+                return (PersistentArrayValue) copy[0];
+            }
+
+            int size() {
+                return values.size();
+            }
+
+            @Override
+            public Value isArray(final Consumer<Value> action) {
+                values.forEach(action);
+                return this;
+            }
+
+            @Override
+            public Value isArrayAt(final int index, final Consumer<Value> action) {
+                action.accept(values.get(index));
+                return this;
+            }
+
+            @Override
+            public Value append(final Value value) {
+                return new PersistentArrayValue(values.append(value));
+            }
+
+            @Override
+            public Value withAt(final int index, final Value value) {
+                return new PersistentArrayValue(values.set(index, value));
+            }
+
+            @Override
+            public int hashCode() {
+                int h = hash;
+                if (h == 0)
+                    hash = h = Values.hashArray(this);
+                return h;
+            }
+
+            @Override
+            public boolean equals(final Object other) {
+                return Values.equalArrays(this, other);
+            }
         }
 
         final static class NilValue implements Value {
@@ -501,6 +1444,16 @@ public interface Parser {
                 action.code();
                 return this;
             }
+
+            @Override
+            public int hashCode() {
+                return 0;
+            }
+
+            @Override
+            public boolean equals(final Object other) {
+                return other instanceof NilValue;
+            }
         }
 
         final static class BoolValue implements Value {
@@ -510,27 +1463,56 @@ public interface Parser {
                 this.value = value;
             }
 
+            boolean value() {
+                return value;
+            }
+
             @Override
             public Value isBool(final Consumer<Boolean> action) {
                 action.accept(value);
                 return this;
             }
+
+            @Override
+            public int hashCode() {
+                return Boolean.hashCode(value);
+            }
+
+            @Override
+            public boolean equals(final Object other) {
+                return other instanceof BoolValue && ((BoolValue) other).value == value;
+            }
         }
 
-        final static class StringValue implements Value {
+        final static class StringValue implements Value, Comparable<StringValue> {
             private final String value;
 
+            private int keyHash;
+
             StringValue(final String value) {
-                this.value = withoutQuotes(value);
+                this.value = value;
             }
 
-            private String withoutQuotes(final String value) {
-                if (value.startsWith("\"") && value.endsWith("\"")) {
-                    return value.substring(1, value.length() - 1);
-                }
+            String value() {
                 return value;
             }
 
+            /**
+             * @return seeded hash used where this is an object key, see {@link Dictionary}.
+             */
+            int keyHash() {
+                int h = keyHash;
+                if (h == 0)
+                    keyHash = h = Dictionary.hash(value);
+                return h;
+            }
+
+            /* lets hash maps keep colliding keys in a tree, see HashMap. */
+            @Override
+            public int compareTo(final StringValue other) {
+                return value.compareTo(other.value);
+            }
+
             @Override
             public Value isString(final Consumer<String> action) {
                 action.accept(value);
@@ -567,9 +1549,25 @@ public interface Parser {
                 action.accept(msg);
                 return this;
             }
+
+            @Override
+            public int hashCode() {
+                return msg.hashCode();
+            }
+
+            @Override
+            public boolean equals(final Object other) {
+                return other instanceof ErrorValue && ((ErrorValue) other).msg.equals(msg);
+            }
         }
     }
 
+    /**
+     * Failure to parse. Parse errors carry the position of the offending input: offset,
+     * line and column count characters for string input and bytes for streams (all from
+     * the start of the document, line and column from 1), with a short excerpt of the
+     * surrounding line as context. Positions are -1 when unknown, e.g. for I/O errors.
+     */
     final static class JSONParserException extends Exception {
 
         /**
@@ -577,12 +1575,135 @@ public interface Parser {
          */
         private static final long serialVersionUID = 1L;
 
+        private static final int CONTEXT = 32;
+
+        private final long offset;
+
+        private final long line;
+
+        private final long column;
+
+        private final String context;
+
+        private final String reason;
+
+        private Kind kind;
+
+        /**
+         * what went wrong, for telling bad input from hostile input and broken streams.
+         */
+        public enum Kind {
+            /* malformed document. */
+            SYNTAX,
+            /* document beyond its ParserLimits. */
+            LIMIT,
+            /* the stream or channel failed. */
+            IO
+        }
+
         JSONParserException(final Throwable e) {
             super(e);
+            this.offset = this.line = this.column = -1;
+            this.context = "";
+            this.reason = getMessage();
+            this.kind = e instanceof IOException ? Kind.IO : Kind.SYNTAX;
         }
 
         JSONParserException(final String msg) {
             super(msg);
+            this.offset = this.line = this.column = -1;
+            this.context = "";
+            this.reason = msg;
+            this.kind = Kind.SYNTAX;
+        }
+
+        JSONParserException(final String msg, final long offset, final long line, final long column, final String context) {
+            super(msg + " at line " + line + ", column " + column + " (offset " + offset + ")");
+            this.reason = msg;
+            this.offset = offset;
+            this.line = line;
+            this.column = column;
+            this.context = context;
+            this.kind = Kind.SYNTAX;
+        }
+
+        /**
+         * marks this as a limit failure, before it is thrown.
+         */
+        JSONParserException limit() {
+            this.kind = Kind.LIMIT;
+            return this;
+        }
+
+        /**
+         * failure at offset in document; line and column are counted only now.
+         */
+        static JSONParserException at(final String msg, final CharSequence document, final int offset) {
+            long line = 1;
+            int lineStart = 0;
+            for (int i = 0; i < offset; i++) {
+                if (document.charAt(i) == '\n') {
+                    line ++;
+                    lineStart = i + 1;
+                }
+            }
+            return new JSONParserException(msg, offset, line, offset - lineStart + 1, context(document, offset));
+        }
+
+        /**
+         * @return up to 32 characters either side of at, without crossing a line break.
+         */
+        static String context(final CharSequence window, final int at) {
+            int from = Math.min(at, window.length());
+            while (from > 0 && at - from < CONTEXT && window.charAt(from - 1) != '\n')
+                from --;
+            int to = from;
+            while (to < window.length() && to - at < CONTEXT && window.charAt(to) != '\n')
+                to ++;
+            return window.subSequence(from, to).toString().replace('\r', ' ').replace('\t', ' ');
+        }
+
+        /**
+         * @return context around byte at of buf, decoded as UTF-8.
+         */
+        static String context(final byte[] buf, final int limit, final int at) {
+            final int from = Math.max(0, at - 2 * CONTEXT);
+            final int to = Math.max(at, Math.min(limit, at + 2 * CONTEXT));
+            final String before = new String(buf, from, at - from, StandardCharsets.UTF_8);
+            return context(before + new String(buf, at, to - at, StandardCharsets.UTF_8), before.length());
+        }
+
+        /**
+         * @return the failure without its position.
+         */
+        public String reason() {
+            return reason;
+        }
+
+        public Kind kind() {
+            return kind;
+        }
+
+        /**
+         * @return offset of the failure from the start of the document, -1 if unknown.
+         */
+        public long offset() {
+            return offset;
+        }
+
+        public long line() {
+            return line;
+        }
+
+        public long column() {
+            return column;
+        }
+
+        /**
+         * @return excerpt of the line around the failure, empty if unknown.
+         */
+        public String context() {
+            return context;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package io.github.senthilganeshs.parser.json;
+
+/**
+ * Bounds on untrusted input, checked by the scanning loops as they go so that the work and
+ * memory spent on a document stay proportional to the limits rather than to its size.
+ * Sizes and lengths count characters for string input and bytes for streams. Exceeding a
+ * limit fails the parse with the position of the first character past it.
+ *
+ * <pre>
+ * Parser.streamParser(ParserLimits.defaults()
+ *     .maxDocumentSize(1 &lt;&lt; 20)
+ *     .maxKeys(1000))
+ * </pre>
+ *
+ * Instances are immutable; each setter returns a copy.
+ */
+public final class ParserLimits {
+
+    static final ParserLimits NONE = new ParserLimits(Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private static final ParserLimits DEFAULTS = new ParserLimits(1000, Long.MAX_VALUE, 20_000_000, Integer.MAX_VALUE);
+
+    private final int maxDepth;
+
+    private final long maxDocumentSize;
+
+    private final int maxStringLength;
+
+    private final int maxKeys;
+
+    private ParserLimits(final int maxDepth, final long maxDocumentSize, final int maxStringLength, final int maxKeys) {
+        this.maxDepth = maxDepth;
+        this.maxDocumentSize = maxDocumentSize;
+        this.maxStringLength = maxStringLength;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * @return limits of the default parsers: 1000 levels of nesting and strings of up to
+     * 20 million characters, documents of any size and objects with any number of keys.
+     */
+    public static ParserLimits defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return no limits at all, for trusted input only.
+     */
+    public static ParserLimits unlimited() {
+        return NONE;
+    }
+
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    public long maxDocumentSize() {
+        return maxDocumentSize;
+    }
+
+    public int maxStringLength() {
+        return maxStringLength;
+    }
+
+    /**
+     * @return maximum number of members in one object.
+     */
+    public int maxKeys() {
+        return maxKeys;
+    }
+
+    public ParserLimits maxDepth(final int maxDepth) {
+        return new ParserLimits(positive(maxDepth), maxDocumentSize, maxStringLength, maxKeys);
+    }
+
+    public ParserLimits maxDocumentSize(final long maxDocumentSize) {
+        return new ParserLimits(maxDepth, positive(maxDocumentSize), maxStringLength, maxKeys);
+    }
+
+    public ParserLimits maxStringLength(final int maxStringLength) {
+        return new ParserLimits(maxDepth, maxDocumentSize, positive(maxStringLength), maxKeys);
+    }
+
+    public ParserLimits maxKeys(final int maxKeys) {
+        return new ParserLimits(maxDepth, maxDocumentSize, maxStringLength, positive(maxKeys));
+    }
+
+    private static int positive(final int limit) {
+        return (int) positive((long) limit);
+    }
+
+    private static long positive(final long limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("limits must be positive");
+        return limit;
+    }
+}
@@ -0,0 +1,810 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+import io.github.senthilganeshs.parser.json.StreamParser.ByteReader;
+
+/**
+ * RFC 6902 JSON Patch and RFC 7386 JSON Merge Patch.
+ *
+ * <p>A patch is applied either to a {@link Value} tree, returning a new tree that shares all
+ * untouched values with the original, or to a stream: the input is copied byte for byte to the
+ * output and only the smallest subtrees touched by an operation are parsed and regenerated.
+ * A merge patch never parses the input at all. When a stream patch fails, the output written so
+ * far is incomplete.
+ *
+ * <pre>
+ * Parser.create().parse("[{\"op\":\"remove\",\"path\":\"/draft\"}]")
+ * .ifSuccess(ops -&gt; Patch.json(ops).apply(in, out));
+ * </pre>
+ */
+public interface Patch {
+
+    Either<Value, JSONParserException> apply(final Value document);
+
+    /**
+     * @return number of bytes written.
+     */
+    Either<Long, JSONParserException> apply(final InputStream in, final OutputStream out);
+
+    /**
+     * @return RFC 6902 patch built from an array of operations.
+     */
+    public static Patch json(final Value operations) {
+        try {
+            return new JSONPatch(JSONPatch.operations(operations));
+        } catch (final JSONParserException e) {
+            return new Invalid(e);
+        }
+    }
+
+    /**
+     * @return RFC 7386 merge patch.
+     */
+    public static Patch merge(final Value patch) {
+        return new MergePatch(patch);
+    }
+
+    /**
+     * @return JSON Patch turning source into target, computed by walking both documents in
+     * lockstep. Only values that differ, or object members that appear in a different order,
+     * are buffered. Array elements are compared by position.
+     */
+    public static Either<Value, JSONParserException> diff(final InputStream source, final InputStream target) {
+        return Diff.of(source, target);
+    }
+
+    /**
+     * @return JSON Patch turning source into target.
+     */
+    public static Value diff(final Value source, final Value target) {
+        final Diff.Ops ops = new Diff.Ops();
+        Diff.diff(new ArrayList<>(), source, target, ops);
+        return ops.value;
+    }
+
+    final static class Invalid implements Patch {
+
+        private final JSONParserException error;
+
+        Invalid(final JSONParserException error) {
+            this.error = error;
+        }
+
+        @Override
+        public Either<Value, JSONParserException> apply(final Value document) {
+            return Either.fail(error);
+        }
+
+        @Override
+        public Either<Long, JSONParserException> apply(final InputStream in, final OutputStream out) {
+            return Either.fail(error);
+        }
+    }
+
+    final static class Operation {
+
+        final String op;
+
+        final List<String> path;
+
+        final List<String> from;
+
+        final Value value;
+
+        Operation(final String op, final List<String> path, final List<String> from, final Value value) {
+            this.op = op;
+            this.path = path;
+            this.from = from;
+            this.value = value;
+        }
+
+        Operation relativeTo(final int depth) {
+            return depth == 0 ? this : new Operation(op,
+                path.subList(depth, path.size()),
+                from == null ? null : from.subList(depth, from.size()),
+                value);
+        }
+
+        /**
+         * @return document after the operation, null when the document itself was removed.
+         */
+        Value apply(final Value document) throws JSONParserException {
+            switch (op) {
+            case "add":
+                return Tree.add(document, path, value);
+            case "remove":
+                Tree.require(document, path);
+                return Tree.remove(document, path);
+            case "replace":
+                Tree.require(document, path);
+                return Tree.replace(document, path, value);
+            case "move":
+                if (path.size() > from.size() && path.subList(0, from.size()).equals(from))
+                    throw new JSONParserException("cannot move " + Tree.pointer(from) + " into itself");
+                final Value moved = Tree.require(document, from);
+                return Tree.add(Tree.remove(document, from), path, moved);
+            case "copy":
+                return Tree.add(document, path, Tree.require(document, from));
+            case "test":
+                if (!Tree.require(document, path).equals(value))
+                    throw new JSONParserException("test failed at " + Tree.pointer(path));
+                return document;
+            default:
+                throw new JSONParserException("unknown operation " + op);
+            }
+        }
+
+        /**
+         * @return path of the smallest subtree this operation reads and writes. Array indices
+         * shift their siblings, so edits of array elements are scoped to the array.
+         */
+        List<String> scope() {
+            switch (op) {
+            case "add":
+            case "remove":
+                return member(path);
+            case "move":
+                return Tree.common(member(path), member(from));
+            case "copy":
+                return Tree.common(member(path), from);
+            default:
+                return path;
+            }
+        }
+
+        private static List<String> member(final List<String> path) {
+            if (path.isEmpty() || !Tree.isIndex(path.get(path.size() - 1)))
+                return path;
+            return path.subList(0, path.size() - 1);
+        }
+    }
+
+    final static class JSONPatch implements Patch {
+
+        private final List<Operation> operations;
+
+        private final Scope root = new Scope(0);
+
+        JSONPatch(final List<Operation> operations) {
+            this.operations = operations;
+            for (final Operation op : operations)
+                root.add(op.scope(), op);
+        }
+
+        static List<Operation> operations(final Value array) throws JSONParserException {
+            if (!Values.isArray(array))
+                throw new JSONParserException("patch must be an array of operations");
+            final List<Operation> ops = new ArrayList<>();
+            final List<Value> elements = new ArrayList<>();
+            array.isArray(elements::add);
+            for (final Value element : elements) {
+                final String op = Tree.string(element, "op");
+                final String path = Tree.string(element, "path");
+                if (op == null || path == null)
+                    throw new JSONParserException("operation requires 'op' and 'path'");
+                final String from = Tree.string(element, "from");
+                final Value value = Tree.child(element, "value");
+                if ((op.equals("move") || op.equals("copy")) && from == null)
+                    throw new JSONParserException(op + " requires 'from'");
+                if ((op.equals("add") || op.equals("replace") || op.equals("test")) && value == null)
+                    throw new JSONParserException(op + " requires 'value'");
+                ops.add(new Operation(op, Tree.path(path), from == null ? null : Tree.path(from), value));
+            }
+            return ops;
+        }
+
+        @Override
+        public Either<Value, JSONParserException> apply(final Value document) {
+            try {
+                Value result = document;
+                for (final Operation op : operations)
+                    result = op.apply(result);
+                if (result == null)
+                    return Either.fail(new JSONParserException("cannot remove the document"));
+                return Either.succ(result);
+            } catch (final JSONParserException e) {
+                return Either.fail(e);
+            } catch (final IllegalArgumentException e) {
+                return Either.fail(new JSONParserException(e.getMessage()));
+            }
+        }
+
+        @Override
+        public Either<Long, JSONParserException> apply(final InputStream in, final OutputStream out) {
+            return Streamer.run(in, out, streamer -> streamer.patch(root));
+        }
+    }
+
+    /**
+     * Node of the path trie built from operation scopes. A node holding operations is
+     * materialized as a whole; a node without operations is copied through while its
+     * children are looked for.
+     */
+    final static class Scope {
+
+        final int depth;
+
+        final Map<String, Scope> children = new HashMap<>();
+
+        List<Operation> operations;
+
+        Scope(final int depth) {
+            this.depth = depth;
+        }
+
+        void add(final List<String> path, final Operation op) {
+            if (operations != null) {
+                operations.add(op);
+            } else if (path.size() == depth) {
+                operations = new ArrayList<>();
+                collect(operations);
+                children.clear();
+                operations.add(op);
+            } else {
+                children.computeIfAbsent(path.get(depth), k -> new Scope(depth + 1)).add(path, op);
+            }
+        }
+
+        /* descendant scopes touch disjoint subtrees, so their relative order does not matter. */
+        private void collect(final List<Operation> into) {
+            for (final Scope child : children.values()) {
+                if (child.operations != null)
+                    into.addAll(child.operations);
+                else
+                    child.collect(into);
+            }
+        }
+
+        Value apply(final Value value) throws JSONParserException {
+            Value result = value;
+            for (final Operation op : operations)
+                result = op.relativeTo(depth).apply(result);
+            return result;
+        }
+    }
+
+    final static class MergePatch implements Patch {
+
+        private final Value patch;
+
+        MergePatch(final Value patch) {
+            this.patch = patch;
+        }
+
+        @Override
+        public Either<Value, JSONParserException> apply(final Value document) {
+            return Either.succ(merge(document, patch));
+        }
+
+        @Override
+        public Either<Long, JSONParserException> apply(final InputStream in, final OutputStream out) {
+            return Streamer.run(in, out, streamer -> streamer.merge(patch));
+        }
+
+        static Value merge(final Value target, final Value patch) {
+            if (!Values.isObject(patch))
+                return patch;
+            final Value[] result = {Values.isObject(target) ? target : Value.json()};
+            patch.isJSON((k, v) -> {
+                if (Tree.isNull(v))
+                    result[0] = result[0].without(k);
+                else
+                    result[0] = result[0].with(k, merge(Tree.child(result[0], k), v));
+            });
+            return result[0];
+        }
+    }
+
+    /**
+     * Copies a document from a reader to an output stream, handing over selected values.
+     */
+    final static class Streamer {
+
+        interface Body {
+            void run(final Streamer streamer) throws IOException, JSONParserException;
+        }
+
+        private final ByteReader reader;
+
+        private final Sink out;
+
+        private final ByteArrayOutputStream scratch = new ByteArrayOutputStream();
+
+        /**
+         * @param out target of the copy, null when only reading.
+         */
+        Streamer(final ByteReader reader, final Sink out) {
+            this.reader = reader;
+            this.out = out;
+        }
+
+        static Either<Long, JSONParserException> run(final InputStream in, final OutputStream out, final Body body) {
+            return StreamParser.withReader(in::read, reader -> {
+                final Sink sink = new Sink(out);
+                try {
+                    StreamParser.skipWhitespace(reader);
+                    body.run(new Streamer(reader, sink));
+                    sink.flush();
+                    return Either.succ(sink.written);
+                } catch (final IOException e) {
+                    return Either.fail(new JSONParserException(e));
+                } catch (final StreamParser.Abort e) {
+                    return Either.fail(e.failure);
+                } catch (final JSONParserException e) {
+                    return Either.fail(e);
+                } catch (final IllegalArgumentException e) {
+                    /* a value the generator has no JSON text for. */
+                    return Either.fail(new JSONParserException(e.getMessage()));
+                }
+            });
+        }
+
+        void patch(final Scope scope) throws IOException, JSONParserException {
+            if (scope.operations != null) {
+                final Value result = scope.apply(materialize());
+                if (result == null)
+                    throw new JSONParserException("cannot remove the document");
+                emit(result);
+                return;
+            }
+            final int ch = reader.peek();
+            if (ch != '{' && ch != '[')
+                throw new JSONParserException("path not found: " + first(scope.children.keySet()));
+            final boolean object = ch == '{';
+            final Set<String> seen = new HashSet<>();
+            out.write(ch);
+            reader.next();
+            StreamParser.skipWhitespace(reader);
+            boolean first = true;
+            for (int index = 0; reader.peek() != (object ? '}' : ']'); index++) {
+                final byte[] rawKey = object ? key() : null;
+                final String name = object ? decode(rawKey) : String.valueOf(index);
+                final Scope child = scope.children.get(name);
+                if (child == null) {
+                    first = separator(first, rawKey);
+                    copyValue(out);
+                } else if (child.operations != null) {
+                    final Value result = child.apply(materialize());
+                    if (result != null) {
+                        first = separator(first, rawKey);
+                        emit(result);
+                    } else if (!object) {
+                        throw new JSONParserException("cannot remove array element " + name + " in place");
+                    }
+                } else {
+                    first = separator(first, rawKey);
+                    patch(child);
+                }
+                seen.add(name);
+                next(object ? '}' : ']');
+            }
+            reader.next();
+            for (final Map.Entry<String, Scope> e : scope.children.entrySet()) {
+                if (seen.contains(e.getKey()))
+                    continue;
+                if (!object || e.getValue().operations == null)
+                    throw new JSONParserException("path not found: " + e.getKey());
+                final Value result = e.getValue().apply(null);
+                if (result != null) {
+                    first = separator(first, null);
+                    emit(Value.string(e.getKey()));
+                    out.write(':');
+                    emit(result);
+                }
+            }
+            out.write(object ? '}' : ']');
+        }
+
+        void merge(final Value patch) throws IOException, JSONParserException {
+            if (!Values.isObject(patch) || reader.peek() != '{') {
+                skipValue();
+                emit(MergePatch.merge(null, patch));
+                return;
+            }
+            final Set<String> seen = new HashSet<>();
+            out.write('{');
+            reader.next();
+            StreamParser.skipWhitespace(reader);
+            boolean first = true;
+            while (reader.peek() != '}') {
+                final byte[] rawKey = key();
+                final String name = decode(rawKey);
+                final Value change = Tree.child(patch, name);
+                if (change == null) {
+                    first = separator(first, rawKey);
+                    copyValue(out);
+                } else if (Tree.isNull(change)) {
+                    skipValue();
+                } else {
+                    first = separator(first, rawKey);
+                    merge(change);
+                }
+                seen.add(name);
+                next('}');
+            }
+            reader.next();
+            final List<Value[]> added = new ArrayList<>();
+            patch.isJSON((k, v) -> k.isString(name -> {
+                if (!seen.contains(name) && !Tree.isNull(v))
+                    added.add(new Value[] {k, v});
+            }));
+            for (final Value[] member : added) {
+                first = separator(first, null);
+                emit(member[0]);
+                out.write(':');
+                emit(MergePatch.merge(null, member[1]));
+            }
+            out.write('}');
+        }
+
+        /**
+         * writes the separator and, for object members, the key ahead of the next value.
+         */
+        private boolean separator(final boolean first, final byte[] rawKey) throws IOException {
+            if (!first)
+                out.write(',');
+            if (rawKey != null) {
+                out.write(rawKey, 0, rawKey.length);
+                out.write(':');
+            }
+            return false;
+        }
+
+        /**
+         * reads a member key and the colon, leaving the cursor at the value.
+         */
+        byte[] key() throws IOException, JSONParserException {
+            if (reader.peek() != '"')
+                throw new JSONParserException("key cannot be non string type.");
+            scratch.reset();
+            copyString(scratch);
+            StreamParser.skipWhitespace(reader);
+            if (reader.peek() != ':')
+                throw new JSONParserException("':' expected after key");
+            reader.next();
+            StreamParser.skipWhitespace(reader);
+            return scratch.toByteArray();
+        }
+
+        void next(final char close) throws JSONParserException {
+            StreamParser.skipWhitespace(reader);
+            if (reader.peek() == ',') {
+                reader.next();
+                StreamParser.skipWhitespace(reader);
+            } else if (reader.peek() != close) {
+                throw new JSONParserException(reader.peek() == -1
+                    ? "unexpected end of document" : "',' or '" + close + "' expected");
+            }
+        }
+
+        private Value materialize() throws IOException, JSONParserException {
+            return parse(raw());
+        }
+
+        /**
+         * @return bytes of the value at the cursor.
+         */
+        byte[] raw() throws IOException, JSONParserException {
+            scratch.reset();
+            copyValue(scratch);
+            return scratch.toByteArray();
+        }
+
+        static Value parse(final byte[] raw) throws JSONParserException {
+            final Value[] value = {null};
+            final JSONParserException[] error = {null};
+            Parser.create().parse(new String(raw, StandardCharsets.UTF_8))
+            .ifSuccess(v -> value[0] = v)
+            .ifFailure(e -> error[0] = e);
+            if (error[0] != null)
+                throw error[0];
+            return value[0];
+        }
+
+        private void emit(final Value value) throws IOException {
+            final byte[] bytes = Generator.create().generate(value).getBytes(StandardCharsets.UTF_8);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        void skipValue() throws JSONParserException {
+            if (reader.peek() == -1)
+                throw new JSONParserException("unexpected end of document");
+            StreamParser.skipValue(reader);
+        }
+
+        /**
+         * copies the value at the cursor byte for byte.
+         */
+        private void copyValue(final OutputStream to) throws IOException, JSONParserException {
+            int ch = reader.peek();
+            if (ch == '"') {
+                copyString(to);
+            } else if (ch == '{' || ch == '[') {
+                int depth = 0;
+                while ((ch = reader.peek()) != -1) {
+                    if (ch == '"') {
+                        copyString(to);
+                        continue;
+                    }
+                    to.write(ch);
+                    reader.next();
+                    if (ch == '{' || ch == '[')
+                        depth ++;
+                    else if ((ch == '}' || ch == ']') && --depth == 0)
+                        return;
+                }
+                throw new JSONParserException("unexpected end of document");
+            } else {
+                int length = 0;
+                while ((ch = reader.peek()) != -1 && ch != ',' && ch != '}' && ch != ']'
+                    && !Character.isWhitespace(ch)) {
+                    to.write(ch);
+                    reader.next();
+                    length ++;
+                }
+                if (length == 0)
+                    throw new JSONParserException(ch == -1 ? "unexpected end of document" : "value expected");
+            }
+        }
+
+        private void copyString(final OutputStream to) throws IOException, JSONParserException {
+            to.write(reader.peek());
+            reader.next();
+            int ch;
+            while ((ch = reader.peek()) != -1) {
+                to.write(ch);
+                reader.next();
+                if (ch == '"')
+                    return;
+                if (ch == '\\' && reader.peek() != -1) {
+                    to.write(reader.peek());
+                    reader.next();
+                }
+            }
+            throw new JSONParserException("unexpected end of document");
+        }
+
+        static String decode(final byte[] rawKey) {
+            final ByteReader key = new ByteReader.StringByteReader(new String(rawKey, StandardCharsets.UTF_8));
+            key.next();
+            return StreamParser.readString(key, new StringBuilder());
+        }
+
+        private static String first(final Set<String> keys) {
+            return keys.isEmpty() ? "" : keys.iterator().next();
+        }
+    }
+
+    /**
+     * Buffered output counting the bytes written. Flushing does not close the target.
+     */
+    final static class Sink extends OutputStream {
+
+        private final OutputStream out;
+
+        private final byte[] buf = new byte[ByteReader.StreamByteReader.BUF_SIZE];
+
+        private int pos;
+
+        long written;
+
+        Sink(final OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (pos == buf.length)
+                drain();
+            buf[pos ++] = (byte) b;
+            written ++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (len > buf.length - pos) {
+                drain();
+                if (len > buf.length) {
+                    out.write(b, off, len);
+                    written += len;
+                    return;
+                }
+            }
+            System.arraycopy(b, off, buf, pos, len);
+            pos += len;
+            written += len;
+        }
+
+        private void drain() throws IOException {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+    }
+
+    /**
+     * Helpers over {@link Value} trees addressed by RFC 6901 JSON Pointers.
+     */
+    final static class Tree {
+
+        private Tree() {
+        }
+
+        static boolean isNull(final Value value) {
+            final boolean[] nil = {false};
+            value.isNull(() -> nil[0] = true);
+            return nil[0];
+        }
+
+        static List<String> path(final String pointer) throws JSONParserException {
+            if (pointer.isEmpty())
+                return Collections.emptyList();
+            if (pointer.charAt(0) != '/')
+                throw new JSONParserException("invalid pointer " + pointer);
+            final List<String> tokens = new ArrayList<>();
+            for (final String token : pointer.substring(1).split("/", -1))
+                tokens.add(token.replace("~1", "/").replace("~0", "~"));
+            return Collections.unmodifiableList(tokens);
+        }
+
+        static String pointer(final List<String> path) {
+            final StringBuilder bld = new StringBuilder();
+            for (final String token : path)
+                bld.append('/').append(token.replace("~", "~0").replace("/", "~1"));
+            return bld.toString();
+        }
+
+        static List<String> common(final List<String> lhs, final List<String> rhs) {
+            int i = 0;
+            while (i < lhs.size() && i < rhs.size() && lhs.get(i).equals(rhs.get(i)))
+                i ++;
+            return lhs.subList(0, i);
+        }
+
+        static boolean isIndex(final String token) {
+            if (token.equals("-"))
+                return true;
+            if (token.isEmpty() || (token.length() > 1 && token.charAt(0) == '0'))
+                return false;
+            for (int i = 0; i < token.length(); i++) {
+                if (token.charAt(i) < '0' || token.charAt(i) > '9')
+                    return false;
+            }
+            return token.length() < 10;
+        }
+
+        private static int index(final String token, final int limit) throws JSONParserException {
+            if (!isIndex(token) || token.equals("-") || Integer.parseInt(token) > limit)
+                throw new JSONParserException("invalid array index " + token);
+            return Integer.parseInt(token);
+        }
+
+        static Value child(final Value node, final String token) {
+            if (node == null)
+                return null;
+            if (Values.isObject(node))
+                return child(node, Value.string(token));
+            if (!Values.isArray(node) || !isIndex(token) || token.equals("-") || Integer.parseInt(token) >= Values.size(node))
+                return null;
+            final Value[] child = {null};
+            node.isArrayAt(Integer.parseInt(token), v -> child[0] = v);
+            return child[0];
+        }
+
+        static Value child(final Value node, final Value key) {
+            if (node == null)
+                return null;
+            final Value[] child = {null};
+            node.isJSONKey(key, v -> child[0] = v);
+            return child[0];
+        }
+
+        static String string(final Value node, final String key) {
+            final Value value = child(node, Value.string(key));
+            final String[] string = {null};
+            if (value != null)
+                value.isString(s -> string[0] = s);
+            return string[0];
+        }
+
+        static Value require(final Value document, final List<String> path) throws JSONParserException {
+            Value node = document;
+            for (final String token : path)
+                node = child(node, token);
+            if (node == null)
+                throw new JSONParserException("path not found: " + pointer(path));
+            return node;
+        }
+
+        interface Edit {
+            Value apply(final Value container, final String token) throws JSONParserException;
+        }
+
+        /**
+         * rebuilds the branch leading to the parent of path with the edited parent.
+         */
+        static Value edit(final Value node, final List<String> path, final int depth, final Edit edit)
+            throws JSONParserException {
+            if (node == null)
+                throw new JSONParserException("path not found: " + pointer(path.subList(0, depth)));
+            final String token = path.get(depth);
+            if (depth == path.size() - 1)
+                return edit.apply(node, token);
+            final Value updated = edit(child(node, token), path, depth + 1, edit);
+            if (Values.isObject(node))
+                return node.with(Value.string(token), updated);
+            return node.withAt(Integer.parseInt(token), updated);
+        }
+
+        static Value add(final Value document, final List<String> path, final Value value)
+            throws JSONParserException {
+            if (path.isEmpty())
+                return value;
+            return edit(document, path, 0, (container, token) -> {
+                if (Values.isObject(container))
+                    return container.with(Value.string(token), value);
+                if (!Values.isArray(container))
+                    throw new JSONParserException("cannot add to a scalar at " + pointer(path));
+                final int size = Values.size(container);
+                final int at = token.equals("-") ? size : index(token, size);
+                return at == size ? container.append(value) : splice(container, at, value);
+            });
+        }
+
+        static Value replace(final Value document, final List<String> path, final Value value)
+            throws JSONParserException {
+            if (path.isEmpty())
+                return value;
+            return edit(document, path, 0, (container, token) -> Values.isObject(container)
+                ? container.with(Value.string(token), value)
+                : container.withAt(Integer.parseInt(token), value));
+        }
+
+        static Value remove(final Value document, final List<String> path) throws JSONParserException {
+            if (path.isEmpty())
+                return null;
+            return edit(document, path, 0, (container, token) -> {
+                if (Values.isObject(container))
+                    return container.without(Value.string(token));
+                return splice(container, index(token, Values.size(container) - 1), null);
+            });
+        }
+
+        /**
+         * @return copy of array with value inserted at index, or the element at index dropped when value is null.
+         */
+        private static Value splice(final Value array, final int index, final Value value) {
+            final Value[] result = {Value.arr()};
+            final int[] i = {0};
+            array.isArray(v -> {
+                if (i[0] ++ == index) {
+                    if (value == null)
+                        return;
+                    result[0] = result[0].append(value);
+                }
+                result[0] = result[0].append(v);
+            });
+            return result[0];
+        }
+    }
+}
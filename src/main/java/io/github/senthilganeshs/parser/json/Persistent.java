@@ -0,0 +1,361 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Immutable collections sharing structure between versions, backing the values returned by
+ * {@code Value.json()} and {@code Value.arr()}. Updates copy only the path from the root to the
+ * changed leaf, O(log32 n).
+ */
+interface Persistent {
+
+    /**
+     * 32 way trie with a tail buffer, as in Clojure's PersistentVector.
+     */
+    final static class Vector<T> {
+
+        private static final int BITS = 5;
+
+        private static final int WIDTH = 1 << BITS;
+
+        private static final int MASK = WIDTH - 1;
+
+        private static final Vector<?> EMPTY = new Vector<>(0, BITS, new Object[WIDTH], new Object[0]);
+
+        private final int count;
+
+        private final int shift;
+
+        private final Object[] root;
+
+        private final Object[] tail;
+
+        private Vector(final int count, final int shift, final Object[] root, final Object[] tail) {
+            this.count = count;
+            this.shift = shift;
+            this.root = root;
+            this.tail = tail;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Vector<T> empty() {
+            return (Vector<T>) EMPTY;
+        }
+
+        int size() {
+            return count;
+        }
+
+        private int tailOffset() {
+            return count < WIDTH ? 0 : ((count - 1) >>> BITS) << BITS;
+        }
+
+        private Object[] leaf(final int i) {
+            if (i >= tailOffset())
+                return tail;
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= BITS)
+                node = (Object[]) node[(i >>> level) & MASK];
+            return node;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(final int i) {
+            if (i < 0 || i >= count)
+                throw new IndexOutOfBoundsException("index out of range");
+            return (T) leaf(i)[i & MASK];
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(final Consumer<T> action) {
+            for (int i = 0; i < count; i += WIDTH) {
+                final Object[] leaf = leaf(i);
+                for (int j = 0; j < leaf.length && i + j < count; j++)
+                    action.accept((T) leaf[j]);
+            }
+        }
+
+        Vector<T> append(final T value) {
+            if (count - tailOffset() < WIDTH) {
+                final Object[] grown = Arrays.copyOf(tail, tail.length + 1);
+                grown[tail.length] = value;
+                return new Vector<>(count + 1, shift, root, grown);
+            }
+            if ((count >>> BITS) > (1 << shift)) {
+                final Object[] grown = new Object[WIDTH];
+                grown[0] = root;
+                grown[1] = path(shift, tail);
+                return new Vector<>(count + 1, shift + BITS, grown, new Object[] {value});
+            }
+            return new Vector<>(count + 1, shift, pushTail(shift, root), new Object[] {value});
+        }
+
+        private Object[] pushTail(final int level, final Object[] parent) {
+            final int sub = ((count - 1) >>> level) & MASK;
+            final Object[] copy = parent.clone();
+            if (level == BITS) {
+                copy[sub] = tail;
+            } else {
+                final Object[] child = (Object[]) parent[sub];
+                copy[sub] = child == null ? path(level - BITS, tail) : pushTail(level - BITS, child);
+            }
+            return copy;
+        }
+
+        private static Object[] path(final int level, final Object[] node) {
+            if (level == 0)
+                return node;
+            final Object[] parent = new Object[WIDTH];
+            parent[0] = path(level - BITS, node);
+            return parent;
+        }
+
+        Vector<T> set(final int i, final T value) {
+            if (i < 0 || i >= count)
+                throw new IndexOutOfBoundsException("index out of range");
+            if (i >= tailOffset()) {
+                final Object[] copy = tail.clone();
+                copy[i & MASK] = value;
+                return new Vector<>(count, shift, root, copy);
+            }
+            return new Vector<>(count, shift, set(shift, root, i, value), tail);
+        }
+
+        private static Object[] set(final int level, final Object[] node, final int i, final Object value) {
+            final Object[] copy = node.clone();
+            if (level == 0) {
+                copy[i & MASK] = value;
+            } else {
+                final int sub = (i >>> level) & MASK;
+                copy[sub] = set(level - BITS, (Object[]) node[sub], i, value);
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Hash array mapped trie. Keys with equal full hashes share a collision node; {@link Parser.Value}
+     * keys are placed by their seeded {@link Dictionary#hash(Parser.Value)}.
+     */
+    final static class HashTrie<K, V> {
+
+        private static final HashTrie<?, ?> EMPTY = new HashTrie<>(null, 0);
+
+        private final Node root;
+
+        private final int size;
+
+        private HashTrie(final Node root, final int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <K, V> HashTrie<K, V> empty() {
+            return (HashTrie<K, V>) EMPTY;
+        }
+
+        int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(final K key) {
+            return root == null ? null : (V) root.find(0, hash(key), key);
+        }
+
+        HashTrie<K, V> put(final K key, final V value) {
+            final boolean[] added = new boolean[1];
+            final Node node = (root == null ? BitmapNode.EMPTY : root).put(0, hash(key), key, value, added);
+            return node == root ? this : new HashTrie<>(node, added[0] ? size + 1 : size);
+        }
+
+        HashTrie<K, V> remove(final K key) {
+            if (root == null)
+                return this;
+            final Node node = root.remove(0, hash(key), key);
+            return node == root ? this : new HashTrie<>(node, size - 1);
+        }
+
+        static int hash(final Object key) {
+            if (key instanceof Parser.Value)
+                return Dictionary.hash((Parser.Value) key);
+            final int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+
+        interface Node {
+            Object find(final int shift, final int hash, final Object key);
+
+            Node put(final int shift, final int hash, final Object key, final Object value, final boolean[] added);
+
+            /**
+             * @return node without key, this if key is absent, null if the node became empty.
+             */
+            Node remove(final int shift, final int hash, final Object key);
+        }
+
+        /* array holds a key/value pair per set bit; a null key marks a sub node in the value slot. */
+        final static class BitmapNode implements Node {
+
+            static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+            private final int bitmap;
+
+            private final Object[] array;
+
+            BitmapNode(final int bitmap, final Object[] array) {
+                this.bitmap = bitmap;
+                this.array = array;
+            }
+
+            private static int bit(final int hash, final int shift) {
+                return 1 << ((hash >>> shift) & 31);
+            }
+
+            private int index(final int bit) {
+                return 2 * Integer.bitCount(bitmap & (bit - 1));
+            }
+
+            @Override
+            public Object find(final int shift, final int hash, final Object key) {
+                final int bit = bit(hash, shift);
+                if ((bitmap & bit) == 0)
+                    return null;
+                final int i = index(bit);
+                if (array[i] == null)
+                    return ((Node) array[i + 1]).find(shift + 5, hash, key);
+                return key.equals(array[i]) ? array[i + 1] : null;
+            }
+
+            @Override
+            public Node put(final int shift, final int hash, final Object key, final Object value, final boolean[] added) {
+                final int bit = bit(hash, shift);
+                final int i = index(bit);
+                if ((bitmap & bit) == 0) {
+                    final Object[] grown = new Object[array.length + 2];
+                    System.arraycopy(array, 0, grown, 0, i);
+                    grown[i] = key;
+                    grown[i + 1] = value;
+                    System.arraycopy(array, i, grown, i + 2, array.length - i);
+                    added[0] = true;
+                    return new BitmapNode(bitmap | bit, grown);
+                }
+                final Object k = array[i];
+                final Object v = array[i + 1];
+                final Object[] copy = array.clone();
+                if (k == null) {
+                    final Node sub = ((Node) v).put(shift + 5, hash, key, value, added);
+                    if (sub == v)
+                        return this;
+                    copy[i + 1] = sub;
+                } else if (key.equals(k)) {
+                    if (value == v)
+                        return this;
+                    copy[i + 1] = value;
+                } else {
+                    copy[i] = null;
+                    copy[i + 1] = split(shift + 5, k, v, hash, key, value);
+                    added[0] = true;
+                }
+                return new BitmapNode(bitmap, copy);
+            }
+
+            private static Node split(final int shift, final Object k1, final Object v1,
+                final int h2, final Object k2, final Object v2) {
+                final int h1 = hash(k1);
+                if (h1 == h2)
+                    return new CollisionNode(h1, new Object[] {k1, v1, k2, v2});
+                final boolean[] ignored = new boolean[1];
+                return EMPTY.put(shift, h1, k1, v1, ignored).put(shift, h2, k2, v2, ignored);
+            }
+
+            @Override
+            public Node remove(final int shift, final int hash, final Object key) {
+                final int bit = bit(hash, shift);
+                if ((bitmap & bit) == 0)
+                    return this;
+                final int i = index(bit);
+                if (array[i] == null) {
+                    final Node sub = ((Node) array[i + 1]).remove(shift + 5, hash, key);
+                    if (sub == array[i + 1])
+                        return this;
+                    if (sub != null) {
+                        final Object[] copy = array.clone();
+                        copy[i + 1] = sub;
+                        return new BitmapNode(bitmap, copy);
+                    }
+                } else if (!key.equals(array[i])) {
+                    return this;
+                }
+                if (bitmap == bit)
+                    return null;
+                final Object[] shrunk = new Object[array.length - 2];
+                System.arraycopy(array, 0, shrunk, 0, i);
+                System.arraycopy(array, i + 2, shrunk, i, array.length - i - 2);
+                return new BitmapNode(bitmap ^ bit, shrunk);
+            }
+        }
+
+        final static class CollisionNode implements Node {
+
+            private final int hash;
+
+            private final Object[] array;
+
+            CollisionNode(final int hash, final Object[] array) {
+                this.hash = hash;
+                this.array = array;
+            }
+
+            private int index(final Object key) {
+                for (int i = 0; i < array.length; i += 2) {
+                    if (key.equals(array[i]))
+                        return i;
+                }
+                return -1;
+            }
+
+            @Override
+            public Object find(final int shift, final int hash, final Object key) {
+                final int i = index(key);
+                return i < 0 ? null : array[i + 1];
+            }
+
+            @Override
+            public Node put(final int shift, final int hash, final Object key, final Object value, final boolean[] added) {
+                if (hash != this.hash) {
+                    return new BitmapNode(BitmapNode.bit(this.hash, shift), new Object[] {null, this})
+                        .put(shift, hash, key, value, added);
+                }
+                final int i = index(key);
+                if (i >= 0) {
+                    if (array[i + 1] == value)
+                        return this;
+                    final Object[] copy = array.clone();
+                    copy[i + 1] = value;
+                    return new CollisionNode(hash, copy);
+                }
+                final Object[] grown = Arrays.copyOf(array, array.length + 2);
+                grown[array.length] = key;
+                grown[array.length + 1] = value;
+                added[0] = true;
+                return new CollisionNode(hash, grown);
+            }
+
+            @Override
+            public Node remove(final int shift, final int hash, final Object key) {
+                final int i = index(key);
+                if (i < 0)
+                    return this;
+                if (array.length == 2)
+                    return null;
+                final Object[] shrunk = new Object[array.length - 2];
+                System.arraycopy(array, 0, shrunk, 0, i);
+                System.arraycopy(array, i + 2, shrunk, i, array.length - i - 2);
+                return new CollisionNode(hash, shrunk);
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+
+/**
+ * Byte level whitespace rewriter behind {@link Generator#minify} and {@link Generator#pretty}.
+ * Tokens are copied through as raw bytes and checked against the RFC 8259 grammar on the
+ * way, UTF-8 aside; the state carried between chunks is what the next byte may be and one
+ * flag per open container, so memory stays constant. A malformed document fails at its
+ * first offending byte, after what precedes it has been written.
+ */
+final class Reformatter {
+
+    private static final int OUT_SIZE = 1 << 16;
+
+    /* what may come next, outside strings and scalars. */
+    private static final int START = 0;
+    private static final int VALUE = 1;
+    private static final int KEY = 2;
+    private static final int COLON = 3;
+    private static final int NEXT = 4;
+    /* a top level value ended; another document may follow. */
+    private static final int DONE = 5;
+
+    /* number literal states; the ones after a digit are complete. */
+    private static final int MINUS = 1;
+    private static final int ZERO = 2;
+    private static final int INTEGER = 3;
+    private static final int POINT = 4;
+    private static final int FRACTION = 5;
+    private static final int E = 6;
+    private static final int EXPONENT_SIGN = 7;
+    private static final int EXPONENT = 8;
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    /* negative when minifying. */
+    private final int indent;
+
+    private final OutputStream target;
+
+    private final byte[] out = new byte[OUT_SIZE];
+
+    private int pos;
+
+    private long written;
+
+    private int depth;
+
+    /* true for an open object, false for an open array. */
+    private boolean[] objects = new boolean[32];
+
+    private int expect = START;
+
+    /* a container was just opened, so it may close again straight away. */
+    private boolean empty;
+
+    private boolean inString;
+
+    private boolean inKey;
+
+    private boolean escape;
+
+    /* hex digits still due in a unicode escape. */
+    private int hex;
+
+    /* state of the number literal being copied, 0 if none. */
+    private int number;
+
+    /* the literal being copied and how much of it has been, null if none. */
+    private byte[] literal;
+
+    private int matched;
+
+    /* an opening bracket was written; the line break is held back in case the container is empty. */
+    private boolean open;
+
+    /* input consumed before the current chunk, and where the current line of it started. */
+    private long base;
+
+    private long line = 1;
+
+    private long lineStart;
+
+    private Reformatter(final int indent, final OutputStream target) {
+        this.indent = indent;
+        this.target = target;
+    }
+
+    static Either<Long, JSONParserException> run(final InputStream in, final OutputStream out, final int indent) {
+        final Scratch scratch = Scratch.acquire();
+        try {
+            final Reformatter reformatter = new Reformatter(indent, out);
+            int n;
+            while ((n = in.read(scratch.buf, 0, scratch.buf.length)) != -1)
+                reformatter.feed(scratch.buf, n);
+            return Either.succ(reformatter.finish());
+        } catch (final IOException e) {
+            return Either.fail(new JSONParserException(e));
+        } catch (final JSONParserException e) {
+            return Either.fail(e);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    private void feed(final byte[] buf, final int length) throws IOException, JSONParserException {
+        for (int i = 0; i < length; i++) {
+            final byte b = buf[i];
+            if (b == '\n') {
+                line ++;
+                lineStart = base + i + 1;
+            }
+            if (inString) {
+                string(b, buf, length, i);
+                continue;
+            }
+            if (number != 0 && number(b))
+                continue;
+            if (number != 0) {
+                if (number == MINUS || number == POINT || number == E || number == EXPONENT_SIGN)
+                    throw unexpected(b, "a digit", buf, length, i);
+                number = 0;
+                ended();
+            }
+            if (literal != null) {
+                if (b != literal[matched])
+                    throw unexpected(b, "'" + (char) literal[matched] + "'", buf, length, i);
+                put(b);
+                if (++ matched == literal.length) {
+                    literal = null;
+                    ended();
+                }
+                continue;
+            }
+            switch (b) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\r':
+                break;
+            case '{':
+            case '[':
+                begin(b, buf, length, i);
+                token(b);
+                if (depth == objects.length)
+                    objects = Arrays.copyOf(objects, depth * 2);
+                objects[depth ++] = b == '{';
+                expect = b == '{' ? KEY : VALUE;
+                empty = true;
+                open = indent >= 0;
+                break;
+            case '}':
+            case ']':
+                if (depth == 0 || objects[depth - 1] != (b == '}')
+                    || !(expect == NEXT || empty && expect == (b == '}' ? KEY : VALUE)))
+                    throw unexpected(b, expected(), buf, length, i);
+                depth --;
+                if (open) {
+                    open = false;
+                    put(b);
+                } else {
+                    newline();
+                    put(b);
+                }
+                empty = false;
+                ended();
+                break;
+            case ',':
+                if (expect != NEXT)
+                    throw unexpected(b, expected(), buf, length, i);
+                put(b);
+                newline();
+                expect = objects[depth - 1] ? KEY : VALUE;
+                break;
+            case ':':
+                if (expect != COLON)
+                    throw unexpected(b, expected(), buf, length, i);
+                put(b);
+                if (indent >= 0)
+                    put((byte) ' ');
+                expect = VALUE;
+                break;
+            case '"':
+                inKey = expect == KEY;
+                if (!inKey)
+                    begin(b, buf, length, i);
+                empty = false;
+                inString = true;
+                token(b);
+                break;
+            case 't':
+            case 'f':
+            case 'n':
+                begin(b, buf, length, i);
+                literal = b == 't' ? TRUE : b == 'f' ? FALSE : NULL;
+                matched = 1;
+                token(b);
+                break;
+            default:
+                if (b != '-' && (b < '0' || b > '9'))
+                    throw unexpected(b, expected(), buf, length, i);
+                begin(b, buf, length, i);
+                number = b == '-' ? MINUS : b == '0' ? ZERO : INTEGER;
+                token(b);
+            }
+        }
+        base += length;
+    }
+
+    /**
+     * copies b if it continues the number literal.
+     * @return false if the literal ended before b.
+     */
+    private boolean number(final byte b) throws IOException {
+        final boolean digit = b >= '0' && b <= '9';
+        final int next;
+        switch (number) {
+        case MINUS:
+            next = b == '0' ? ZERO : digit ? INTEGER : 0;
+            break;
+        case ZERO:
+            next = b == '.' ? POINT : b == 'e' || b == 'E' ? E : 0;
+            break;
+        case INTEGER:
+            next = digit ? INTEGER : b == '.' ? POINT : b == 'e' || b == 'E' ? E : 0;
+            break;
+        case POINT:
+            next = digit ? FRACTION : 0;
+            break;
+        case FRACTION:
+            next = digit ? FRACTION : b == 'e' || b == 'E' ? E : 0;
+            break;
+        case E:
+            next = digit ? EXPONENT : b == '+' || b == '-' ? EXPONENT_SIGN : 0;
+            break;
+        default:
+            next = digit ? EXPONENT : 0;
+        }
+        if (next == 0)
+            return false;
+        number = next;
+        put(b);
+        return true;
+    }
+
+    private void string(final byte b, final byte[] buf, final int length, final int i) throws IOException, JSONParserException {
+        if (pos == OUT_SIZE)
+            drain();
+        out[pos ++] = b;
+        if (hex > 0) {
+            if (!(b >= '0' && b <= '9' || b >= 'a' && b <= 'f' || b >= 'A' && b <= 'F'))
+                throw unexpected(b, "a hex digit", buf, length, i);
+            hex --;
+        } else if (escape) {
+            escape = false;
+            if (b == 'u')
+                hex = 4;
+            else if (b != '"' && b != '\\' && b != '/' && b != 'b' && b != 'f' && b != 'n' && b != 'r' && b != 't')
+                throw unexpected(b, "an escape character", buf, length, i);
+        } else if (b == '\\') {
+            escape = true;
+        } else if (b == '"') {
+            inString = false;
+            if (inKey)
+                expect = COLON;
+            else
+                ended();
+        } else if (b >= 0 && b < 0x20) {
+            throw unexpected(b, "an escaped control character", buf, length, i);
+        }
+    }
+
+    /**
+     * checks that a value may start here; a document after another goes on its own line.
+     */
+    private void begin(final byte b, final byte[] buf, final int length, final int i) throws IOException, JSONParserException {
+        if (expect == DONE)
+            put((byte) '\n');
+        else if (expect != START && expect != VALUE)
+            throw unexpected(b, expected(), buf, length, i);
+        empty = false;
+    }
+
+    /* a value was copied to its end. */
+    private void ended() {
+        expect = depth == 0 ? DONE : NEXT;
+    }
+
+    private String expected() {
+        switch (expect) {
+        case KEY:
+            return empty ? "a key or '}'" : "a key";
+        case COLON:
+            return "':'";
+        case NEXT:
+            return objects[depth - 1] ? "',' or '}'" : "',' or ']'";
+        case DONE:
+            return "a document";
+        default:
+            return empty ? "a value or ']'" : "a value";
+        }
+    }
+
+    private JSONParserException unexpected(final byte b, final String expected, final byte[] buf, final int length, final int i) {
+        final int c = b & 0xFF;
+        final String found = c >= 0x20 && c < 0x7F ? "'" + (char) c + "'" : String.format("byte 0x%02X", c);
+        final long offset = base + i;
+        return new JSONParserException("unexpected " + found + ", expected " + expected, offset, line,
+            offset - lineStart + 1, JSONParserException.context(buf, length, i));
+    }
+
+    private void token(final byte b) throws IOException {
+        if (open) {
+            open = false;
+            newline();
+        }
+        put(b);
+    }
+
+    private void put(final byte b) throws IOException {
+        if (pos == OUT_SIZE)
+            drain();
+        out[pos ++] = b;
+    }
+
+    private void newline() throws IOException {
+        if (indent < 0)
+            return;
+        put((byte) '\n');
+        for (int i = depth * indent; i > 0; i--)
+            put((byte) ' ');
+    }
+
+    private void drain() throws IOException {
+        target.write(out, 0, pos);
+        written += pos;
+        pos = 0;
+    }
+
+    private long finish() throws IOException, JSONParserException {
+        final boolean complete = !inString && literal == null
+            && (number == 0 || number == ZERO || number == INTEGER || number == FRACTION || number == EXPONENT);
+        if (complete && number != 0)
+            ended();
+        if (indent >= 0 && written + pos > 0)
+            put((byte) '\n');
+        drain();
+        target.flush();
+        if (inString)
+            throw new JSONParserException("unterminated string", base, line, base - lineStart + 1, "");
+        if (!complete || expect != START && expect != DONE)
+            throw new JSONParserException("unexpected end of document, expected "
+                + (literal != null ? "'" + (char) literal[matched] + "'" : !complete ? "a digit" : expected()),
+                base, line, base - lineStart + 1, "");
+        return written;
+    }
+}
@@ -0,0 +1,359 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+import io.github.senthilganeshs.parser.json.StreamParser.ByteReader;
+
+/**
+ * Expected shape of a document. A schema is compiled into a tree of specialized
+ * {@link StreamParser}s which expect object keys in the declared order and read typed
+ * fields straight into primitives. Whenever the input does not match, the affected
+ * value is handed over to the generic {@link StreamParser}.
+ *
+ * <pre>
+ * Parser.compile(Schema.object()
+ *     .field("id", Schema.integer())
+ *     .field("tags", Schema.array(Schema.string())));
+ * </pre>
+ */
+public interface Schema {
+
+    /**
+     * @return parser expecting the reader to be positioned at the first character of a value.
+     */
+    StreamParser compile();
+
+    public static Schema integer() {
+        return () -> new NumberNode(false);
+    }
+
+    public static Schema number() {
+        return () -> new NumberNode(true);
+    }
+
+    public static Schema string() {
+        return StringNode::new;
+    }
+
+    public static Schema bool() {
+        return BoolNode::new;
+    }
+
+    public static Schema any() {
+        return () -> StreamParser::value;
+    }
+
+    public static Schema array(final Schema element) {
+        return () -> new ArrayNode(element.compile());
+    }
+
+    public static ObjectSchema object() {
+        return new ObjectSchema();
+    }
+
+    final static class ObjectSchema implements Schema {
+
+        private final List<String> names = new ArrayList<>();
+
+        private final List<Schema> schemas = new ArrayList<>();
+
+        ObjectSchema() {
+        }
+
+        public ObjectSchema field(final String name, final Schema schema) {
+            names.add(name);
+            schemas.add(schema);
+            return this;
+        }
+
+        @Override
+        public StreamParser compile() {
+            final StreamParser[] fields = new StreamParser[schemas.size()];
+            for (int i = 0; i < fields.length; i++)
+                fields[i] = schemas.get(i).compile();
+            return new ObjectNode(names.toArray(new String[0]), fields);
+        }
+    }
+
+    final static class Compiled implements Parser {
+
+        private final StreamParser root;
+
+        private final ParserLimits limits;
+
+        private final Instrumentation instrumentation;
+
+        Compiled(final Schema schema, final ParserLimits limits, final Instrumentation instrumentation) {
+            this.root = schema.compile();
+            this.limits = limits;
+            this.instrumentation = instrumentation;
+        }
+
+        @Override
+        public Either<Value, JSONParserException> parse(final String document) {
+            return StreamParser.document(document, limits, instrumentation, root);
+        }
+
+        @Override
+        public Either<Value, JSONParserException> parse(final InputStream stream) {
+            return StreamParser.document(stream::read, limits, instrumentation, root);
+        }
+
+        @Override
+        public Either<Value, JSONParserException> parse(final ReadableByteChannel channel) {
+            return StreamParser.document(ByteReader.Source.of(channel), limits, instrumentation, root);
+        }
+    }
+
+    final static class NumberNode implements StreamParser {
+
+        private final boolean fractional;
+
+        NumberNode(final boolean fractional) {
+            this.fractional = fractional;
+        }
+
+        @Override
+        public Value consume(final ByteReader reader) {
+            int ch = reader.peek();
+            final boolean negative = ch == '-';
+            if (negative) {
+                reader.next();
+                ch = reader.peek();
+            }
+            if (ch < '0' || ch > '9') {
+                if (negative)
+                    throw StreamParser.abort(reader, "digit expected after '-'", 0);
+                return StreamParser.value(reader);
+            }
+            final long negated = StreamParser.readDigits(reader, negative);
+            ch = reader.peek();
+            if (ch != '.' && ch != 'e' && ch != 'E' && (ch < '0' || ch > '9')) {
+                final long signed = negative ? negated : -negated;
+                return StreamParser.counted(reader, fractional ? Value.number(signed) : Value.integer(signed));
+            }
+            /* beyond a long or with a fraction, a double like the generic parser reads. */
+            return StreamParser.counted(reader, Value.number(StreamParser.readFraction(reader, negative, negated)));
+        }
+    }
+
+    final static class StringNode implements StreamParser {
+
+        @Override
+        public Value consume(final ByteReader reader) {
+            if (reader.peek() != '"')
+                return StreamParser.value(reader);
+            reader.next();
+            return StreamParser.counted(reader, Value.string(StreamParser.readString(reader, new StringBuilder())));
+        }
+    }
+
+    final static class BoolNode implements StreamParser {
+
+        @Override
+        public Value consume(final ByteReader reader) {
+            final int ch = reader.peek();
+            if (ch != 't' && ch != 'f')
+                return StreamParser.value(reader);
+            final String expected = ch == 't' ? "true" : "false";
+            for (int i = 0; i < expected.length(); i++) {
+                if (reader.peek() != expected.charAt(i))
+                    throw StreamParser.abort(reader, "true or false expected", 0);
+                reader.next();
+            }
+            return StreamParser.counted(reader, Value.bool(ch == 't'));
+        }
+    }
+
+    final static class ArrayNode implements StreamParser {
+
+        private final StreamParser element;
+
+        ArrayNode(final StreamParser element) {
+            this.element = element;
+        }
+
+        @Override
+        public Value consume(final ByteReader reader) {
+            if (reader.peek() != '[')
+                return StreamParser.value(reader);
+            reader.next();
+            reader.enter();
+            final List<Value> values = new ArrayList<>();
+            StreamParser.skipWhitespace(reader);
+            if (reader.peek() == ']') {
+                reader.next();
+            } else {
+                do {
+                    StreamParser.skipWhitespace(reader);
+                    values.add(element.consume(reader));
+                } while (StreamParser.separator(reader, ']'));
+            }
+            reader.leave();
+            return StreamParser.counted(reader, new Value.ArrayValue(values));
+        }
+    }
+
+    final static class ObjectNode implements StreamParser {
+
+        private final String[] names;
+
+        /* names as UTF-8, to be matched against the bytes of a stream. */
+        private final byte[][] encoded;
+
+        private final Value[] keys;
+
+        private final StreamParser[] fields;
+
+        private final Map<String, Integer> byName = new HashMap<>();
+
+        /* shapes[i] describes an object holding the first i declared fields. */
+        private final Value.Shape[] shapes;
+
+        ObjectNode(final String[] names, final StreamParser[] fields) {
+            this.names = names;
+            this.fields = fields;
+            this.keys = new Value[names.length];
+            this.encoded = new byte[names.length][];
+            this.shapes = new Value.Shape[names.length + 1];
+            shapes[0] = Value.Shape.ROOT;
+            for (int i = 0; i < names.length; i++) {
+                keys[i] = Value.string(names[i]);
+                encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+                byName.putIfAbsent(names[i], i);
+                shapes[i + 1] = shapes[i] == null ? null : shapes[i].with(keys[i]);
+            }
+        }
+
+        @Override
+        public Value consume(final ByteReader reader) {
+            if (reader.peek() != '{')
+                return StreamParser.value(reader);
+            reader.next();
+            reader.enter();
+            final int maxKeys = reader.limits().maxKeys();
+            int count = 0;
+
+            final Value[] slots = new Value[names.length];
+            int expected = 0;
+            Value.Shape.Builder unordered = null;
+
+            StreamParser.skipWhitespace(reader);
+            if (reader.peek() == '}') {
+                reader.next();
+            } else {
+                do {
+                    StreamParser.skipWhitespace(reader);
+                    if (reader.peek() != '"')
+                        throw StreamParser.unexpected(reader, "a key");
+                    if (++count > maxKeys)
+                        throw StreamParser.exceeded(reader, "object with more than " + maxKeys + " keys", 0);
+                    reader.next();
+
+                    final StringBuilder consumed = Scratch.chars();
+                    int index = -1;
+                    Value key;
+                    if (unordered == null && expected < names.length && matches(reader, expected, consumed)) {
+                        index = expected;
+                        key = keys[expected];
+                    } else {
+                        final String name = StreamParser.readString(reader, consumed);
+                        final Integer found = byName.get(name);
+                        if (found != null) {
+                            index = found;
+                            key = keys[found];
+                        } else {
+                            key = Value.string(name);
+                        }
+                    }
+
+                    StreamParser.skipWhitespace(reader);
+                    if (reader.peek() != ':')
+                        throw StreamParser.unexpected(reader, "':'");
+                    reader.next();
+                    StreamParser.skipWhitespace(reader);
+
+                    final Value value = index >= 0 ? fields[index].consume(reader) : StreamParser.value(reader);
+                    if (unordered == null && index == expected) {
+                        slots[expected ++] = value;
+                    } else {
+                        if (unordered == null) {
+                            unordered = Value.Shape.builder();
+                            for (int i = 0; i < expected; i++)
+                                unordered.put(keys[i], slots[i]);
+                        }
+                        unordered.put(key, value);
+                    }
+                } while (StreamParser.separator(reader, '}'));
+            }
+            reader.leave();
+
+            if (unordered != null)
+                return StreamParser.counted(reader, unordered.build());
+            if (shapes[expected] == null) {
+                final Value.Shape.Builder bld = Value.Shape.builder();
+                for (int i = 0; i < expected; i++)
+                    bld.put(keys[i], slots[i]);
+                return StreamParser.counted(reader, bld.build());
+            }
+            return StreamParser.counted(reader,
+                Value.json(shapes[expected], expected == slots.length ? slots : Arrays.copyOf(slots, expected)));
+        }
+
+        /**
+         * consumes the key at the cursor for as long as it matches the name of field, comparing
+         * bytes with the UTF-8 of the name when the reader reads bytes.
+         * @return true if the key is the name, closing quote consumed; otherwise the part
+         * consumed is appended to consumed.
+         */
+        private boolean matches(final ByteReader reader, final int field, final StringBuilder consumed) {
+            if (!reader.utf8()) {
+                final String name = names[field];
+                int i = 0;
+                while (i < name.length() && reader.peek() == name.charAt(i) && reader.peek() != '\\') {
+                    reader.next();
+                    i ++;
+                }
+                if (i == name.length() && reader.peek() == '"') {
+                    reader.next();
+                    return true;
+                }
+                consumed.append(name, 0, i);
+                return false;
+            }
+            final byte[] name = encoded[field];
+            /* bytes of the name consumed, and of them the whole characters. */
+            int i = 0;
+            int whole = 0;
+            while (i < name.length && reader.peek() == (name[i] & 0xFF) && reader.peek() != '\\') {
+                reader.next();
+                i ++;
+                if (i == name.length || (name[i] & 0xC0) != 0x80)
+                    whole = i;
+            }
+            if (i == name.length && reader.peek() == '"') {
+                reader.next();
+                return true;
+            }
+            consumed.append(new String(name, 0, whole, StandardCharsets.UTF_8));
+            if (i > whole) {
+                /* the key parts from the name within a character; the rest of it is read. */
+                int bits = 0;
+                for (int j = whole + 1; j < i; j++)
+                    bits = bits << 6 | name[j] & 0x3F;
+                consumed.appendCodePoint(StreamParser.readUtf8(reader, name[whole] & 0xFF, bits, i - whole - 1));
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.senthilganeshs.parser.json;
+
+/**
+ * Mutable state reused across parses. Parsers, generators and their singletons hold no
+ * mutable state of their own and can be shared freely between threads; anything that is
+ * worth reusing lives here, confined to one thread. A parse started from within a callback
+ * of another parse on the same thread gets a fresh instance instead of the busy one.
+ *
+ * <p>Java 21 runtimes load the variant under {@code src/main/java21}, which keeps virtual
+ * threads off the thread locals.
+ */
+final class Scratch {
+
+    private static final ThreadLocal<Scratch> LOCAL = ThreadLocal.withInitial(Scratch::new);
+
+    private static final int MAX_CHARS = 1 << 16;
+
+    final byte[] buf = new byte[StreamParser.ByteReader.StreamByteReader.BUF_SIZE];
+
+    private StringBuilder chars = new StringBuilder(64);
+
+    private boolean busy;
+
+    static Scratch acquire() {
+        final Scratch local = LOCAL.get();
+        if (local.busy)
+            return new Scratch();
+        local.busy = true;
+        return local;
+    }
+
+    void release() {
+        busy = false;
+    }
+
+    /**
+     * @return the calling thread's empty character buffer. Callers must not hold on to it
+     * past a call that can start another parse.
+     */
+    static StringBuilder chars() {
+        final Scratch local = LOCAL.get();
+        if (local.chars.capacity() > MAX_CHARS)
+            local.chars = new StringBuilder(64);
+        local.chars.setLength(0);
+        return local.chars;
+    }
+}
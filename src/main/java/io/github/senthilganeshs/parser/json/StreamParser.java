@@ -3,17 +3,18 @@ package io.github.senthilganeshs.parser.json;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
 import io.github.senthilganeshs.parser.json.Parser.Value;
 
 public interface StreamParser {
@@ -21,57 +22,202 @@ public interface StreamParser {
     Value consume (final ByteReader reader);
     
     
+    static Parser STREAM_PARSER = new Parser2(ParserLimits.defaults(), Instrumentation.NONE);
+    
     public static Parser streamParser() {
-         return new Parser2();
+         return STREAM_PARSER;
     }
     
     final static class Parser2 implements Parser {
-        Parser2 () {
+        
+        private final ParserLimits limits;
+        
+        private final Instrumentation instrumentation;
+        
+        Parser2 (final ParserLimits limits, final Instrumentation instrumentation) {
+            this.limits = limits;
+            this.instrumentation = instrumentation;
         }
 
         @Override
         public Either<Value, JSONParserException> parse(final String document) {
-
-            if (document == null || document.isEmpty()) { return Either.fail(new
-                JSONParserException("empty json")); }
-
-            final ByteReader reader = new ByteReader.StringByteReader(document); return
-                Either.succ(new StreamParser() {
-                    private boolean notEscapeChar(final char ch) {
-                        return !escapeChar(ch);
-                    }
-                    @Override 
-                    public Value consume(final ByteReader reader) { 
-                        final AtomicReference<Value> val = new AtomicReference<>();
-                        reader.skipAll(Character::isWhitespace); //skip leading whitespace.
-                        skipEscapeChars(reader);
-                        reader.read(this::notEscapeChar, ch -> val.set(all(ch).consume(reader))); 
-                        return val.get(); 
-                     }
-                }.consume(reader));
+            return document(document, limits, instrumentation, StreamParser::value);
         }
         
         @Override
         public Either<Value, JSONParserException> parse (final InputStream stream) {
-            final ByteReader reader = new ByteReader.StreamByteReader(stream);
-            return Either.succ(new StreamParser() {
-                private boolean notEscapeChar(final char ch) {
-                    return !escapeChar(ch);
-                }
-                @Override
-                public Value consume(final ByteReader reader) {
-                    final AtomicReference<Value> val = new AtomicReference<>();
-                    reader.skipAll(Character::isWhitespace); //skip leading whitespace.
-                    skipEscapeChars(reader);
-                    reader.read(this::notEscapeChar, ch -> val.set(all(ch).consume(reader)));
-                    return val.get();
-                }
-            }.consume(reader));
-        }       
+            return document(stream::read, limits, instrumentation, StreamParser::value);
+        }
+        
+        @Override
+        public Either<Value, JSONParserException> parse (final ReadableByteChannel channel) {
+            return document(ByteReader.Source.of(channel), limits, instrumentation, StreamParser::value);
+        }
+    }
+    
+    static Either<Value, JSONParserException> document(final String document, final ParserLimits limits,
+        final Instrumentation instrumentation, final StreamParser root) {
+        if (instrumentation == Instrumentation.NONE)
+            return document(document, limits, root);
+        final long start = System.nanoTime();
+        final ByteReader[] counted = {null};
+        return report(instrumentation, document(document, limits, counting(root, counted)), start,
+            document == null ? 0 : Math.min(document.length(), limits.maxDocumentSize()), 0, counted[0]);
     }
     
-    static boolean escapeChar(final char ch) {
-        return (ch == '\b' || ch == '\f' || ch == '\n' || ch == '\r' || ch == '\t'  || ch =='\\');
+    static Either<Value, JSONParserException> document(final ByteReader.Source source, final ParserLimits limits,
+        final Instrumentation instrumentation, final StreamParser root) {
+        if (instrumentation == Instrumentation.NONE)
+            return document(source, limits, root);
+        final long start = System.nanoTime();
+        final long[] read = {0, 0};
+        final ByteReader[] counted = {null};
+        final Either<Value, JSONParserException> result = document((buf, off, len) -> {
+            final int n = source.read(buf, off, len);
+            if (n > 0) {
+                read[0] += n;
+                read[1] ++;
+            }
+            return n;
+        }, limits, counting(root, counted));
+        return report(instrumentation, result, start, read[0], read[1], counted[0]);
+    }
+    
+    /**
+     * @return root that has the reader take a census while it parses, and keeps the reader in counted.
+     */
+    static StreamParser counting(final StreamParser root, final ByteReader[] counted) {
+        return reader -> {
+            counted[0] = reader;
+            reader.count();
+            return root.consume(reader);
+        };
+    }
+    
+    /**
+     * hands the outcome of a parse that began at start to instrumentation, with the census
+     * the reader took while parsing.
+     */
+    static Either<Value, JSONParserException> report(final Instrumentation instrumentation,
+        final Either<Value, JSONParserException> result, final long start, final long bytes, final long refills,
+        final ByteReader reader) {
+        return result.ifSuccess(value -> instrumentation.parsed(bytes, System.nanoTime() - start, refills,
+            reader.deepest(), reader.census()))
+        .ifFailure(e -> instrumentation.failed(e.kind(), bytes, System.nanoTime() - start));
+    }
+    
+    static Either<Value, JSONParserException> document(final String document, final ParserLimits limits,
+        final StreamParser root) {
+        if (document == null)
+            return Either.fail(new JSONParserException("empty document"));
+        if (document.length() > limits.maxDocumentSize())
+            return Either.fail(JSONParserException.at("document larger than " + limits.maxDocumentSize() + " characters",
+                document, (int) limits.maxDocumentSize()).limit());
+        /* no byte buffer is read, but the character buffer comes with the scratch space. */
+        final Scratch scratch = Scratch.acquire();
+        try {
+            return document(new ByteReader.StringByteReader(document, limits), root);
+        } finally {
+            scratch.release();
+        }
+    }
+    
+    static Either<Value, JSONParserException> document(final ByteReader.Source source, final ParserLimits limits,
+        final StreamParser root) {
+        /* the reader sees a failed read as the end of the document; the cause is kept here. */
+        final IOException[] broken = {null};
+        final ByteReader.Source guarded = (buf, off, len) -> {
+            try {
+                return source.read(buf, off, len);
+            } catch (final IOException e) {
+                broken[0] = e;
+                throw e;
+            }
+        };
+        Either<Value, JSONParserException> result;
+        try {
+            result = withReader(guarded, limits, reader -> document(reader, root));
+        } catch (final Abort e) {
+            result = Either.fail(e.failure);
+        }
+        return broken[0] == null ? result : Either.fail(new JSONParserException(broken[0]));
+    }
+    
+    /**
+     * parses exactly one value with root, surrounded by nothing but whitespace.
+     */
+    static Either<Value, JSONParserException> document(final ByteReader reader, final StreamParser root) {
+        try {
+            skipWhitespace(reader);
+            if (reader.peek() == -1)
+                return Either.fail(reader.error("empty document", 0));
+            final Value value = root.consume(reader);
+            skipWhitespace(reader);
+            if (reader.peek() != -1)
+                return Either.fail(reader.error("unexpected '" + (char) reader.peek() + "' after document", 0));
+            return Either.succ(value);
+        } catch (final Abort e) {
+            return Either.fail(e.failure);
+        } catch (final NumberFormatException e) {
+            return Either.fail(reader.error("malformed number", 0));
+        }
+    }
+    
+    /**
+     * unwinds a parse from within reader callbacks, see {@link #document}.
+     */
+    final static class Abort extends RuntimeException {
+        
+        private static final long serialVersionUID = 1L;
+        
+        final JSONParserException failure;
+        
+        Abort(final JSONParserException failure) {
+            super(failure.getMessage(), null, false, false);
+            this.failure = failure;
+        }
+    }
+    
+    /**
+     * @return failure back characters before the cursor, to be thrown.
+     */
+    static Abort abort(final ByteReader reader, final String msg, final int back) {
+        return new Abort(reader.error(msg, back));
+    }
+    
+    /**
+     * @return limit failure back characters before the cursor, to be thrown.
+     */
+    static Abort exceeded(final ByteReader reader, final String msg, final int back) {
+        return new Abort(reader.error(msg, back).limit());
+    }
+    
+    /**
+     * @return failure at the cursor naming what was found instead of what was expected, to be thrown.
+     */
+    static Abort unexpected(final ByteReader reader, final String expected) {
+        final int ch = reader.peek();
+        return abort(reader, (ch == -1 ? "unexpected end of document" : "unexpected '" + (char) ch + "'")
+            + ", expected " + expected, 0);
+    }
+    
+    /**
+     * Parses the source with a reader backed by a reusable scratch buffer.
+     */
+    static <T> T withReader(final ByteReader.Source source, final Function<ByteReader, T> fn) {
+        return withReader(source, ParserLimits.NONE, fn);
+    }
+    
+    /**
+     * @throws Abort if the first read already exceeds the document size limit.
+     */
+    static <T> T withReader(final ByteReader.Source source, final ParserLimits limits, final Function<ByteReader, T> fn) {
+        final Scratch scratch = Scratch.acquire();
+        try {
+            return fn.apply(new ByteReader.StreamByteReader(source, scratch.buf, limits));
+        } finally {
+            scratch.release();
+        }
     }
     
     interface ByteReader {
@@ -82,116 +228,305 @@ public interface StreamParser {
         
         ByteReader skipAll (final Predicate<Character> cond);
         
+        /**
+         * @return character at the cursor without consuming it, -1 at end of document.
+         */
+        int peek();
+        
+        /**
+         * consumes the character at the cursor (if any).
+         */
+        ByteReader next();
+        
+        /**
+         * @return failure back characters before the cursor. The line and column are
+         * worked out from the cursor only here, so reading pays nothing for them.
+         */
+        JSONParserException error(final String msg, final int back);
+        
+        /**
+         * @return limits of the document being read.
+         */
+        ParserLimits limits();
+        
+        /**
+         * @return true if peek returns bytes of UTF-8 rather than UTF-16 characters.
+         */
+        boolean utf8();
+        
+        /**
+         * opens a container whose bracket was just consumed.
+         * @throws Abort when nested deeper than the limits allow.
+         */
+        void enter();
+        
+        /**
+         * closes the innermost container.
+         */
+        void leave();
+        
+        /**
+         * starts a census of the values read from here on, for an instrumented parse.
+         */
+        void count();
+        
+        /**
+         * @return values read since {@link #count()} by {@link Instrumentation.Kind} ordinal,
+         * null if there is no census.
+         */
+        int[] census();
+        
+        /**
+         * @return deepest nesting since {@link #count()}.
+         */
+        int deepest();
+        
+        /**
+         * Blocking source of bytes, {@code InputStream::read} or a channel through {@link #of}.
+         */
+        @FunctionalInterface
+        interface Source {
+            
+            int read(final byte[] buf, final int offset, final int length) throws IOException;
+            
+            /**
+             * reads the channel directly instead of through {@code Channels.newInputStream}, 
+             * whose reads are synchronized. The channel must be in blocking mode.
+             */
+            static Source of(final ReadableByteChannel channel) {
+                return (buf, offset, length) -> channel.read(ByteBuffer.wrap(buf, offset, length));
+            }
+        }
+        
         final static class StreamByteReader implements ByteReader {
 
-            private final InputStream reader;
+            private final Source reader;
             
             private final byte[] buf;
             
-            private final int BUF_SIZE = 8192;
+            static final int BUF_SIZE = 8192;
             
             private int last;
             
             private int cursor;
+            
+            /* bytes of earlier buffers, the newlines among them and where the last line began. */
+            private long base;
+            
+            private long lines = 1;
+            
+            private long lineStart;
+            
+            /* valid bytes in buf, kept at the end of the document for the error context. */
+            private int filled;
+            
+            private final ParserLimits limits;
+            
+            private int depth;
+            
+            private int deepest;
+            
+            private int[] census;
+            
+            /* offset the document in progress may not reach, and last before it was cut there. */
+            private long limitAt;
+            
+            private int held;
+            
+            private boolean clamped;
 
             public StreamByteReader(final InputStream is) {
+                this(is::read, new byte[BUF_SIZE], ParserLimits.NONE);
+            }
+
+            StreamByteReader(final Source is, final byte[] buf, final ParserLimits limits) {
                 this.reader = is;
-                this.buf = new byte[BUF_SIZE];
+                this.buf = buf;
+                this.limits = limits;
                 this.cursor = 0;
+                this.limitAt = limits.maxDocumentSize();
                 try {
-                    this.last = is.read(buf, 0 , BUF_SIZE);
+                    this.last = is.read(buf, 0 , buf.length);
                 } catch (IOException e) {
                     this.last = -1;
                 }
+                this.filled = Math.max(last, 0);
+                checkSize();
+            }
+            
+            /**
+             * cuts the buffer at the size limit of the document; reading up to the cut fails.
+             */
+            private void checkSize() {
+                if (last == -1 || base + last <= limitAt)
+                    return;
+                final int stop = (int) (limitAt - base);
+                if (stop <= cursor) {
+                    cursor = stop;
+                    throw exceeded(this, "document larger than " + limits.maxDocumentSize() + " bytes", 0);
+                }
+                held = last;
+                last = stop;
+                clamped = true;
+            }
+            
+            /**
+             * starts the size limit of the next document at the cursor, for readers of
+             * several documents in a row.
+             */
+            void begin() {
+                final long position = position();
+                final long max = limits.maxDocumentSize();
+                limitAt = max > Long.MAX_VALUE - position ? Long.MAX_VALUE : position + max;
+                if (clamped) {
+                    clamped = false;
+                    last = held;
+                    checkSize();
+                }
+            }
+            
+            /**
+             * @return bytes consumed so far.
+             */
+            long position() {
+                return base + cursor;
+            }
+            
+            private void advance() {
+                if (++cursor < last)
+                    return;
+                if (clamped)
+                    throw exceeded(this, "document larger than " + limits.maxDocumentSize() + " bytes", 0);
+                for (int i = 0; i < last; i++) {
+                    if (buf[i] == '\n') {
+                        lines ++;
+                        lineStart = base + i + 1;
+                    }
+                }
+                base += last;
+                cursor = 0;
+                try {
+                    last = reader.read(buf, 0, buf.length);
+                } catch (IOException e) {
+                    last = -1;
+                }
+                if (last != -1)
+                    filled = last;
+                checkSize();
             }
 
             @Override
             public ByteReader read(final Predicate<Character> cond, final Consumer<Character> action) {
                 while (last != -1) {
-                    if (cond.test((char) buf[cursor])) {
-                        ((Consumer<Character>) ch -> {
-                            try {
-                                if (cursor == last -1) {
-                                    if (last == BUF_SIZE) {
-                                        cursor = 0;
-                                        last = reader.read(buf, 0, BUF_SIZE);                                        
-                                    } else {
-                                        cursor = last;
-                                        last += reader.read(buf, last, BUF_SIZE - last);
-                                    }                                    
-                                } else {
-                                    cursor ++;
-                                }
-                            } catch (IOException e) {
-                                last = -1;
-                            }
-                            action.accept(ch);
-                        }).accept((char) buf[cursor]);
-                    } else {
+                    final char ch = (char) (buf[cursor] & 0xFF);
+                    if (!cond.test(ch))
                         break;
-                    }
+                    advance();
+                    action.accept(ch);
                 }
                 return this;
             }
 
             @Override
             public ByteReader skipOne(final Predicate<Character> cond) {
-                if (last != -1 && cursor < last && cond.test((char) buf[cursor])) {
-                    try {
-                        if (cursor == last -1) {
-                            if (last == BUF_SIZE) {
-                                cursor = 0;
-                                last = reader.read(buf, 0, BUF_SIZE);                                
-                            } else {
-                                cursor = last;
-                                last += reader.read(buf, last, BUF_SIZE - last);
-                            }                            
-                        } else {
-                            cursor ++;
-                        }
-                    } catch (IOException e) {
-                        last = -1;
-                    }                
+                if (last != -1 && cond.test((char) (buf[cursor] & 0xFF))) {
+                    advance();
                 }
                 return this;
             }
 
             @Override
             public ByteReader skipAll(final Predicate<Character> cond) {
-                try {
-                    while (last != -1) {
-                        if (cond.test((char) buf[cursor])) {
-                            if (cursor == last -1) {
-                                if (last == BUF_SIZE) {
-                                    cursor = 0;
-                                    last = reader.read(buf, 0, BUF_SIZE);                                    
-                                } else {
-                                    cursor = last;
-                                    last += reader.read(buf, last, BUF_SIZE - last);                                    
-                                }                                
-                            } else {
-                                cursor ++;
-                            }                
-                        } else {
-                            break;
-                        }
-                    }
-                }
-                catch(IOException e) {
-                    last = -1;
+                while (last != -1 && cond.test((char) (buf[cursor] & 0xFF))) {
+                    advance();
                 }
                 return this;
             }
             
+            @Override
+            public int peek() {
+                return last == -1 ? -1 : buf[cursor] & 0xFF;
+            }
+            
+            @Override
+            public ByteReader next() {
+                if (last != -1)
+                    advance();
+                return this;
+            }
+            
+            @Override
+            public JSONParserException error(final String msg, final int back) {
+                final int at = last == -1 ? filled - back : cursor - back;
+                final long offset = base + (last == -1 ? 0 : cursor) - back;
+                long line = lines;
+                long start = lineStart;
+                for (int i = last == -1 ? filled : 0; i < at; i++) {
+                    if (buf[i] == '\n') {
+                        line ++;
+                        start = base + i + 1;
+                    }
+                }
+                return new JSONParserException(msg, offset, line, offset - start + 1,
+                    JSONParserException.context(buf, filled, Math.max(at, 0)));
+            }
+            
+            @Override
+            public ParserLimits limits() {
+                return limits;
+            }
+            
+            @Override
+            public boolean utf8() {
+                return true;
+            }
+            
+            @Override
+            public void enter() {
+                if (++depth > limits.maxDepth())
+                    throw exceeded(this, "nested deeper than " + limits.maxDepth() + " levels", 1);
+                if (depth > deepest)
+                    deepest = depth;
+            }
+            
+            @Override
+            public void leave() {
+                depth --;
+            }
+            
+            @Override
+            public void count() {
+                census = new int[Instrumentation.Kind.values().length];
+                deepest = depth;
+            }
+            
+            @Override
+            public int[] census() {
+                return census;
+            }
+            
+            @Override
+            public int deepest() {
+                return deepest;
+            }
         }
         
         final static class StringByteReader implements ByteReader {
 
             private final String document;
+            private final ParserLimits limits;
             private int cursor;
+            private int depth;
+            private int deepest;
+            private int[] census;
 
             StringByteReader(final String document) {
+                this(document, ParserLimits.NONE);
+            }
+
+            StringByteReader(final String document, final ParserLimits limits) {
                 this.document = document;
+                this.limits = limits;
                 this.cursor = 0;
             }
             
@@ -218,17 +553,70 @@ public interface StreamParser {
             @Override
             public ByteReader read(final Predicate<Character> cond, final Consumer<Character> action) {
                 while (cursor < document.length()) {
-                    if (cond.test(document.charAt(cursor))) {
-                        ((Consumer<Character>) ch -> {
-                            cursor ++;
-                            action.accept(ch);
-                        }).accept(document.charAt(cursor));
-                    } else {
+                    final char ch = document.charAt(cursor);
+                    if (!cond.test(ch))
                         break;
-                    }
+                    cursor ++;
+                    action.accept(ch);
                 }
                 return this;
             }
+            
+            @Override
+            public int peek() {
+                return cursor < document.length() ? document.charAt(cursor) : -1;
+            }
+            
+            @Override
+            public ByteReader next() {
+                if (cursor < document.length())
+                    cursor ++;
+                return this;
+            }
+            
+            @Override
+            public JSONParserException error(final String msg, final int back) {
+                return JSONParserException.at(msg, document, Math.max(cursor - back, 0));
+            }
+            
+            @Override
+            public ParserLimits limits() {
+                return limits;
+            }
+            
+            @Override
+            public boolean utf8() {
+                return false;
+            }
+            
+            @Override
+            public void enter() {
+                if (++depth > limits.maxDepth())
+                    throw exceeded(this, "nested deeper than " + limits.maxDepth() + " levels", 1);
+                if (depth > deepest)
+                    deepest = depth;
+            }
+            
+            @Override
+            public void leave() {
+                depth --;
+            }
+            
+            @Override
+            public void count() {
+                census = new int[Instrumentation.Kind.values().length];
+                deepest = depth;
+            }
+            
+            @Override
+            public int[] census() {
+                return census;
+            }
+            
+            @Override
+            public int deepest() {
+                return deepest;
+            }
         }
     }
     
@@ -252,7 +640,9 @@ public interface StreamParser {
     
     static StreamParser STRING_PARSER = new StringParser();
     
-    static StreamParser BOOLEAN_PARSER = new BooleanParser();
+    static StreamParser TRUE_PARSER = new BooleanParser(true);
+    
+    static StreamParser FALSE_PARSER = new BooleanParser(false);
     
     static StreamParser ARRAY_PARSER = new ArrayParser();
     
@@ -269,23 +659,32 @@ public interface StreamParser {
         
         @Override
         public Value consume(final ByteReader reader) {
+            if (first != '-' && !Character.isDigit(first))
+                throw abort(reader, "unexpected '" + first + "', expected a value", 1);
             final StringBuilder bld = new StringBuilder();
             bld.append(first);
-            final AtomicBoolean isNumber = new AtomicBoolean(false);
-            reader.read(
-                (ch -> Character.isDigit(ch) || ch =='.' || ch == 'e' || ch == '+' || ch =='-'),
-                ch -> {
-                    if (Character.isDigit(ch)) {
-                        bld.append(ch);
-                    } else if (ch == '.' || ch == 'e' ||ch == '+' || ch == '-') {
-                        isNumber.set(true);
-                        bld.append(ch);
-                    }
-                });
-            if (isNumber.get()) {
-                return Value.number(Double.parseDouble(bld.toString()));
-            } else 
-                return Value.integer(Long.parseLong(bld.toString()));
+            int lead = first;
+            if (first == '-') {
+                lead = reader.peek();
+                if (lead < '0' || lead > '9')
+                    throw abort(reader, "digit expected after '-'", 0);
+                bld.append((char) lead);
+                reader.next();
+            }
+            /* no digits may follow a leading zero. */
+            if (lead != '0')
+                for (int ch; (ch = reader.peek()) >= '0' && ch <= '9'; reader.next())
+                    bld.append((char) ch);
+            final boolean fraction = appendFraction(reader, bld);
+            final String literal = bld.toString();
+            if (!fraction) {
+                try {
+                    return Value.integer(Long.parseLong(literal));
+                } catch (final NumberFormatException e) {
+                    // beyond a long, kept as a double like the simple parser does.
+                }
+            }
+            return Value.number(Double.parseDouble(literal));
         }        
     }
     
@@ -293,7 +692,7 @@ public interface StreamParser {
         if (ch =='"') {
             return STRING_PARSER;
         } else if (ch == 't' || ch == 'f') {
-            return BOOLEAN_PARSER;
+            return ch == 't' ? TRUE_PARSER : FALSE_PARSER;
         } else if (ch == 'n') {
             return NIL_PARSER;
         } else 
@@ -304,36 +703,362 @@ public interface StreamParser {
         return primitive (ch).consume(reader);
     }
     
-    static void skipEscapeChars(final ByteReader reader) {
-        //FIXME: need to skip \/ \u0000
-        reader.skipAll(StreamParser::escapeChar);
-        
+    static void skipWhitespace(final ByteReader reader) {
+        for (int ch; (ch = reader.peek()) == ' ' || ch == '\n' || ch == '\r' || ch == '\t'; )
+            reader.next();
+    }
+
+    /**
+     * parses any value starting at the cursor with the generic parsers.
+     */
+    static Value value(final ByteReader reader) {
+        final int ch = reader.peek();
+        if (ch == -1 || "{[\"tfn-0123456789".indexOf(ch) < 0)
+            throw unexpected(reader, "a value");
+        reader.next();
+        return counted(reader, StreamParser.all((char) ch).consume(reader));
+    }
+
+    /**
+     * adds value to the census of the reader, if it takes one.
+     * @return value.
+     */
+    static Value counted(final ByteReader reader, final Value value) {
+        final int[] census = reader.census();
+        if (census != null)
+            census[Values.kind(value).ordinal()] ++;
+        return value;
+    }
+
+    /**
+     * reads the remainder of a string whose opening quote is already consumed, decoding
+     * escapes and, from streams, UTF-8.
+     * @throws Abort on a malformed or unterminated string.
+     */
+    static String readString(final ByteReader reader, final StringBuilder bld) {
+        final int max = reader.limits().maxStringLength();
+        final boolean utf8 = reader.utf8();
+        int ch;
+        while ((ch = reader.peek()) != '"') {
+            if (ch == -1)
+                throw abort(reader, "unterminated string", 0);
+            if (bld.length() >= max)
+                throw exceeded(reader, "string longer than " + max + " characters", 0);
+            reader.next();
+            if (ch == '\\')
+                readEscape(reader, bld);
+            else if (ch < 0x20)
+                throw abort(reader, "unexpected control character, expected an escape", 1);
+            else if (ch >= 0x80 && utf8)
+                bld.appendCodePoint(readUtf8(reader, ch));
+            else
+                bld.append((char) ch);
+        }
+        reader.next();
+        return bld.toString();
+    }
+    
+    static void readEscape(final ByteReader reader, final StringBuilder bld) {
+        final int esc = reader.peek();
+        reader.next();
+        switch (esc) {
+        case '"': bld.append('"'); break;
+        case '\\': bld.append('\\'); break;
+        case '/': bld.append('/'); break;
+        case 'b': bld.append('\b'); break;
+        case 'f': bld.append('\f'); break;
+        case 'n': bld.append('\n'); break;
+        case 'r': bld.append('\r'); break;
+        case 't': bld.append('\t'); break;
+        case 'u':
+            int code = 0;
+            for (int i = 0; i < 4; i++) {
+                final int hex = reader.peek();
+                /* Character.digit also takes fullwidth and other non-ASCII digits. */
+                final int digit = hex >= 0 && hex < 0x80 ? Character.digit(hex, 16) : -1;
+                if (digit < 0)
+                    throw abort(reader, "expected a hex digit", 0);
+                code = (code << 4) + digit;
+                reader.next();
+            }
+            bld.append((char) code);
+            break;
+        case -1:
+            throw abort(reader, "unterminated string", 0);
+        default:
+            throw abort(reader, "unexpected '" + (char) esc + "', expected an escape character", 1);
+        }
+    }
+    
+    /**
+     * @return code point of the UTF-8 sequence whose lead byte was just consumed.
+     */
+    static int readUtf8(final ByteReader reader, final int lead) {
+        return readUtf8(reader, lead, 0, 0);
+    }
+    
+    /**
+     * @param bits payload of the first have continuation bytes, which were consumed with the lead byte.
+     * @return code point of the UTF-8 sequence.
+     */
+    static int readUtf8(final ByteReader reader, final int lead, final int bits, final int have) {
+        final int n = lead >= 0xF0 ? 3 : lead >= 0xE0 ? 2 : lead >= 0xC2 ? 1 : 0;
+        if (n == 0 || lead > 0xF4)
+            throw abort(reader, "malformed UTF-8", 1);
+        int code = (lead & (0x3F >> n)) << 6 * have | bits;
+        for (int i = have; i < n; i++) {
+            final int ch = reader.peek();
+            if (ch < 0x80 || ch > 0xBF)
+                throw abort(reader, "malformed UTF-8", 0);
+            code = (code << 6) | (ch & 0x3F);
+            reader.next();
+        }
+        if (n == 2 && (code < 0x800 || (code >= 0xD800 && code <= 0xDFFF)) || n == 3 && (code < 0x10000 || code > 0x10FFFF))
+            throw abort(reader, "malformed UTF-8", n + 1);
+        return code;
+    }
+
+    /**
+     * skips the value starting at the cursor without materializing containers, checking
+     * it against the grammar as strictly as {@link #value} would.
+     * @throws Abort if the value is malformed or there is none at the cursor.
+     */
+    static void skipValue(final ByteReader reader) {
+        final int ch = reader.peek();
+        switch (ch) {
+        case '{':
+            reader.next();
+            reader.enter();
+            skipWhitespace(reader);
+            if (reader.peek() == '}') {
+                reader.next();
+            } else {
+                do {
+                    skipWhitespace(reader);
+                    if (reader.peek() != '"')
+                        throw unexpected(reader, "a key");
+                    reader.next();
+                    readString(reader, Scratch.chars());
+                    skipWhitespace(reader);
+                    if (reader.peek() != ':')
+                        throw unexpected(reader, "':'");
+                    reader.next();
+                    skipWhitespace(reader);
+                    skipValue(reader);
+                } while (separator(reader, '}'));
+            }
+            reader.leave();
+            return;
+        case '[':
+            reader.next();
+            reader.enter();
+            skipWhitespace(reader);
+            if (reader.peek() == ']') {
+                reader.next();
+            } else {
+                do {
+                    skipWhitespace(reader);
+                    skipValue(reader);
+                } while (separator(reader, ']'));
+            }
+            reader.leave();
+            return;
+        case '"':
+            reader.next();
+            readString(reader, Scratch.chars());
+            return;
+        case 't':
+            skipLiteral(reader, "true");
+            return;
+        case 'f':
+            skipLiteral(reader, "false");
+            return;
+        case 'n':
+            skipLiteral(reader, "null");
+            return;
+        default:
+            if (ch != '-' && (ch < '0' || ch > '9'))
+                throw unexpected(reader, "a value");
+            readDouble(reader);
+        }
+    }
+    
+    static void skipLiteral(final ByteReader reader, final String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (reader.peek() != literal.charAt(i))
+                throw abort(reader, literal + " expected", 0);
+            reader.next();
+        }
+    }
+    
+    /**
+     * reads an integer literal at the cursor without boxing. A fraction or exponent is
+     * taken only if the value is still a whole number within a long, as 2.0 or 1e3 are.
+     * @throws Abort on a literal that is no such number.
+     */
+    static long readLong(final ByteReader reader) {
+        final boolean negative = sign(reader);
+        final long negated = readDigits(reader, negative);
+        final int ch = reader.peek();
+        if ((ch >= '0' && ch <= '9') || ch == '.' || ch == 'e' || ch == 'E') {
+            final String literal = readLiteral(reader, negative, negated);
+            try {
+                return new BigDecimal(literal).longValueExact();
+            } catch (final ArithmeticException | NumberFormatException e) {
+                throw abort(reader, "integer expected, found " + literal, literal.length());
+            }
+        }
+        return negative ? negated : -negated;
+    }
+    
+    /**
+     * reads a number literal at the cursor without boxing.
+     */
+    static double readDouble(final ByteReader reader) {
+        final boolean negative = sign(reader);
+        final long negated = readDigits(reader, negative);
+        final int ch = reader.peek();
+        if ((ch >= '0' && ch <= '9') || ch == '.' || ch == 'e' || ch == 'E')
+            return readFraction(reader, negative, negated);
+        return negative ? negated : -(double) negated;
+    }
+    
+    /**
+     * consumes the '-' of a number literal.
+     * @return true if the number is negative.
+     * @throws Abort if no digit follows.
+     */
+    static boolean sign(final ByteReader reader) {
+        final boolean negative = reader.peek() == '-';
+        if (negative)
+            reader.next();
+        if (reader.peek() < '0' || reader.peek() > '9')
+            throw abort(reader, "digit expected" + (negative ? " after '-'" : ""), 0);
+        return negative;
+    }
+    
+    /**
+     * reads the digits at the cursor for as long as they fit a long of the given sign. They
+     * are added up below zero so that Long.MIN_VALUE can be reached.
+     * @return minus the value of the digits read.
+     */
+    static long readDigits(final ByteReader reader, final boolean negative) {
+        /* no digits may follow a leading zero. */
+        if (reader.peek() == '0') {
+            reader.next();
+            return 0;
+        }
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long negated = 0;
+        int ch;
+        while ((ch = reader.peek()) >= '0' && ch <= '9') {
+            final int digit = ch - '0';
+            if (negated < (limit + digit) / 10)
+                break;
+            negated = negated * 10 - digit;
+            reader.next();
+        }
+        return negated;
+    }
+    
+    /**
+     * reads the rest of a number literal whose leading digits were read by {@link #readDigits}.
+     */
+    static double readFraction(final ByteReader reader, final boolean negative, final long negated) {
+        return Double.parseDouble(readLiteral(reader, negative, negated));
+    }
+    
+    /**
+     * @return the whole number literal whose leading digits were read by {@link #readDigits},
+     * with the rest read from the cursor.
+     * @throws Abort on a malformed fraction or exponent.
+     */
+    static String readLiteral(final ByteReader reader, final boolean negative, final long negated) {
+        final StringBuilder bld = new StringBuilder(32);
+        if (negative)
+            bld.append('-');
+        final String digits = Long.toString(negated);
+        bld.append(digits, negated < 0 ? 1 : 0, digits.length());
+        /* the digits that did not fit a long; a leading zero stands alone. */
+        if (negated != 0)
+            for (int ch; (ch = reader.peek()) >= '0' && ch <= '9'; reader.next())
+                bld.append((char) ch);
+        appendFraction(reader, bld);
+        return bld.toString();
+    }
+    
+    /**
+     * appends the fraction and the exponent of a number literal at the cursor, where present.
+     * @return true if either was.
+     * @throws Abort if one of them has no digits.
+     */
+    static boolean appendFraction(final ByteReader reader, final StringBuilder bld) {
+        final int start = bld.length();
+        if (reader.peek() == '.') {
+            bld.append('.');
+            reader.next();
+            appendDigits(reader, bld);
+        }
+        final int ch = reader.peek();
+        if (ch == 'e' || ch == 'E') {
+            bld.append((char) ch);
+            reader.next();
+            final int sign = reader.peek();
+            if (sign == '+' || sign == '-') {
+                bld.append((char) sign);
+                reader.next();
+            }
+            appendDigits(reader, bld);
+        }
+        return bld.length() > start;
+    }
+    
+    /**
+     * appends one or more digits at the cursor.
+     * @throws Abort if there is none.
+     */
+    static void appendDigits(final ByteReader reader, final StringBuilder bld) {
+        int ch = reader.peek();
+        if (ch < '0' || ch > '9')
+            throw unexpected(reader, "a digit");
+        do {
+            bld.append((char) ch);
+            reader.next();
+        } while ((ch = reader.peek()) >= '0' && ch <= '9');
+    }
+    
+    /**
+     * consumes the ',' or the closing bracket after an element or member.
+     * @return true if another one follows.
+     * @throws Abort on anything else.
+     */
+    static boolean separator(final ByteReader reader, final char close) {
+        skipWhitespace(reader);
+        final int ch = reader.peek();
+        if (ch == ',' || ch == close) {
+            reader.next();
+            return ch == ',';
+        }
+        throw ch == -1 ? unexpected(reader, "'" + close + "'") : unexpected(reader, "',' or '" + close + "'");
     }
     
     final static class ArrayParser implements StreamParser {
 
         @Override
         public Value consume(final ByteReader reader) {
+            reader.enter();
             final List<Value> values = new ArrayList<>();
-            reader.skipAll(Character::isWhitespace);
-            
-            reader.read(ch -> ch != ']', ch -> {
-                if (Character.isWhitespace(ch)) {
-                    //skip whitespace
-                } else if (ch == ',') {
-                    //skip comma.
-                } else if (ch == '{') {                    
-                    values.add(JSON_PARSER.consume(reader));
-                } else if (ch == '[') {
-                    values.add(ARRAY_PARSER.consume(reader));                    
-                } else {
-                    values.add(primitive(ch, reader));
-                }
-            });
-            
-            reader.skipOne(ch -> ch == ']');
-            
-            return Value.arr(values);
+            skipWhitespace(reader);
+            if (reader.peek() == ']') {
+                reader.next();
+            } else {
+                do {
+                    skipWhitespace(reader);
+                    values.add(value(reader));
+                } while (separator(reader, ']'));
+            }
+            reader.leave();
+            return new Value.ArrayValue(values);
         }     
     }
     
@@ -341,67 +1066,39 @@ public interface StreamParser {
 
         @Override
         public Value consume(final ByteReader reader) {
-            final Map<Value, Value> map = new LinkedHashMap<>();
-            final AtomicBoolean isKey = new AtomicBoolean(true);
-            final AtomicReference<Value> key = new AtomicReference<>();
-            final AtomicReference<Value> value = new AtomicReference<>();
-            
-            reader.skipAll(Character::isWhitespace);
-            
-            reader.read(ch -> ch != '}', ch -> {
-               if (Character.isWhitespace(ch)) {
-                   //skip whitespace
-               } else if (ch == ':') {
-                   isKey.set(false);
-               } else if (ch == ',') {
-                   isKey.set(true);
-                   map.put(key.get(), value.get());
-               } else if (ch == '"') {
-                   if(isKey.get()) {
-                       key.set(primitive(ch, reader));
-                   } else {
-                       value.set(primitive(ch, reader));
-                   }
-               } else if (ch =='[') {
-                   if (!isKey.get()) {
-                       value.set(ARRAY_PARSER.consume(reader));
-                   } else {
-                       value.set(Value.err("array detected in place of key. Allowed types are [string]"));
-                   }
-               } else if (ch == '{') {
-                   if (!isKey.get()) {
-                       value.set(JSON_PARSER.consume(reader)); //FIXME: can avoid recursion by explicitly managing the stack.
-                   } else {
-                       //error. json at key position.
-                       key.set(Value.err("json detected in place of key. Allowed types are [string]"));
-                   }
-               } else {
-                   if (isKey.get()) {
-                       key.set(Value.err("key cannot be non string type."));
-                   } else {
-                       value.set(primitive(ch, reader));
-                   }
-               }                  
-            });
-            
-            map.put(key.get(), value.get());
-            
-            reader.skipOne(ch -> ch == '}'); //skip closing brace.
-            
-            return Value.json(map);
+            reader.enter();
+            final int maxKeys = reader.limits().maxKeys();
+            final Value.Shape.Builder map = Value.Shape.builder();
+            skipWhitespace(reader);
+            if (reader.peek() == '}') {
+                reader.next();
+            } else {
+                int keys = 0;
+                do {
+                    skipWhitespace(reader);
+                    if (reader.peek() != '"')
+                        throw unexpected(reader, "a key");
+                    if (++keys > maxKeys)
+                        throw exceeded(reader, "object with more than " + maxKeys + " keys", 0);
+                    reader.next();
+                    final Value key = Value.string(readString(reader, Scratch.chars()));
+                    skipWhitespace(reader);
+                    if (reader.peek() != ':')
+                        throw unexpected(reader, "':'");
+                    reader.next();
+                    skipWhitespace(reader);
+                    map.put(key, value(reader));
+                } while (separator(reader, '}'));
+            }
+            reader.leave();
+            return map.build();
         }
     }
     
     final static class StringParser implements StreamParser {
         @Override
         public Value consume(final ByteReader reader) {
-            final StringBuilder value = new StringBuilder();
-            reader.read(ch -> {
-                skipEscapeChars(reader);                
-                return ch != '"';
-            }, value::append);
-            reader.skipOne(ch -> ch == '"'); //skip one double quote
-            return Value.string(value.toString());
+            return Value.string(readString(reader, Scratch.chars()));
         }
     }
     
@@ -414,32 +1111,28 @@ public interface StreamParser {
         }        
     }
     
+    /**
+     * the rest of true or false, whose first letter is already consumed.
+     */
     final static class BooleanParser implements StreamParser {
+
+        private final boolean value;
+
+        private final String rest;
+
+        BooleanParser(final boolean value) {
+            this.value = value;
+            this.rest = value ? "rue" : "alse";
+        }
+
         @Override
         public Value consume(final ByteReader reader) {
-            final StringBuilder boolValue = new StringBuilder();
-            final AtomicInteger index = new AtomicInteger(-1);
-          
-            final StringBuilder expected = new StringBuilder();
-            
-            reader.read(ch -> {
-                if (expected.length() == 0) {
-                    if (ch == 'r') {
-                        boolValue.append('t');
-                        expected.append("rue");
-                    }else if (ch == 'a') {
-                        boolValue.append('f');
-                        expected.append("alse");
-                    }
-                }
-                index.incrementAndGet();
-
-                if ((index.get() < expected.length() && (ch == expected.charAt(index.get())))) {
-                    return true;
-                }
-                return false;
-            }, boolValue::append);
-            return Value.bool(Boolean.parseBoolean(boolValue.toString()));
+            for (int i = 0; i < rest.length(); i++) {
+                if (reader.peek() != rest.charAt(i))
+                    throw abort(reader, "true or false expected", 0);
+                reader.next();
+            }
+            return Value.bool(value);
         }
     }
     
@@ -467,8 +1160,8 @@ public interface StreamParser {
             
             reader.read(ch -> index.get() < 3 && allowed[index.getAndIncrement()] == ch, 
                 bld::append);
-            if (index.get() != 2) 
-                return Value.err("null is expected");
+            if (bld.length() != allowed.length)
+                throw abort(reader, "null is expected", 0);
             return Value.nil();
         }
     }
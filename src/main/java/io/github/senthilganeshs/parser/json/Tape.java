@@ -0,0 +1,816 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+import io.github.senthilganeshs.parser.json.StreamParser.ByteReader;
+
+/**
+ * A parsed document kept outside the heap, in direct or memory mapped buffers, and read
+ * through {@link Value} views that decode what they are asked for and nothing else. The
+ * heap holds the views in use, whatever the size of the document, so large reference data
+ * no longer lengthens garbage collection.
+ * <p>
+ * Values are laid out one after the other in document order. Arrays and objects end with a
+ * table of offsets to their elements, so {@link Value#isArrayAt} is constant time. Object
+ * tables are sorted by key, so {@link Value#isJSONKey} is a binary search. When a key repeats,
+ * the last value is kept, as the parsers do. Strings are stored as Latin-1 when they fit and
+ * as UTF-16 otherwise.
+ * <p>
+ * {@link #save} writes the tape as it is, and {@link #open} maps a saved tape without reading
+ * it, so startup does not depend on the document size. Tapes are immutable and safe to share
+ * between threads. A tape is released when it is no longer reachable. A mapped file must not
+ * be changed while it is open.
+ *
+ * <pre>
+ * Tape.parse(new FileInputStream("reference.json")).ifSuccess(tape -> tape.save(path));
+ * Tape.open(path).ifSuccess(tape -> tape.root().isJSONKey(Value.string("id"), System.out::println));
+ * </pre>
+ */
+public interface Tape {
+
+    /**
+     * @return the document; its arrays and objects read from this tape.
+     */
+    Value root();
+
+    /**
+     * @return number of bytes the tape takes.
+     */
+    long size();
+
+    /**
+     * writes the tape to path, replacing the file if it exists.
+     * @return number of bytes written.
+     */
+    Either<Long, IOException> save(final Path path);
+
+    /**
+     * @throws IllegalArgumentException for values that have no JSON text.
+     */
+    public static Tape of(final Value value) {
+        return of(value, Memory.SHIFT);
+    }
+
+    static Tape of(final Value value, final int shift) {
+        final Writer writer = new Writer(shift);
+        writer.value(value);
+        return writer.finish();
+    }
+
+    /**
+     * parses stream straight into a tape, without building the values.
+     */
+    public static Either<Tape, JSONParserException> parse(final InputStream stream) {
+        return parse(stream, ParserLimits.defaults());
+    }
+
+    public static Either<Tape, JSONParserException> parse(final InputStream stream, final ParserLimits limits) {
+        return parse(stream::read, limits, Memory.SHIFT);
+    }
+
+    /**
+     * @param channel in blocking mode.
+     */
+    public static Either<Tape, JSONParserException> parse(final ReadableByteChannel channel, final ParserLimits limits) {
+        return parse(ByteReader.Source.of(channel), limits, Memory.SHIFT);
+    }
+
+    static Either<Tape, JSONParserException> parse(final ByteReader.Source source, final ParserLimits limits,
+        final int shift) {
+        final Writer writer = new Writer(shift);
+        final Tape[] tape = {null};
+        final JSONParserException[] failure = {null};
+        StreamParser.document(source, limits, reader -> {
+            writer.parse(reader);
+            return Value.nil();
+        })
+        .ifSuccess(v -> tape[0] = writer.finish())
+        .ifFailure(e -> failure[0] = e);
+        return failure[0] == null ? Either.succ(tape[0]) : Either.fail(failure[0]);
+    }
+
+    /**
+     * maps a tape written by {@link #save}.
+     */
+    public static Either<Tape, IOException> open(final Path path) {
+        return open(path, Memory.SHIFT);
+    }
+
+    static Either<Tape, IOException> open(final Path path, final int shift) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long length = channel.size();
+            final long segment = 1L << shift;
+            final ByteBuffer[] segments = new ByteBuffer[(int) ((length + segment - 1) >>> shift)];
+            for (int i = 0; i < segments.length; i++) {
+                final long at = (long) i << shift;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, at, Math.min(segment, length - at))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            final Memory memory = new Memory(segments, shift, length);
+            if (length < Memory.ROOT || memory.getLong(0) != Memory.MAGIC
+                || memory.getInt(8) != Memory.VERSION || memory.end(Memory.ROOT) != length)
+                return Either.fail(new IOException("not a tape: " + path));
+            return Either.succ(memory);
+        } catch (final IOException e) {
+            return Either.fail(e);
+        }
+    }
+
+    /**
+     * Buffers of 2^shift bytes addressed as one, little endian. Values may straddle two
+     * buffers; reads of those are put together byte by byte.
+     */
+    final static class Memory implements Tape {
+
+        /* a gigabyte per buffer, within what one ByteBuffer can address. */
+        static final int SHIFT = 30;
+
+        /* "purejson" */
+        static final long MAGIC = 0x6E6F736A65727570L;
+
+        static final int VERSION = 1;
+
+        /* magic, version, reserved. */
+        static final long ROOT = 16;
+
+        static final byte NULL = 0, FALSE = 1, TRUE = 2, INTEGER = 3, NUMBER = 4, LATIN1 = 5, UTF16 = 6,
+            ARRAY = 7, WIDE_ARRAY = 8, OBJECT = 9, WIDE_OBJECT = 10;
+
+        /* set on keys that a later duplicate replaced. */
+        static final byte DEAD = 0x40;
+
+        /* tag, count and span of a container. */
+        static final int HEADER = 13;
+
+        final ByteBuffer[] segments;
+
+        final int shift;
+
+        final long mask;
+
+        final long length;
+
+        Memory(final ByteBuffer[] segments, final int shift, final long length) {
+            this.segments = segments;
+            this.shift = shift;
+            this.mask = (1L << shift) - 1;
+            this.length = length;
+        }
+
+        @Override
+        public Value root() {
+            return view(ROOT);
+        }
+
+        @Override
+        public long size() {
+            return length;
+        }
+
+        @Override
+        public Either<Long, IOException> save(final Path path) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long written = 0;
+                for (int i = 0; written < length; i++) {
+                    final ByteBuffer segment = range(segments[i], 0,
+                        (int) Math.min(segments[i].capacity(), length - written));
+                    while (segment.hasRemaining())
+                        written += channel.write(segment);
+                }
+                return Either.succ(written);
+            } catch (final IOException e) {
+                return Either.fail(e);
+            }
+        }
+
+        /**
+         * @return view of segment from position to limit. Set through {@link Buffer}, whose
+         * methods are not overridden before Java 9, so the classes still run on Java 8.
+         */
+        static ByteBuffer range(final ByteBuffer segment, final int position, final int limit) {
+            final ByteBuffer range = segment.duplicate();
+            ((Buffer) range).limit(limit);
+            ((Buffer) range).position(position);
+            return range;
+        }
+
+        byte get(final long at) {
+            return segments[(int) (at >>> shift)].get((int) (at & mask));
+        }
+
+        int getInt(final long at) {
+            final ByteBuffer segment = segments[(int) (at >>> shift)];
+            final int i = (int) (at & mask);
+            if (i + 4 <= segment.limit())
+                return segment.getInt(i);
+            return (int) bytes(at, 4);
+        }
+
+        long getLong(final long at) {
+            final ByteBuffer segment = segments[(int) (at >>> shift)];
+            final int i = (int) (at & mask);
+            if (i + 8 <= segment.limit())
+                return segment.getLong(i);
+            return bytes(at, 8);
+        }
+
+        char getChar(final long at) {
+            final ByteBuffer segment = segments[(int) (at >>> shift)];
+            final int i = (int) (at & mask);
+            if (i + 2 <= segment.limit())
+                return segment.getChar(i);
+            return (char) bytes(at, 2);
+        }
+
+        private long bytes(final long at, final int n) {
+            long value = 0;
+            for (int i = n - 1; i >= 0; i--)
+                value = value << 8 | get(at + i) & 0xFF;
+            return value;
+        }
+
+        void get(long at, final byte[] dst, int offset, int length) {
+            while (length > 0) {
+                final ByteBuffer segment = segments[(int) (at >>> shift)];
+                final int i = (int) (at & mask);
+                final int n = Math.min(length, segment.limit() - i);
+                range(segment, i, i + n).get(dst, offset, n);
+                at += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        /**
+         * @return offset just past the value at.
+         */
+        long end(final long at) {
+            switch (get(at) & ~DEAD) {
+            case NULL: case FALSE: case TRUE:
+                return at + 1;
+            case INTEGER: case NUMBER:
+                return at + 9;
+            case LATIN1:
+                return at + 5 + getInt(at + 1);
+            case UTF16:
+                return at + 5 + 2L * getInt(at + 1);
+            default:
+                return at + getLong(at + 5);
+            }
+        }
+
+        boolean wide(final long at) {
+            final byte tag = get(at);
+            return tag == WIDE_ARRAY || tag == WIDE_OBJECT;
+        }
+
+        /**
+         * @return offset of the table of the container at.
+         */
+        long table(final long at) {
+            return end(at) - (long) getInt(at + 1) * (wide(at) ? 8 : 4);
+        }
+
+        /**
+         * @return offset of the index-th element or member of the container at.
+         */
+        long entry(final long at, final int index) {
+            return at + (wide(at) ? getLong(table(at) + 8L * index) : getInt(table(at) + 4L * index));
+        }
+
+        Value view(final long at) {
+            switch (get(at)) {
+            case NULL:
+                return Value.nil();
+            case FALSE:
+                return Value.bool(false);
+            case TRUE:
+                return Value.bool(true);
+            case INTEGER:
+                return Value.integer(getLong(at + 1));
+            case NUMBER:
+                return Value.number(Double.longBitsToDouble(getLong(at + 1)));
+            case ARRAY: case WIDE_ARRAY:
+                return new ArrayView(this, at);
+            case OBJECT: case WIDE_OBJECT:
+                return new ObjectView(this, at);
+            default:
+                return Value.string(string(at));
+            }
+        }
+
+        String string(final long at) {
+            final int n = getInt(at + 1);
+            if ((get(at) & ~DEAD) == LATIN1) {
+                final byte[] bytes = new byte[n];
+                get(at + 5, bytes, 0, n);
+                return new String(bytes, StandardCharsets.ISO_8859_1);
+            }
+            /* not through a charset, which would replace unpaired surrogates. */
+            final byte[] bytes = new byte[2 * n];
+            get(at + 5, bytes, 0, bytes.length);
+            final char[] chars = new char[n];
+            for (int i = 0; i < n; i++)
+                chars[i] = (char) (bytes[2 * i] & 0xFF | bytes[2 * i + 1] << 8);
+            return new String(chars);
+        }
+
+        char charAt(final long at, final boolean latin1, final int i) {
+            return latin1 ? (char) (get(at + 5 + i) & 0xFF) : getChar(at + 5 + 2L * i);
+        }
+
+        /**
+         * @return order of the string at against key, as UTF-16 code units.
+         */
+        int compare(final long at, final String key) {
+            final boolean latin1 = (get(at) & ~DEAD) == LATIN1;
+            final int n = getInt(at + 1);
+            for (int i = 0, m = Math.min(n, key.length()); i < m; i++) {
+                final int c = charAt(at, latin1, i) - key.charAt(i);
+                if (c != 0)
+                    return c;
+            }
+            return n - key.length();
+        }
+
+        int compare(final long a, final long b) {
+            final boolean la = (get(a) & ~DEAD) == LATIN1;
+            final boolean lb = (get(b) & ~DEAD) == LATIN1;
+            final int n = getInt(a + 1);
+            final int m = getInt(b + 1);
+            for (int i = 0, k = Math.min(n, m); i < k; i++) {
+                final int c = charAt(a, la, i) - charAt(b, lb, i);
+                if (c != 0)
+                    return c;
+            }
+            return n - m;
+        }
+    }
+
+    /**
+     * Array on a tape, copied to the heap by the first {@link #append} or {@link #withAt}.
+     */
+    final static class ArrayView implements Value {
+
+        private final Memory memory;
+
+        private final long at;
+
+        private int hash;
+
+        ArrayView(final Memory memory, final long at) {
+            this.memory = memory;
+            this.at = at;
+        }
+
+        int size() {
+            return memory.getInt(at + 1);
+        }
+
+        @Override
+        public Value isArray(final Consumer<Value> action) {
+            final long table = memory.table(at);
+            for (long next = at + Memory.HEADER; next < table; next = memory.end(next))
+                action.accept(memory.view(next));
+            return this;
+        }
+
+        @Override
+        public Value isArrayAt(final int index, final Consumer<Value> action) {
+            if (index < 0 || index >= size())
+                throw new IndexOutOfBoundsException("index out of range");
+            action.accept(memory.view(memory.entry(at, index)));
+            return this;
+        }
+
+        @Override
+        public Value append(final Value value) {
+            return Value.PersistentArrayValue.of(this).append(value);
+        }
+
+        @Override
+        public Value withAt(final int index, final Value value) {
+            return Value.PersistentArrayValue.of(this).withAt(index, value);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = hash;
+            if (h == 0)
+                hash = h = Values.hashArray(this);
+            return h;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return Values.equalArrays(this, other);
+        }
+    }
+
+    /**
+     * Object on a tape, copied to the heap by the first {@link #with} or {@link #without}.
+     */
+    final static class ObjectView implements Value {
+
+        private final Memory memory;
+
+        private final long at;
+
+        private int hash;
+
+        ObjectView(final Memory memory, final long at) {
+            this.memory = memory;
+            this.at = at;
+        }
+
+        int size() {
+            return memory.getInt(at + 1);
+        }
+
+        @Override
+        public Value isJSON(final BiConsumer<Value, Value> action) {
+            final long table = memory.table(at);
+            for (long key = at + Memory.HEADER; key < table; ) {
+                final long value = memory.end(key);
+                if ((memory.get(key) & Memory.DEAD) == 0)
+                    action.accept(Value.string(memory.string(key)), memory.view(value));
+                key = memory.end(value);
+            }
+            return this;
+        }
+
+        @Override
+        public Value isJSONKey(final Value key, final Consumer<Value> action) {
+            if (!(key instanceof Value.StringValue))
+                return this;
+            final String name = ((Value.StringValue) key).value();
+            int low = 0;
+            int high = size() - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final long member = memory.entry(at, mid);
+                final int c = memory.compare(member, name);
+                if (c == 0) {
+                    action.accept(memory.view(memory.end(member)));
+                    break;
+                }
+                if (c < 0)
+                    low = mid + 1;
+                else
+                    high = mid - 1;
+            }
+            return this;
+        }
+
+        @Override
+        public Value with(final Value key, final Value value) {
+            return Value.PersistentJSONValue.over(this, size()).with(key, value);
+        }
+
+        @Override
+        public Value without(final Value key) {
+            return Value.PersistentJSONValue.over(this, size()).without(key);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = hash;
+            if (h == 0)
+                hash = h = Values.hashObject(this);
+            return h;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return Values.equalObjects(this, other);
+        }
+    }
+
+    /**
+     * Appends values to direct buffers. The first buffer doubles until it reaches the segment
+     * size; after that whole segments are added. Offsets of the members of open containers
+     * are kept on a stack until the container is closed.
+     */
+    final static class Writer {
+
+        private final int shift;
+
+        private final List<ByteBuffer> segments = new ArrayList<>();
+
+        private long capacity;
+
+        private long pos;
+
+        private long[] stack = new long[64];
+
+        private int top;
+
+        private byte[] scratch = new byte[256];
+
+        Writer(final int shift) {
+            this.shift = shift;
+            segments.add(ByteBuffer.allocateDirect((int) Math.min(1 << 16, 1L << shift)).order(ByteOrder.LITTLE_ENDIAN));
+            capacity = segments.get(0).capacity();
+            putLong(Memory.MAGIC);
+            putInt(Memory.VERSION);
+            putInt(0);
+        }
+
+        Memory finish() {
+            return new Memory(segments.toArray(new ByteBuffer[0]), shift, pos);
+        }
+
+        private void room(final int n) {
+            while (pos + n > capacity) {
+                final long segment = 1L << shift;
+                final ByteBuffer first = segments.get(0);
+                if (segments.size() == 1 && first.capacity() < segment) {
+                    final ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(segment, 2L * first.capacity()))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                    grown.put(Memory.range(first, 0, (int) pos));
+                    segments.set(0, grown);
+                } else {
+                    segments.add(ByteBuffer.allocateDirect((int) segment).order(ByteOrder.LITTLE_ENDIAN));
+                }
+                capacity = 0;
+                for (final ByteBuffer buffer : segments)
+                    capacity += buffer.capacity();
+            }
+        }
+
+        private void put(final long at, final byte b) {
+            segments.get((int) (at >>> shift)).put((int) (at & (1L << shift) - 1), b);
+        }
+
+        private void put(final long at, final long value, final int n) {
+            for (int i = 0; i < n; i++)
+                put(at + i, (byte) (value >>> 8 * i));
+        }
+
+        private void putByte(final byte b) {
+            room(1);
+            put(pos ++, b);
+        }
+
+        private void putInt(final int value) {
+            room(4);
+            put(pos, value, 4);
+            pos += 4;
+        }
+
+        private void putLong(final long value) {
+            room(8);
+            put(pos, value, 8);
+            pos += 8;
+        }
+
+        private void putBytes(final byte[] bytes, int offset, int length) {
+            room(length);
+            while (length > 0) {
+                final ByteBuffer segment = segments.get((int) (pos >>> shift));
+                final int i = (int) (pos & (1L << shift) - 1);
+                final int n = Math.min(length, segment.capacity() - i);
+                Memory.range(segment, i, i + n).put(bytes, offset, n);
+                pos += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        private void push(final long offset) {
+            if (top == stack.length)
+                stack = Arrays.copyOf(stack, top * 2);
+            stack[top ++] = offset;
+        }
+
+        void string(final String s) {
+            final int n = s.length();
+            boolean latin1 = true;
+            for (int i = 0; latin1 && i < n; i++)
+                latin1 = s.charAt(i) < 0x100;
+            final int length = latin1 ? n : 2 * n;
+            if (scratch.length < length)
+                scratch = new byte[Math.max(length, 2 * scratch.length)];
+            for (int i = 0; i < n; i++) {
+                final char c = s.charAt(i);
+                if (latin1) {
+                    scratch[i] = (byte) c;
+                } else {
+                    scratch[2 * i] = (byte) c;
+                    scratch[2 * i + 1] = (byte) (c >>> 8);
+                }
+            }
+            putByte(latin1 ? Memory.LATIN1 : Memory.UTF16);
+            putInt(n);
+            putBytes(scratch, 0, length);
+        }
+
+        /**
+         * @return offset of the container opened.
+         */
+        private long open(final byte tag) {
+            final long at = pos;
+            putByte(tag);
+            putInt(0);
+            putLong(0);
+            return at;
+        }
+
+        /**
+         * writes the table of the container at from the offsets pushed since mark.
+         */
+        private void close(final long at, final int mark, final boolean object) {
+            int count = top - mark;
+            if (object && count > 1)
+                count = sort(mark);
+            final boolean wide = pos - at + 4L * count > Integer.MAX_VALUE;
+            for (int i = mark; i < top; i++) {
+                if (stack[i] < 0)
+                    continue;
+                if (wide)
+                    putLong(stack[i] - at);
+                else
+                    putInt((int) (stack[i] - at));
+            }
+            top = mark;
+            if (wide)
+                put(at, object ? Memory.WIDE_OBJECT : Memory.WIDE_ARRAY);
+            put(at + 1, count, 4);
+            put(at + 5, pos - at, 8);
+        }
+
+        /*
+         * orders the keys pushed since mark, keeping the order of equal keys, and marks all
+         * but the last of them dead.
+         * @return number of live keys.
+         */
+        private int sort(final int mark) {
+            final Memory memory = finish();
+            final long[] keys = Arrays.copyOfRange(stack, mark, top);
+            mergeSort(memory, keys, Arrays.copyOf(keys, keys.length), 0, keys.length);
+            int live = keys.length;
+            for (int i = 0; i < keys.length - 1; i++) {
+                if (memory.compare(keys[i], keys[i + 1]) == 0) {
+                    put(keys[i], (byte) (memory.get(keys[i]) | Memory.DEAD));
+                    keys[i] = -1;
+                    live --;
+                }
+            }
+            System.arraycopy(keys, 0, stack, mark, keys.length);
+            return live;
+        }
+
+        private static void mergeSort(final Memory memory, final long[] keys, final long[] work,
+            final int from, final int to) {
+            if (to - from < 2)
+                return;
+            final int mid = (from + to) >>> 1;
+            mergeSort(memory, work, keys, from, mid);
+            mergeSort(memory, work, keys, mid, to);
+            for (int i = from, l = from, r = mid; i < to; i++) {
+                if (r >= to || l < mid && memory.compare(work[l], work[r]) <= 0)
+                    keys[i] = work[l ++];
+                else
+                    keys[i] = work[r ++];
+            }
+        }
+
+        /**
+         * @throws IllegalArgumentException for values that have no JSON text.
+         */
+        void value(final Value value) {
+            if (value instanceof Value.StringValue) {
+                string(((Value.StringValue) value).value());
+            } else if (value instanceof Value.IntValue) {
+                putByte(Memory.INTEGER);
+                putLong(((Value.IntValue) value).value());
+            } else if (value instanceof Value.DoubleValue) {
+                putByte(Memory.NUMBER);
+                putLong(Double.doubleToRawLongBits(((Value.DoubleValue) value).value()));
+            } else if (value instanceof Value.BoolValue) {
+                putByte(((Value.BoolValue) value).value() ? Memory.TRUE : Memory.FALSE);
+            } else if (value instanceof Value.NilValue) {
+                putByte(Memory.NULL);
+            } else if (Values.isObject(value)) {
+                final long at = open(Memory.OBJECT);
+                final int mark = top;
+                value.isJSON((k, v) -> {
+                    if (!(k instanceof Value.StringValue))
+                        throw new IllegalArgumentException("key cannot be non string type.");
+                    push(pos);
+                    value(k);
+                    value(v);
+                });
+                close(at, mark, true);
+            } else if (Values.isArray(value)) {
+                final long at = open(Memory.ARRAY);
+                final int mark = top;
+                value.isArray(v -> {
+                    push(pos);
+                    value(v);
+                });
+                close(at, mark, false);
+            } else {
+                final String[] error = {"unsupported value"};
+                value.isError(e -> error[0] = e);
+                throw new IllegalArgumentException(error[0]);
+            }
+        }
+
+        /**
+         * parses the value at the cursor onto the tape.
+         * @throws StreamParser.Abort on malformed input.
+         */
+        void parse(final ByteReader reader) {
+            final int ch = reader.peek();
+            if (ch == '[') {
+                reader.next();
+                reader.enter();
+                final long at = open(Memory.ARRAY);
+                final int mark = top;
+                StreamParser.skipWhitespace(reader);
+                if (reader.peek() == ']') {
+                    reader.next();
+                } else {
+                    do {
+                        StreamParser.skipWhitespace(reader);
+                        push(pos);
+                        parse(reader);
+                    } while (separator(reader, ']'));
+                }
+                reader.leave();
+                close(at, mark, false);
+            } else if (ch == '{') {
+                reader.next();
+                reader.enter();
+                final int maxKeys = reader.limits().maxKeys();
+                final long at = open(Memory.OBJECT);
+                final int mark = top;
+                StreamParser.skipWhitespace(reader);
+                if (reader.peek() == '}') {
+                    reader.next();
+                } else {
+                    do {
+                        StreamParser.skipWhitespace(reader);
+                        if (reader.peek() != '"')
+                            throw StreamParser.abort(reader, reader.peek() == -1
+                                ? "unexpected end of document, expected a key"
+                                : "unexpected '" + (char) reader.peek() + "', expected a key", 0);
+                        if (top - mark >= maxKeys)
+                            throw StreamParser.exceeded(reader, "object with more than " + maxKeys + " keys", 0);
+                        reader.next();
+                        push(pos);
+                        string(StreamParser.readString(reader, Scratch.chars()));
+                        StreamParser.skipWhitespace(reader);
+                        if (reader.peek() != ':')
+                            throw StreamParser.abort(reader, "':' expected", 0);
+                        reader.next();
+                        StreamParser.skipWhitespace(reader);
+                        parse(reader);
+                    } while (separator(reader, '}'));
+                }
+                reader.leave();
+                close(at, mark, true);
+            } else if (ch == '"') {
+                reader.next();
+                string(StreamParser.readString(reader, Scratch.chars()));
+            } else {
+                value(StreamParser.value(reader));
+            }
+        }
+
+        /**
+         * consumes a ',' or the closing bracket after a member.
+         * @return true if another member follows.
+         */
+        private static boolean separator(final ByteReader reader, final char close) {
+            StreamParser.skipWhitespace(reader);
+            final int ch = reader.peek();
+            reader.next();
+            if (ch == ',')
+                return true;
+            if (ch == close)
+                return false;
+            throw StreamParser.abort(reader, ch == -1 ? "unexpected end of document, expected '" + close + "'"
+                : "unexpected '" + (char) ch + "', expected ',' or '" + close + "'", ch == -1 ? 0 : 1);
+        }
+    }
+}
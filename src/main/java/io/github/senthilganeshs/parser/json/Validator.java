@@ -0,0 +1,341 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+
+/**
+ * Strict RFC 8259 well-formedness check behind {@link Parser#validate(InputStream)}.
+ * Nothing is built; the only state is the cursor and one flag per open container.
+ */
+final class Validator {
+
+    /* bytes that may appear unescaped in a string and need no further look. */
+    private static final boolean[] PLAIN = new boolean[256];
+
+    static {
+        for (int b = 0x20; b < 0x80; b++)
+            PLAIN[b] = b != '"' && b != '\\';
+    }
+
+    private static final byte[] TRUE = {'r', 'u', 'e'};
+
+    private static final byte[] FALSE = {'a', 'l', 's', 'e'};
+
+    private static final byte[] NULL = {'u', 'l', 'l'};
+
+    private final InputStream in;
+
+    private final byte[] buf;
+
+    private final ParserLimits limits;
+
+    private int pos;
+
+    private int limit;
+
+    /* valid bytes in buf, kept at the end of the document for the error context. */
+    private int filled;
+
+    /* offset of buf[0] in the document. */
+    private long base;
+
+    private long line = 1;
+
+    private long lineStart;
+
+    /* true for an open object, false for an open array. */
+    private boolean[] objects = new boolean[32];
+
+    /* members seen so far by each open object. */
+    private int[] keys = new int[32];
+
+    private int depth;
+
+    private Validator(final InputStream in, final byte[] buf, final ParserLimits limits) {
+        this.in = in;
+        this.buf = buf;
+        this.limits = limits;
+    }
+
+    /**
+     * @return number of bytes validated.
+     */
+    static Either<Long, JSONParserException> run(final InputStream in, final ParserLimits limits) {
+        final Scratch scratch = Scratch.acquire();
+        try {
+            return Either.wrap(() -> {
+                try {
+                    return new Validator(in, scratch.buf, limits).document();
+                } catch (final IOException e) {
+                    throw new JSONParserException(e);
+                }
+            });
+        } finally {
+            scratch.release();
+        }
+    }
+
+    private long document() throws IOException, JSONParserException {
+        int c = skip();
+        if (c == -1)
+            throw error("empty document", base + pos);
+        values:
+        for (;;) {
+            switch (c) {
+            case '{':
+                push(true);
+                c = skip();
+                if (c == '}') {
+                    depth --;
+                    break;
+                }
+                c = key(c);
+                continue values;
+            case '[':
+                push(false);
+                c = skip();
+                if (c == ']') {
+                    depth --;
+                    break;
+                }
+                continue values;
+            case '"':
+                string();
+                break;
+            case 't':
+                literal(TRUE);
+                break;
+            case 'f':
+                literal(FALSE);
+                break;
+            case 'n':
+                literal(NULL);
+                break;
+            case '-': case '0': case '1': case '2': case '3': case '4':
+            case '5': case '6': case '7': case '8': case '9':
+                number(c);
+                break;
+            default:
+                throw unexpected(c, "a value");
+            }
+            for (;;) {
+                c = skip();
+                if (depth == 0) {
+                    if (c != -1)
+                        throw unexpected(c, "end of document");
+                    return base + pos;
+                }
+                final boolean object = objects[depth - 1];
+                if (c == ',') {
+                    c = skip();
+                    if (object)
+                        c = key(c);
+                    continue values;
+                }
+                if (c != (object ? '}' : ']'))
+                    throw unexpected(c, object ? "',' or '}'" : "',' or ']'");
+                depth --;
+            }
+        }
+    }
+
+    /**
+     * @return first byte of the member value.
+     */
+    private int key(final int c) throws IOException, JSONParserException {
+        if (c != '"')
+            throw unexpected(c, "a key");
+        if (++keys[depth - 1] > limits.maxKeys())
+            throw error("object with more than " + limits.maxKeys() + " keys", base + pos - 1).limit();
+        string();
+        final int colon = skip();
+        if (colon != ':')
+            throw unexpected(colon, "':'");
+        return skip();
+    }
+
+    private void push(final boolean object) throws JSONParserException {
+        if (depth == limits.maxDepth())
+            throw error("nested deeper than " + limits.maxDepth() + " levels", base + pos - 1).limit();
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+            keys = Arrays.copyOf(keys, depth * 2);
+        }
+        keys[depth] = 0;
+        objects[depth ++] = object;
+    }
+
+    private void string() throws IOException, JSONParserException {
+        final long start = base + pos;
+        final long max = limits.maxStringLength();
+        for (;;) {
+            final byte[] b = buf;
+            final int l = limit;
+            int p = pos;
+            while (p < l && PLAIN[b[p] & 0xFF])
+                p++;
+            pos = p;
+            if (base + pos - start > max)
+                throw error("string longer than " + max + " bytes", start + max).limit();
+            final int c = read();
+            if (c == '"')
+                return;
+            if (c == '\\')
+                escape();
+            else if (c >= 0x80)
+                utf8(c);
+            else if (c == -1)
+                throw error("unterminated string", base + pos);
+            else if (c < 0x20)
+                throw unexpected(c, "an escaped control character");
+        }
+    }
+
+    private void escape() throws IOException, JSONParserException {
+        final int c = read();
+        switch (c) {
+        case '"': case '\\': case '/': case 'b': case 'f': case 'n': case 'r': case 't':
+            return;
+        case 'u':
+            for (int i = 0; i < 4; i++) {
+                final int h = read();
+                if (!(h >= '0' && h <= '9' || h >= 'a' && h <= 'f' || h >= 'A' && h <= 'F'))
+                    throw unexpected(h, "a hex digit");
+            }
+            return;
+        default:
+            throw unexpected(c, "an escape character");
+        }
+    }
+
+    /* RFC 3629: no overlong forms, surrogates or code points above U+10FFFF. */
+    private void utf8(final int lead) throws IOException, JSONParserException {
+        int lo = 0x80;
+        int hi = 0xBF;
+        final int n;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            n = 1;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            n = 2;
+            if (lead == 0xE0)
+                lo = 0xA0;
+            else if (lead == 0xED)
+                hi = 0x9F;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            n = 3;
+            if (lead == 0xF0)
+                lo = 0x90;
+            else if (lead == 0xF4)
+                hi = 0x8F;
+        } else {
+            throw error("malformed UTF-8", base + pos - 1);
+        }
+        for (int i = 0; i < n; i++) {
+            final int c = read();
+            if (c < lo || c > hi)
+                throw error("malformed UTF-8", c == -1 ? base + pos : base + pos - 1);
+            lo = 0x80;
+            hi = 0xBF;
+        }
+    }
+
+    private void number(int c) throws IOException, JSONParserException {
+        if (c == '-')
+            c = read();
+        if (c == '0')
+            c = read();
+        else if (c >= '1' && c <= '9')
+            c = digits();
+        else
+            throw unexpected(c, "a digit");
+        if (c == '.') {
+            c = read();
+            if (c < '0' || c > '9')
+                throw unexpected(c, "a digit");
+            c = digits();
+        }
+        if (c == 'e' || c == 'E') {
+            c = read();
+            if (c == '+' || c == '-')
+                c = read();
+            if (c < '0' || c > '9')
+                throw unexpected(c, "a digit");
+            c = digits();
+        }
+        if (c != -1)
+            pos --;
+    }
+
+    /**
+     * @return first byte after the digits.
+     */
+    private int digits() throws IOException, JSONParserException {
+        int c;
+        do {
+            c = read();
+        } while (c >= '0' && c <= '9');
+        return c;
+    }
+
+    private void literal(final byte[] rest) throws IOException, JSONParserException {
+        for (final byte expected : rest) {
+            final int c = read();
+            if (c != expected)
+                throw unexpected(c, "'" + (char) expected + "'");
+        }
+    }
+
+    /**
+     * @return next byte that is not whitespace, or -1 at the end.
+     */
+    private int skip() throws IOException, JSONParserException {
+        for (;;) {
+            if (pos == limit && !fill())
+                return -1;
+            final int c = buf[pos ++];
+            if (c == '\n') {
+                line ++;
+                lineStart = base + pos;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c & 0xFF;
+            }
+        }
+    }
+
+    private int read() throws IOException, JSONParserException {
+        if (pos == limit && !fill())
+            return -1;
+        return buf[pos ++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException, JSONParserException {
+        base += limit;
+        pos = 0;
+        int n;
+        while ((n = in.read(buf, 0, buf.length)) == 0)
+            ;
+        limit = Math.max(n, 0);
+        if (n > 0)
+            filled = n;
+        if (base + limit > limits.maxDocumentSize())
+            throw error("document larger than " + limits.maxDocumentSize() + " bytes", limits.maxDocumentSize()).limit();
+        return n > 0;
+    }
+
+    /* c was the last byte read, or -1 at the end of the document. */
+    private JSONParserException unexpected(final int c, final String expected) {
+        if (c == -1)
+            return error("unexpected end of document, expected " + expected, base + pos);
+        final String found = c >= 0x20 && c < 0x7F ? "'" + (char) c + "'" : String.format("byte 0x%02X", c);
+        return error("unexpected " + found + ", expected " + expected, base + pos - 1);
+    }
+
+    private JSONParserException error(final String msg, final long offset) {
+        return new JSONParserException(msg, offset, line, offset - lineStart + 1,
+            JSONParserException.context(buf, filled, (int) Math.max(0, offset - base + (limit == 0 ? filled : 0))));
+    }
+}
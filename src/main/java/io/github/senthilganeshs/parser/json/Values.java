@@ -0,0 +1,124 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.util.Objects;
+
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+/**
+ * Structure of {@link Value}s that the callback API does not expose: which values are
+ * containers, their sizes, and structural equality and hashing across implementations.
+ */
+final class Values {
+
+    private Values() {
+    }
+
+    static boolean isObject(final Value value) {
+        return value instanceof Value.ShapedJSONValue || value instanceof Value.JSONValue
+            || value instanceof Value.PersistentJSONValue || value instanceof Tape.ObjectView;
+    }
+
+    static boolean isArray(final Value value) {
+        return value instanceof Value.ArrayValue || value instanceof Value.PersistentArrayValue
+            || value instanceof Tape.ArrayView;
+    }
+
+    /**
+     * @return number of members or elements of a container, 0 for anything else.
+     */
+    static int size(final Value value) {
+        if (value instanceof Value.ShapedJSONValue)
+            return ((Value.ShapedJSONValue) value).size();
+        if (value instanceof Value.JSONValue)
+            return ((Value.JSONValue) value).size();
+        if (value instanceof Value.PersistentJSONValue)
+            return ((Value.PersistentJSONValue) value).size();
+        if (value instanceof Value.ArrayValue)
+            return ((Value.ArrayValue) value).size();
+        if (value instanceof Value.PersistentArrayValue)
+            return ((Value.PersistentArrayValue) value).size();
+        if (value instanceof Tape.ObjectView)
+            return ((Tape.ObjectView) value).size();
+        if (value instanceof Tape.ArrayView)
+            return ((Tape.ArrayView) value).size();
+        return 0;
+    }
+
+    /**
+     * @return value of key in object or null.
+     */
+    static Value member(final Value object, final Value key) {
+        final Value[] member = {null};
+        object.isJSONKey(key, v -> member[0] = v);
+        return member[0];
+    }
+
+    /* same as Map.hashCode, so the order of members does not matter. */
+    static int hashObject(final Value object) {
+        final int[] hash = {0};
+        object.isJSON((k, v) -> hash[0] += Objects.hashCode(k) ^ Objects.hashCode(v));
+        return hash[0];
+    }
+
+    /* same as List.hashCode. */
+    static int hashArray(final Value array) {
+        final int[] hash = {1};
+        array.isArray(v -> hash[0] = 31 * hash[0] + Objects.hashCode(v));
+        return hash[0];
+    }
+
+    /**
+     * @return kind of value, null for an error.
+     */
+    static Instrumentation.Kind kind(final Value value) {
+        if (isObject(value))
+            return Instrumentation.Kind.OBJECT;
+        if (isArray(value))
+            return Instrumentation.Kind.ARRAY;
+        if (value instanceof Value.StringValue)
+            return Instrumentation.Kind.STRING;
+        if (value instanceof Value.IntValue)
+            return Instrumentation.Kind.INTEGER;
+        if (value instanceof Value.DoubleValue)
+            return Instrumentation.Kind.NUMBER;
+        if (value instanceof Value.BoolValue)
+            return Instrumentation.Kind.BOOLEAN;
+        if (value instanceof Value.NilValue)
+            return Instrumentation.Kind.NULL;
+        return null;
+    }
+
+    static boolean equalObjects(final Value lhs, final Object rhs) {
+        if (lhs == rhs)
+            return true;
+        if (!(rhs instanceof Value) || !isObject((Value) rhs))
+            return false;
+        final Value other = (Value) rhs;
+        if (lhs.hashCode() != other.hashCode() || size(lhs) != size(other))
+            return false;
+        final boolean[] same = {true};
+        lhs.isJSON((k, v) -> {
+            if (same[0])
+                same[0] = Objects.equals(v, member(other, k));
+        });
+        return same[0];
+    }
+
+    static boolean equalArrays(final Value lhs, final Object rhs) {
+        if (lhs == rhs)
+            return true;
+        if (!(rhs instanceof Value) || !isArray((Value) rhs))
+            return false;
+        final Value other = (Value) rhs;
+        if (lhs.hashCode() != other.hashCode() || size(lhs) != size(other))
+            return false;
+        final boolean[] same = {true};
+        final int[] index = {0};
+        lhs.isArray(v -> {
+            if (same[0])
+                other.isArrayAt(index[0], w -> same[0] = Objects.equals(v, w));
+            index[0] ++;
+        });
+        return same[0];
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Java 21 variant of the scratch space. Platform threads keep their thread local instance.
+ * Virtual threads are cheap and numerous, so a thread local per virtual thread would never
+ * be reused; they borrow from a small striped pool instead. Borrowing and returning are
+ * single atomic swaps, so no monitor is held that could pin the carrier thread. While a
+ * virtual thread holds a pooled instance, its character buffer is handed out as well.
+ */
+final class Scratch {
+
+    private static final ThreadLocal<Scratch> LOCAL = ThreadLocal.withInitial(Scratch::new);
+
+    /* the pooled instance a virtual thread holds, set only between acquire and release. */
+    private static final ThreadLocal<Scratch> BORROWED = new ThreadLocal<>();
+
+    private static final AtomicReferenceArray<Scratch> POOL =
+        new AtomicReferenceArray<>(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1);
+
+    private static final int MAX_CHARS = 1 << 16;
+
+    final byte[] buf = new byte[StreamParser.ByteReader.StreamByteReader.BUF_SIZE];
+
+    private StringBuilder chars = new StringBuilder(64);
+
+    private boolean busy;
+
+    private int stripe = -1;
+
+    static Scratch acquire() {
+        final Thread current = Thread.currentThread();
+        if (current.isVirtual()) {
+            final int stripe = (int) current.threadId() & (POOL.length() - 1);
+            final Scratch pooled = POOL.getAndSet(stripe, null);
+            final Scratch scratch = pooled == null ? new Scratch() : pooled;
+            scratch.stripe = stripe;
+            if (BORROWED.get() == null) {
+                BORROWED.set(scratch);
+                scratch.busy = true;
+            }
+            return scratch;
+        }
+        final Scratch local = LOCAL.get();
+        if (local.busy)
+            return new Scratch();
+        local.busy = true;
+        return local;
+    }
+
+    void release() {
+        if (stripe >= 0) {
+            if (busy)
+                BORROWED.remove();
+            busy = false;
+            final int stripe = this.stripe;
+            this.stripe = -1;
+            POOL.set(stripe, this);
+            return;
+        }
+        busy = false;
+    }
+
+    /**
+     * @return an empty character buffer. Callers must not hold on to it past a call that can
+     * start another parse.
+     */
+    static StringBuilder chars() {
+        final Scratch local = Thread.currentThread().isVirtual() ? BORROWED.get() : LOCAL.get();
+        if (local == null)
+            return new StringBuilder(64);
+        if (local.chars.capacity() > MAX_CHARS)
+            local.chars = new StringBuilder(64);
+        local.chars.setLength(0);
+        return local.chars;
+    }
+}
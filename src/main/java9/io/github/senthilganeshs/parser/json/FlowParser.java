@@ -0,0 +1,234 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+/**
+ * {@link Flow.Processor} turning upstream {@link ByteBuffer} chunks into parsed values, one
+ * value per unit of downstream demand. A chunk is only requested from upstream once the
+ * previous one is consumed and demand is pending, so at most one chunk plus the value in
+ * progress is buffered. A malformed value or one beyond the limits fails the subscriber with
+ * its {@link Parser.JSONParserException}. Built from {@code src/main/java9} by the java9 profile
+ * and requires Java 9+ at runtime; nothing else in the library loads it.
+ */
+public interface FlowParser extends Flow.Processor<ByteBuffer, Value> {
+
+    /**
+     * @return processor for concatenated or newline delimited top level values.
+     */
+    public static FlowParser values() {
+        return values(ParserLimits.defaults());
+    }
+
+    /**
+     * @return processor for concatenated or newline delimited top level values, each one within limits.
+     */
+    public static FlowParser values(final ParserLimits limits) {
+        return new Processor(new ChunkParser.Framer(false, limits));
+    }
+
+    /**
+     * @return processor emitting the elements of top level arrays one at a time.
+     */
+    public static FlowParser elements() {
+        return elements(ParserLimits.defaults());
+    }
+
+    /**
+     * @return processor emitting the elements of top level arrays one at a time, each one within limits.
+     */
+    public static FlowParser elements(final ParserLimits limits) {
+        return new Processor(new ChunkParser.Framer(true, limits));
+    }
+
+    final static class Processor implements FlowParser, Flow.Subscription {
+
+        /* handed to subscribers after the first, so that they cannot act on its stream. */
+        private static final Flow.Subscription REJECTED = new Flow.Subscription() {
+            @Override
+            public void request(final long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        };
+
+        private final ChunkParser.Framer chunks;
+
+        private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicLong demand = new AtomicLong();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile Flow.Subscription upstream;
+
+        private final AtomicReference<Flow.Subscriber<? super Value>> downstream = new AtomicReference<>();
+
+        private volatile boolean done;
+
+        private volatile Throwable error;
+
+        private volatile boolean cancelled;
+
+        /* a non-positive request, failed ahead of any pending value. */
+        private volatile Throwable violation;
+
+        /* drain state, only touched by the thread holding wip */
+        private Value pending;
+
+        private boolean requested;
+
+        private boolean ended;
+
+        Processor(final ChunkParser.Framer chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super Value> subscriber) {
+            if (!downstream.compareAndSet(null, subscriber)) {
+                subscriber.onSubscribe(REJECTED);
+                subscriber.onError(new IllegalStateException("only one subscriber is supported"));
+                return;
+            }
+            subscriber.onSubscribe(this);
+            drain();
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            drain();
+        }
+
+        @Override
+        public void onNext(final ByteBuffer item) {
+            queue.offer(item);
+            drain();
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                violation = new IllegalArgumentException("non-positive request: " + n);
+                if (upstream != null)
+                    upstream.cancel();
+            } else {
+                demand.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            if (upstream != null)
+                upstream.cancel();
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0)
+                return;
+            int missed = 1;
+            do {
+                final Flow.Subscriber<? super Value> subscriber = downstream.get();
+                if (subscriber != null && upstream != null)
+                    emit(subscriber);
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit(final Flow.Subscriber<? super Value> subscriber) {
+            while (!cancelled) {
+                if (violation != null) {
+                    fail(subscriber, violation);
+                    return;
+                }
+                if (pending == null) {
+                    pending = next();
+                    if (chunks.failure != null) {
+                        fail(subscriber, chunks.failure);
+                        return;
+                    }
+                }
+                if (pending != null) {
+                    if (demand.get() == 0)
+                        return;
+                    final Value value = pending;
+                    pending = null;
+                    demand.decrementAndGet();
+                    subscriber.onNext(value);
+                    continue;
+                }
+                if (ended) {
+                    cancelled = true;
+                    if (error != null)
+                        subscriber.onError(error);
+                    else
+                        subscriber.onComplete();
+                    return;
+                }
+                if (!requested && demand.get() > 0) {
+                    requested = true;
+                    upstream.request(1);
+                }
+                return;
+            }
+            queue.clear();
+        }
+
+        private void fail(final Flow.Subscriber<? super Value> subscriber, final Throwable failure) {
+            cancelled = true;
+            pending = null;
+            queue.clear();
+            upstream.cancel();
+            subscriber.onError(failure);
+        }
+
+        private Value next() {
+            for (;;) {
+                final Value value = chunks.next();
+                if (value != null)
+                    return value;
+                final ByteBuffer chunk = queue.poll();
+                if (chunk != null) {
+                    requested = false;
+                    chunks.feed(chunk);
+                } else if (done && error == null && !ended) {
+                    ended = true;
+                    chunks.end();
+                } else {
+                    ended |= done;
+                    return null;
+                }
+            }
+        }
+    }
+}
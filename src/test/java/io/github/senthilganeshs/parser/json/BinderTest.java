@@ -0,0 +1,168 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.ParserTest.Customer;
+
+public class BinderTest {
+
+    private static final Binder<Customer> CUSTOMER = Binder
+        .of(Customer.Builder.CustomerBuilder::new, Customer.Builder::build)
+        .string("name", Customer.Builder::name)
+        .nested("address", Customer.Builder::address, Binder
+            .<Customer.Address.Builder, Customer.Address> of(Customer.Address.Builder.AddressBuilder::new, Customer.Address.Builder::build)
+            .string("flatNumber", Customer.Address.Builder::flatNumber)
+            .string("building", Customer.Address.Builder::building)
+            .string("city", Customer.Address.Builder::city))
+        .nested("cargo", Customer.Builder::cargo, Binder
+            .<Customer.Cargo.Builder, Customer.Cargo> of(Customer.Cargo.Builder.CargoBuilder::new, Customer.Cargo.Builder::build)
+            .string("trackingID", Customer.Cargo.Builder::trackingID)
+            .string("from", Customer.Cargo.Builder::from)
+            .string("to", Customer.Cargo.Builder::to));
+
+    private static final String DOCUMENT = "{" +
+        "  \"name\" : \"Senthil\"," +
+        "  \"unknown\" : [{\"a\" : \"]}\"}, 1, null]," +
+        "  \"address\" : {" +
+        "    \"flatNumber\" : \"#1011\"," +
+        "    \"building\"   : \"PureOO\"," +
+        "    \"city\"       : \"Objectvile\"" +
+        "  }," +
+        "  \"cargo\"   : {" +
+        "    \"trackingID\" : \"AOL123\"," +
+        "    \"from\"       : \"Impericity\"," +
+        "    \"to\"         : \"Objectvile\"" +
+        "  }" +
+        "}";
+
+    @Test
+    public void testBindMatchesValueTree() throws Exception {
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Parser.create().parse(DOCUMENT).ifSuccess(v -> Customer.fromJSON(v).render(expected));
+
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        CUSTOMER.bind(new ByteArrayInputStream(DOCUMENT.getBytes()))
+        .ifSuccess(c -> c.render(actual))
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+        Assert.assertEquals(actual.toString(), expected.toString());
+    }
+
+    static final class Order {
+        final long id;
+        final double price;
+        final boolean buy;
+        final List<Long> fills;
+
+        Order(final long id, final double price, final boolean buy, final List<Long> fills) {
+            this.id = id;
+            this.price = price;
+            this.buy = buy;
+            this.fills = fills;
+        }
+
+        static final class Builder {
+            private long id;
+            private double price;
+            private boolean buy;
+            private final List<Long> fills = new ArrayList<>();
+
+            void id(final long id) { this.id = id; }
+            void price(final double price) { this.price = price; }
+            void buy(final boolean buy) { this.buy = buy; }
+            void fill(final long fill) { this.fills.add(fill); }
+            Order build() { return new Order(id, price, buy, fills); }
+        }
+    }
+
+    private static final Binder<Order> ORDER = Binder.of(Order.Builder::new, Order.Builder::build)
+        .integer("id", Order.Builder::id)
+        .number("price", Order.Builder::price)
+        .bool("buy", Order.Builder::buy)
+        .array("fills", Binder.integer(), Order.Builder::fill);
+
+    @Test
+    public void testPrimitives() throws Exception {
+        final List<Order> orders = new ArrayList<>();
+        ORDER.bind("{\"id\": -42, \"price\": 1.25e1, \"buy\": true, \"fills\": [3, \"x\", 4]}")
+        .ifSuccess(orders::add)
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+        Assert.assertEquals(orders.get(0).id, -42L);
+        Assert.assertEquals(orders.get(0).price, 12.5, 0.0);
+        Assert.assertTrue(orders.get(0).buy);
+        Assert.assertEquals(orders.get(0).fills, Arrays.asList(3L, 4L));
+    }
+
+    @Test
+    public void testMismatchedTypeIsSkipped() throws Exception {
+        final List<Order> orders = new ArrayList<>();
+        ORDER.bind("{\"id\": \"42\", \"price\": {\"amount\": 1}, \"buy\": null}")
+        .ifSuccess(orders::add);
+        Assert.assertEquals(orders.get(0).id, 0L);
+        Assert.assertEquals(orders.get(0).price, 0.0, 0.0);
+        Assert.assertFalse(orders.get(0).buy);
+    }
+
+    @Test
+    public void testMalformedDocument() throws Exception {
+        final List<Exception> errors = new ArrayList<>();
+        ORDER.bind("{\"id\" 1}").ifFailure(errors::add);
+        ORDER.bind("{\"id\" : 1").ifFailure(errors::add);
+        Assert.assertEquals(errors.size(), 2);
+        Assert.assertTrue(errors.get(0) instanceof JSONParserException);
+    }
+
+    @Test
+    public void testLargeIntegersAreExact() throws Exception {
+        final List<Order> orders = new ArrayList<>();
+        ORDER.bind("{\"id\": 1234567890123456789, \"price\": 1234567890123456789, \"fills\": [-9223372036854775808, 9223372036854775807]}")
+        .ifSuccess(orders::add)
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+        Assert.assertEquals(orders.get(0).id, 1234567890123456789L);
+        Assert.assertEquals(orders.get(0).price, 1234567890123456789.0, 0.0);
+        Assert.assertEquals(orders.get(0).fills, Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE));
+
+        ORDER.bind("{\"id\": 2.0, \"fills\": [1e3, -5E+0]}")
+        .ifSuccess(orders::add)
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+        Assert.assertEquals(orders.get(1).id, 2L);
+        Assert.assertEquals(orders.get(1).fills, Arrays.asList(1000L, -5L));
+    }
+
+    @Test
+    public void testErrorsArePositioned() throws Exception {
+        final String[][] documents = {
+            {"{\"id\":1e}", "unexpected '}', expected a digit at line 1, column 9 (offset 8)"},
+            {"{\"id\":1}garbage", "unexpected 'g' after document at line 1, column 9 (offset 8)"},
+            {"{\"id\":-}", "digit expected after '-' at line 1, column 8 (offset 7)"},
+            {"{\"buy\":tru}", "true or false expected at line 1, column 11 (offset 10)"},
+            {"{\"id\" 1}", "unexpected '1', expected ':' at line 1, column 7 (offset 6)"},
+            {"{1:2}", "unexpected '1', expected a key at line 1, column 2 (offset 1)"},
+            {"{\"id\":1,}", "unexpected '}', expected a key at line 1, column 9 (offset 8)"},
+            {"{\"other\":}", "unexpected '}', expected a value at line 1, column 10 (offset 9)"},
+            {"{\"fills\":[1 2]}", "unexpected '2', expected ',' or ']' at line 1, column 13 (offset 12)"},
+            {"{\"id\":1", "unexpected end of document, expected '}' at line 1, column 8 (offset 7)"},
+            {"{\"id\":1e30}", "integer expected, found 1e30 at line 1, column 7 (offset 6)"},
+            {"{\"fills\":[1.5]}", "integer expected, found 1.5 at line 1, column 11 (offset 10)"},
+            {"{\"x\": @@@ garbage, \"id\":1}", "unexpected '@', expected a value at line 1, column 7 (offset 6)"},
+            {"{\"x\":[1,,2],\"id\":1}", "unexpected ',', expected a value at line 1, column 9 (offset 8)"},
+            {"{\"x\":{\"a\" 1},\"id\":1}", "unexpected '1', expected ':' at line 1, column 11 (offset 10)"},
+            {"{\"x\":frue,\"id\":1}", "false expected at line 1, column 7 (offset 6)"},
+        };
+        for (final String[] document : documents) {
+            ORDER.bind(document[0])
+            .ifSuccess(o -> Assert.fail("bound " + document[0]))
+            .ifFailure(e -> Assert.assertEquals(e.getMessage(), document[1]));
+            ORDER.bind(new ByteArrayInputStream(document[0].getBytes()))
+            .ifSuccess(o -> Assert.fail("bound " + document[0]))
+            .ifFailure(e -> Assert.assertEquals(e.getMessage(), document[1]));
+        }
+    }
+}
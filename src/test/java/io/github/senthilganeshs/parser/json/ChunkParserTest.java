@@ -0,0 +1,109 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+public class ChunkParserTest {
+
+    private static final String ARRAY = "[ {\"a\" : \"x]},\\\"y\"}, [1, [2]], \"s,\", 10.5, true ,{}]";
+
+    private static final List<String> ELEMENTS = generate(
+        "{\"a\" : \"x]},\\\"y\"}", "[1, [2]]", "\"s,\"", "10.5", "true", "{}");
+
+    @Test
+    public void testElementsAcrossEveryChunkBoundary() throws Exception {
+        final byte[] bytes = ARRAY.getBytes(StandardCharsets.UTF_8);
+        for (int size = 1; size <= bytes.length; size++) {
+            final ChunkParser chunks = ChunkParser.elements();
+            final List<String> actual = new ArrayList<>();
+            for (int offset = 0; offset < bytes.length; offset += size) {
+                chunks.feed(ByteBuffer.wrap(bytes, offset, Math.min(size, bytes.length - offset)));
+                drain(chunks, actual);
+            }
+            chunks.end();
+            drain(chunks, actual);
+            Assert.assertEquals(actual, ELEMENTS, "chunk size " + size);
+        }
+    }
+
+    @Test
+    public void testNewlineDelimitedValues() throws Exception {
+        final ChunkParser chunks = ChunkParser.values();
+        final List<String> actual = new ArrayList<>();
+        chunks.feed(ByteBuffer.wrap("{\"id\":1}\n{\"id\":2}{\"id\":3}\n4".getBytes()));
+        drain(chunks, actual);
+        Assert.assertEquals(actual, Arrays.asList("{\"id\":1}", "{\"id\":2}", "{\"id\":3}"));
+        chunks.end();
+        drain(chunks, actual);
+        Assert.assertEquals(actual.get(3), "4");
+    }
+
+    @Test
+    public void testTruncatedValue() throws Exception {
+        final List<String> errors = new ArrayList<>();
+        ChunkParser.values().feed(ByteBuffer.wrap("{\"id\":".getBytes())).end().next().isError(errors::add);
+        Assert.assertEquals(errors, Arrays.asList("unexpected end of document"));
+    }
+
+    @Test
+    public void testValueLimits() throws Exception {
+        final ChunkParser chunks = ChunkParser.elements(ParserLimits.defaults().maxDocumentSize(8).maxDepth(2));
+        final List<String> actual = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        chunks.feed(ByteBuffer.wrap("[[1], \"a long string\", [[[2]]], 3]".getBytes())).end();
+        Value value;
+        while ((value = chunks.next()) != null) {
+            final int failed = errors.size();
+            value.isError(errors::add);
+            if (errors.size() == failed)
+                actual.add(Generator.create().generate(value));
+        }
+        Assert.assertEquals(actual, Arrays.asList("[1]", "3"));
+        Assert.assertEquals(errors.size(), 2);
+        Assert.assertEquals(errors.get(0), "document larger than 8 bytes");
+    }
+
+    @Test
+    public void testElementSeparators() throws Exception {
+        Assert.assertEquals(frame("[] [ ] [1][2 , 3]"), Arrays.asList("1", "2", "3"));
+        Assert.assertEquals(frame("[1 2]"), Arrays.asList("1", "error: ',' or ']' expected, got '2'", "2"));
+        Assert.assertEquals(frame("[1,,2]"), Arrays.asList("1", "error: value expected, got ','", "2"));
+        Assert.assertEquals(frame("[,1]"), Arrays.asList("error: value expected, got ','", "1"));
+        Assert.assertEquals(frame("[1,][2]"), Arrays.asList("1", "error: value expected, got ']'", "2"));
+        Assert.assertEquals(frame("[{\"a\":1}\"b\"]"), Arrays.asList("{\"a\":1}", "error: ',' or ']' expected, got '\"'", "\"b\""));
+    }
+
+    /* elements of a whole document, errors as "error: " and their message. */
+    private static List<String> frame(final String document) {
+        final ChunkParser chunks = ChunkParser.elements().feed(ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8))).end();
+        final List<String> frames = new ArrayList<>();
+        Value value;
+        while ((value = chunks.next()) != null) {
+            final List<String> errors = new ArrayList<>();
+            value.isError(errors::add);
+            frames.add(errors.isEmpty() ? Generator.create().generate(value) : "error: " + errors.get(0));
+        }
+        return frames;
+    }
+
+    private static List<String> generate(final String... documents) {
+        final List<String> generated = new ArrayList<>();
+        for (final String document : documents)
+            Parser.create().parse(document).ifSuccess(v -> generated.add(Generator.create().generate(v)));
+        return generated;
+    }
+
+    private static void drain(final ChunkParser chunks, final List<String> into) {
+        Value value;
+        while ((value = chunks.next()) != null)
+            into.add(Generator.create().generate(value));
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+public class CompressionTest {
+
+    /* a few megabytes of text, so the ring of buffers goes round many times. */
+    private static Value export(final int rows) {
+        final List<Value> values = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            final Map<Value, Value> row = new LinkedHashMap<>();
+            row.put(Value.string("id"), Value.integer(i));
+            row.put(Value.string("name"), Value.string("row \"" + i + "\" caf\u00e9"));
+            row.put(Value.string("price"), Value.number(i / 7.0));
+            row.put(Value.string("tags"), Value.arr(Arrays.asList(Value.string("a" + i % 13), Value.bool(i % 2 == 0))));
+            values.add(Value.json(row));
+        }
+        return Value.arr(values);
+    }
+
+    private static byte[] gzip(final byte[] bytes) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(final byte[] bytes) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            final byte[] buf = new byte[8192];
+            for (int n; (n = gzip.read(buf)) != -1; )
+                out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Value export = export(40_000);
+        for (final Compression compression : Compression.values()) {
+            for (final Generator generator : Arrays.asList(Generator.create(), Generator.canonical(), Generator.parallel())) {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                generator.write(export, out, compression)
+                .ifSuccess(n -> Assert.assertEquals(n.longValue(), out.size()))
+                .ifFailure(e -> Assert.fail(e.getMessage()));
+                for (final Parser parser : Arrays.asList(Parser.create(), Parser.simple())) {
+                    parser.parse(new ByteArrayInputStream(out.toByteArray()), compression)
+                    .ifSuccess(v -> Assert.assertEquals(v, export))
+                    .ifFailure(e -> Assert.fail(compression + " " + e.getMessage()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadsJdkGzip() throws Exception {
+        final Value export = export(20_000);
+        final String text = Generator.create().generate(export);
+        final byte[] compressed = gzip(text.getBytes(StandardCharsets.UTF_8));
+        Parser.create().parse(new ByteArrayInputStream(compressed), Compression.GZIP)
+        .ifSuccess(v -> Assert.assertEquals(v, export))
+        .ifFailure(e -> Assert.fail(e.getMessage()));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Generator.create().write(export, out, Compression.GZIP);
+        Assert.assertEquals(new String(gunzip(out.toByteArray()), StandardCharsets.UTF_8), text);
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        final List<JSONParserException> errors = new ArrayList<>();
+        Parser.create().parse(new ByteArrayInputStream("not gzip".getBytes()), Compression.GZIP).ifFailure(errors::add);
+        final byte[] compressed = gzip(Generator.create().generate(export(20_000)).getBytes(StandardCharsets.UTF_8));
+        Parser.create().parse(new ByteArrayInputStream(Arrays.copyOf(compressed, compressed.length / 2)), Compression.GZIP)
+        .ifFailure(errors::add);
+        Assert.assertEquals(errors.size(), 2);
+        Assert.assertEquals(errors.get(0).kind(), JSONParserException.Kind.IO);
+        Assert.assertEquals(errors.get(1).kind(), JSONParserException.Kind.IO);
+
+        /* a syntax error early on stops the pipeline with most of the input unread. */
+        final StringBuilder doc = new StringBuilder("[1, x");
+        for (int i = 0; i < 200_000; i++)
+            doc.append(", ").append(i);
+        final byte[] bad = gzip(doc.append(']').toString().getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < 50; i++) {
+            Parser.create().parse(new ByteArrayInputStream(bad), Compression.GZIP)
+            .ifSuccess(v -> Assert.fail("parsed"))
+            .ifFailure(e -> Assert.assertEquals(e.kind(), JSONParserException.Kind.SYNTAX));
+        }
+    }
+
+    @Test
+    public void testGeneratorFailureLeavesNoTrailer() throws Exception {
+        /* the NaN comes after several buffers have gone through the encoder. */
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            Generator.create().write(export(20_000).append(Value.number(Double.NaN)), out, Compression.GZIP);
+            Assert.fail("NaN written");
+        } catch (final IllegalArgumentException e) {
+            final int size = out.size();
+            Assert.assertTrue(size > 0);
+            Thread.sleep(200);
+            Assert.assertEquals(out.size(), size);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            final byte[] buf = new byte[1 << 16];
+            while (in.read(buf) != -1)
+                ;
+            Assert.fail("truncated stream read to its end");
+        } catch (final java.io.IOException e) {
+            // expected.
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private static final int ITERATIONS = 2000;
+
+    private static final String[] CORPUS = {
+        "{\"id\":1,\"name\":\"one\",\"tags\":[\"a\",\"b\"],\"nested\":{\"ok\":true}}",
+        "[1,2,3,{\"x\":[10.5,{\"y\":\"z\"}]}]",
+        "{\"id\":2,\"name\":\"two\",\"tags\":[],\"nested\":{\"ok\":false,\"extra\":12}}",
+        "\"just a string\"",
+        "[[[[[[\"deep\"]]]]]]"
+    };
+
+    @Test
+    public void testSharedParserAndGenerator() throws Exception {
+        Assert.assertSame(Parser.create(), Parser.create());
+        Assert.assertSame(Generator.create(), Generator.create());
+
+        final String[] expected = new String[CORPUS.length];
+        for (int i = 0; i < CORPUS.length; i++)
+            expected[i] = generate(Parser.create(), stream(CORPUS[i]));
+
+        final List<String> mismatches = stress(() -> {
+            final List<String> failed = new ArrayList<>();
+            for (int n = 0; n < ITERATIONS; n++) {
+                final int i = n % CORPUS.length;
+                final String actual = n % 2 == 0
+                    ? generate(Parser.create(), stream(CORPUS[i]))
+                    : generate(Parser.create(), CORPUS[i]);
+                if (!expected[i].equals(actual))
+                    failed.add(actual);
+            }
+            return failed;
+        });
+        Assert.assertEquals(mismatches, new ArrayList<String>());
+    }
+
+    @Test
+    public void testSharedBinderAndSchema() throws Exception {
+        final Binder<String> binder = Binder.of(StringBuilder::new, StringBuilder::toString)
+            .string("name", StringBuilder::append)
+            .integer("id", StringBuilder::append);
+        final Parser schema = Parser.compile(Schema.object()
+            .field("id", Schema.integer())
+            .field("name", Schema.string()));
+
+        final List<String> mismatches = stress(() -> {
+            final List<String> failed = new ArrayList<>();
+            for (int n = 0; n < ITERATIONS; n++) {
+                final String doc = "{\"id\":" + n + ",\"name\":\"n" + n + "\"}";
+                final AtomicReference<String> bound = new AtomicReference<>();
+                binder.bind(stream(doc)).ifSuccess(bound::set);
+                if (!(n + "n" + n).equals(bound.get()))
+                    failed.add(bound.get());
+                final String generated = generate(schema, stream(doc));
+                if (!doc.equals(generated))
+                    failed.add(generated);
+            }
+            return failed;
+        });
+        Assert.assertEquals(mismatches, new ArrayList<String>());
+    }
+
+    @Test
+    public void testNestedParseOnSameThread() throws Exception {
+        final AtomicReference<String> inner = new AtomicReference<>();
+        final Binder<String> binder = Binder.of(StringBuilder::new, StringBuilder::toString)
+            .string("json", (bld, json) -> {
+                inner.set(generate(Parser.create(), stream(json)));
+                bld.append(json);
+            })
+            .string("after", StringBuilder::append);
+        final AtomicReference<String> outer = new AtomicReference<>();
+        // the inner document straddles a buffer refill of the outer one, so sharing the buffer
+        // would overwrite the unread tail of the outer document.
+        final StringBuilder doc = new StringBuilder("{\"pad\":\"");
+        for (int i = 0; i < 8074; i++)
+            doc.append('x');
+        doc.append("\",\"json\":\"[1,2");
+        for (int i = 0; i < 1000; i++)
+            doc.append(' ');
+        doc.append("]\",\"after\":\"!\"}");
+        binder.bind(stream(doc.toString())).ifSuccess(outer::set);
+        Assert.assertEquals(inner.get(), "[1,2]");
+        Assert.assertNotNull(outer.get());
+        Assert.assertTrue(outer.get().startsWith("[1,2 ") && outer.get().endsWith(" ]!"), outer.get());
+    }
+
+    private static List<String> stress(final Callable<List<String>> task) throws Exception {
+        final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            final List<String> failed = new ArrayList<>();
+            for (final Future<List<String>> f : futures)
+                failed.addAll(f.get());
+            return failed;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static InputStream stream(final String doc) {
+        return new ByteArrayInputStream(doc.getBytes());
+    }
+
+    private static String generate(final Parser parser, final InputStream doc) {
+        final AtomicReference<String> result = new AtomicReference<>();
+        parser.parse(doc).ifSuccess(v -> result.set(Generator.create().generate(v)));
+        return result.get();
+    }
+
+    private static String generate(final Parser parser, final String doc) {
+        final AtomicReference<String> result = new AtomicReference<>();
+        parser.parse(doc).ifSuccess(v -> result.set(Generator.create().generate(v)));
+        return result.get();
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+
+public class DocumentReaderTest {
+
+    @Test
+    public void testConcatenatedDocuments() throws Exception {
+        final StringBuilder feed = new StringBuilder();
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            final String doc = i % 3 == 0 ? "{\"id\":" + i + ",\"s\":\"a}b\"}" : i % 3 == 1 ? "[" + i + ",[]]" : "\"" + i + "\"\n";
+            feed.append(doc);
+            expected.addAll(generate(doc));
+        }
+        final List<String> actual = new ArrayList<>();
+        DocumentReader.of(new ByteArrayInputStream(feed.toString().getBytes(StandardCharsets.UTF_8))).stream()
+        .forEach(doc -> doc.ifSuccess(v -> actual.add(Generator.create().generate(v)))
+            .ifFailure(e -> Assert.fail(e.getMessage())));
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testDocumentLimitAppliesToEachValue() throws Exception {
+        final DocumentReader reader = DocumentReader.of(
+            new ByteArrayInputStream("[1,2,3] [4,5,6] [7,8,9] [10,11,12,13,14] [15]".getBytes()),
+            ParserLimits.defaults().maxDocumentSize(10), Instrumentation.NONE);
+        final List<String> actual = new ArrayList<>();
+        final List<JSONParserException> errors = new ArrayList<>();
+        reader.forEachRemaining(doc -> doc.ifSuccess(v -> actual.add(Generator.create().generate(v))).ifFailure(errors::add));
+        Assert.assertEquals(actual, generate("[1,2,3]", "[4,5,6]", "[7,8,9]"));
+        Assert.assertEquals(errors.size(), 1);
+        Assert.assertEquals(errors.get(0).kind(), JSONParserException.Kind.LIMIT);
+        Assert.assertEquals(errors.get(0).offset(), 33);
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testBrokenFeedEndsWithFailure() throws Exception {
+        final InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        final List<String> actual = new ArrayList<>();
+        final List<JSONParserException> errors = new ArrayList<>();
+        DocumentReader.of(new SequenceInputStream(new ByteArrayInputStream("{\"a\":1} {\"b\":".getBytes()), broken))
+        .forEachRemaining(doc -> doc.ifSuccess(v -> actual.add(Generator.create().generate(v))).ifFailure(errors::add));
+        Assert.assertEquals(actual, generate("{\"a\":1}"));
+        Assert.assertEquals(errors.size(), 1);
+        Assert.assertEquals(errors.get(0).kind(), JSONParserException.Kind.IO);
+    }
+
+    private static List<String> generate(final String... documents) {
+        final List<String> generated = new ArrayList<>();
+        for (final String document : documents)
+            Parser.create().parse(document).ifSuccess(v -> generated.add(Generator.create().generate(v)));
+        return generated;
+    }
+}
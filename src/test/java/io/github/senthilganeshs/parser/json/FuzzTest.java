@@ -0,0 +1,407 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.object.java.lang.Either;
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+/**
+ * Differential fuzzing: structured random documents of several input classes are parsed by
+ * every engine and input path, and all of them must build the same value as the stream
+ * parser reading a string. Mutated documents must be accepted or rejected alike by every
+ * engine and the validator, without any of them throwing. Runs are
+ * seeded; {@code -Dfuzz.seed} and {@code -Dfuzz.iterations} replay or extend one.
+ */
+public class FuzzTest {
+
+    private static final long SEED = Long.getLong("fuzz.seed", 20240601L);
+
+    private static final int ITERATIONS = Integer.getInteger("fuzz.iterations", 150);
+
+    enum Input {
+        NUMBERS, STRINGS, NESTED, WIDE, WHITESPACE, LARGE, RECORDS
+    }
+
+    private static final Schema RECORD = Schema.object()
+        .field("id", Schema.integer())
+        .field("name", Schema.string())
+        .field("price", Schema.number())
+        .field("active", Schema.bool())
+        .field("tags", Schema.array(Schema.string()));
+
+    /* writes one random document of its input class. */
+    static final class Generator {
+
+        private final Random random;
+
+        private final Input input;
+
+        private final StringBuilder out = new StringBuilder();
+
+        Generator(final Random random, final Input input) {
+            this.random = random;
+            this.input = input;
+        }
+
+        String document() {
+            out.setLength(0);
+            space();
+            switch (input) {
+            case NUMBERS:
+                array(0, 1 + random.nextInt(40), this::number);
+                break;
+            case STRINGS:
+                array(0, 1 + random.nextInt(20), this::string);
+                break;
+            case NESTED:
+                value(0, 40);
+                break;
+            case WIDE:
+                object(0, 60 + random.nextInt(200), 1);
+                break;
+            case LARGE:
+                out.append('[');
+                value(1, 4);
+                while (out.length() < 20_000) {
+                    out.append(',');
+                    value(1, 4);
+                }
+                out.append(']');
+                break;
+            case RECORDS:
+                record();
+                break;
+            default:
+                value(0, 6);
+            }
+            space();
+            return out.toString();
+        }
+
+        private void value(final int depth, final int max) {
+            final int pick = random.nextInt(depth < max ? 8 : 5);
+            switch (pick) {
+            case 0: number(); break;
+            case 1: string(); break;
+            case 2: out.append(random.nextBoolean() ? "true" : "false"); break;
+            case 3: out.append("null"); break;
+            case 4: number(); break;
+            case 5:
+            case 6: array(depth, random.nextInt(6), () -> value(depth + 1, max)); break;
+            default: object(depth, random.nextInt(6), max);
+            }
+        }
+
+        private void array(final int depth, final int n, final Runnable element) {
+            out.append('[');
+            for (int i = 0; i < n; i++) {
+                if (i > 0)
+                    out.append(',');
+                space();
+                element.run();
+                space();
+            }
+            out.append(']');
+        }
+
+        private void object(final int depth, final int n, final int max) {
+            out.append('{');
+            for (int i = 0; i < n; i++) {
+                if (i > 0)
+                    out.append(',');
+                space();
+                key();
+                space();
+                out.append(':');
+                space();
+                value(depth + 1, max);
+                space();
+            }
+            out.append('}');
+        }
+
+        /* one letter keys repeat within an object now and then, longer ones rarely do. */
+        private void key() {
+            out.append('"');
+            if (random.nextInt(4) == 0)
+                out.append((char) ('a' + random.nextInt(3)));
+            else
+                chars(1 + random.nextInt(8));
+            out.append('"');
+        }
+
+        private void record() {
+            out.append("{\"id\":").append(random.nextInt(1 << 30))
+            .append(",\"name\":");
+            string();
+            out.append(",\"price\":").append(random.nextInt(100_000)).append('.').append(random.nextInt(100))
+            .append(",\"active\":").append(random.nextBoolean())
+            .append(",\"tags\":");
+            array(0, random.nextInt(5), this::string);
+            out.append('}');
+        }
+
+        private void number() {
+            if (random.nextInt(4) == 0)
+                out.append('-');
+            switch (random.nextInt(7)) {
+            case 0:
+                out.append(random.nextInt(10));
+                break;
+            case 1:
+                out.append(Math.abs(random.nextLong() >> random.nextInt(63)));
+                break;
+            case 2:
+                out.append("9223372036854775808").append(random.nextInt(1000));
+                break;
+            case 3:
+                out.append(random.nextInt(1000)).append('.').append(random.nextInt(1_000_000));
+                break;
+            case 4:
+                out.append(1 + random.nextInt(9)).append(random.nextBoolean() ? 'e' : 'E');
+                out.append(random.nextBoolean() ? "" : random.nextBoolean() ? "+" : "-");
+                out.append(random.nextInt(300));
+                break;
+            case 5:
+                out.append(random.nextInt(100)).append('.').append(random.nextInt(100)).append("e-").append(random.nextInt(20));
+                break;
+            default:
+                out.append("0.0");
+            }
+        }
+
+        private void string() {
+            out.append('"');
+            chars(random.nextInt(input == Input.STRINGS ? 40 : 12));
+            out.append('"');
+        }
+
+        private void chars(final int n) {
+            for (int i = 0; i < n; i++) {
+                switch (input == Input.STRINGS ? random.nextInt(8) : random.nextInt(40)) {
+                case 0:
+                    out.append('\\').append("\"\\/bfnrt".charAt(random.nextInt(8)));
+                    break;
+                case 1:
+                    out.append(String.format("\\u%04x", random.nextInt(0xD800)));
+                    break;
+                case 2:
+                    out.append((char) (0xA0 + random.nextInt(0x700)));
+                    break;
+                case 3:
+                    out.append((char) (0x3000 + random.nextInt(0x5000)));
+                    break;
+                case 4:
+                    out.appendCodePoint(0x1F300 + random.nextInt(0x300));
+                    break;
+                case 5:
+                    final int astral = 0x10000 + random.nextInt(0xF0000);
+                    out.append(String.format("\\u%04X\\u%04X", (int) Character.highSurrogate(astral), (int) Character.lowSurrogate(astral)));
+                    break;
+                default:
+                    final char ch = (char) (' ' + random.nextInt(95));
+                    out.append(ch == '"' || ch == '\\' ? 'q' : ch);
+                }
+            }
+        }
+
+        private void space() {
+            final int n = input == Input.WHITESPACE ? random.nextInt(6) : random.nextInt(10) == 0 ? 1 : 0;
+            for (int i = 0; i < n; i++)
+                out.append(" \t\n\r".charAt(random.nextInt(4)));
+        }
+    }
+
+    /* hands out at most a few bytes per read, so every token ends up split across reads. */
+    static InputStream trickle(final byte[] bytes, final Random random) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(final byte[] b, final int off, final int len) {
+                return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+            }
+        };
+    }
+
+    /* the one value of the document fed in small chunks, or the first of several. */
+    static Value chunked(final byte[] bytes, final Random random) {
+        final ChunkParser chunks = ChunkParser.values();
+        final List<Value> values = new ArrayList<>();
+        for (int i = 0; i < bytes.length; ) {
+            final int n = Math.min(bytes.length - i, 1 + random.nextInt(64));
+            chunks.feed(ByteBuffer.wrap(bytes, i, n));
+            for (Value value; (value = chunks.next()) != null; )
+                values.add(value);
+            i += n;
+        }
+        for (Value value; (value = chunks.end().next()) != null; )
+            values.add(value);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * @return every engine and input path, named, for one document.
+     */
+    static Map<String, Function<String, Either<Value, JSONParserException>>> engines(final Random random) {
+        final Map<String, Function<String, Either<Value, JSONParserException>>> engines = new LinkedHashMap<>();
+        engines.put("simple", Parser.simple()::parse);
+        engines.put("simple stream", doc -> Parser.simple().parse(new ByteArrayInputStream(utf8(doc))));
+        engines.put("stream trickle", doc -> Parser.streamParser().parse(trickle(utf8(doc), random)));
+        engines.put("stream channel", doc -> Parser.streamParser().parse(Channels.newChannel(new ByteArrayInputStream(utf8(doc)))));
+        engines.put("schema any", Parser.compile(Schema.any())::parse);
+        engines.put("schema any trickle", doc -> Parser.compile(Schema.any()).parse(trickle(utf8(doc), random)));
+        engines.put("chunks", doc -> Either.succ(chunked(utf8(doc), random)));
+        return engines;
+    }
+
+    static byte[] utf8(final String doc) {
+        return doc.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String excerpt(final String doc) {
+        return doc.length() <= 200 ? doc : doc.substring(0, 200) + "...";
+    }
+
+    @Test
+    public void testEnginesAgree() {
+        final Random random = new Random(SEED);
+        final Map<String, Function<String, Either<Value, JSONParserException>>> engines = engines(random);
+        for (final Input input : Input.values()) {
+            final Generator generator = new Generator(random, input);
+            for (int i = 0; i < ITERATIONS; i++) {
+                final String doc = generator.document();
+                final String where = input + " #" + i + " (seed " + SEED + "): " + excerpt(doc);
+                final Value[] expected = {null};
+                Parser.streamParser().parse(doc).ifSuccess(v -> expected[0] = v)
+                .ifFailure(e -> Assert.fail("stream " + e.getMessage() + " " + where));
+                final String[] invalid = {null};
+                Parser.validate(new ByteArrayInputStream(utf8(doc))).ifFailure(e -> invalid[0] = e.getMessage());
+                Assert.assertTrue(invalid[0] == null, "validate " + invalid[0] + " " + where);
+                for (final Map.Entry<String, Function<String, Either<Value, JSONParserException>>> engine : engines.entrySet()) {
+                    final Value[] actual = {null};
+                    engine.getValue().apply(doc).ifSuccess(v -> actual[0] = v)
+                    .ifFailure(e -> Assert.fail(engine.getKey() + " " + e.getMessage() + " " + where));
+                    Assert.assertEquals(actual[0], expected[0], engine.getKey() + " " + where);
+                }
+                if (input == Input.RECORDS)
+                    assertRecord(doc, expected[0], where);
+            }
+        }
+    }
+
+    static final class Record {
+        long id;
+        String name;
+        double price;
+        boolean active;
+        final List<String> tags = new ArrayList<>();
+    }
+
+    private static final Binder<Record> BINDER = Binder.of(Record::new, r -> r)
+        .integer("id", (r, v) -> r.id = v)
+        .string("name", (r, v) -> r.name = v)
+        .number("price", (r, v) -> r.price = v)
+        .bool("active", (r, v) -> r.active = v)
+        .array("tags", Binder.string(), (r, v) -> r.tags.add(v));
+
+    private static void assertRecord(final String doc, final Value expected, final String where) {
+        final Value[] compiled = {null};
+        Parser.compile(RECORD).parse(doc).ifSuccess(v -> compiled[0] = v)
+        .ifFailure(e -> Assert.fail("schema " + e.getMessage() + " " + where));
+        Assert.assertEquals(compiled[0], expected, "schema " + where);
+
+        final Record[] bound = {null};
+        BINDER.bind(doc).ifSuccess(r -> bound[0] = r).ifFailure(e -> Assert.fail("binder " + e.getMessage() + " " + where));
+        final Value fromBinder = Value.json()
+            .with(Value.string("id"), Value.integer(bound[0].id))
+            .with(Value.string("name"), Value.string(bound[0].name))
+            .with(Value.string("price"), Value.number(bound[0].price))
+            .with(Value.string("active"), Value.bool(bound[0].active))
+            .with(Value.string("tags"), bound[0].tags.stream().map(Value::string)
+                .reduce(Value.arr(), Value::append, (l, r) -> l));
+        Assert.assertEquals(fromBinder, expected, "binder " + where);
+    }
+
+    @Test
+    public void testMutationsAgreeWithValidator() {
+        final Random random = new Random(SEED + 1);
+        final Map<String, Function<String, Either<Value, JSONParserException>>> engines = engines(random);
+        final String noise = "{}[]\",:\\ 0-.eE+tfnu\u00e9";
+        /* letters of the literals, so that true, false and null get misspelt. */
+        final String letters = "truefalsn";
+        for (final Input input : Input.values()) {
+            final Generator generator = new Generator(random, input);
+            for (int i = 0; i < ITERATIONS; i++) {
+                final StringBuilder doc = new StringBuilder(generator.document());
+                for (int m = 1 + random.nextInt(3); m > 0 && doc.length() > 0; m--) {
+                    final int at = random.nextInt(doc.length());
+                    switch (random.nextInt(4)) {
+                    case 0: doc.deleteCharAt(at); break;
+                    case 1: doc.insert(at, noise.charAt(random.nextInt(noise.length()))); break;
+                    case 2: doc.setCharAt(at, letters.charAt(random.nextInt(letters.length()))); break;
+                    default: doc.setLength(at);
+                    }
+                }
+                final String mutated = doc.toString();
+                final String where = input + " #" + i + " (seed " + SEED + "): " + excerpt(mutated);
+                final boolean[] valid = {true};
+                Parser.validate(new ByteArrayInputStream(utf8(mutated))).ifFailure(e -> valid[0] = false);
+                for (final Map.Entry<String, Function<String, Either<Value, JSONParserException>>> engine : engines.entrySet()) {
+                    /* chunks frame several documents out of one input, so there is no one verdict. */
+                    if (engine.getKey().equals("chunks"))
+                        continue;
+                    final boolean[] accepted = {false};
+                    try {
+                        engine.getValue().apply(mutated).ifSuccess(v -> accepted[0] = true);
+                    } catch (final RuntimeException | StackOverflowError e) {
+                        throw new AssertionError(engine.getKey() + " threw on " + where, e);
+                    }
+                    Assert.assertEquals(accepted[0], valid[0], engine.getKey() + " disagrees with validate on " + where);
+                }
+            }
+        }
+    }
+
+    /**
+     * throughput of each engine per input class, for comparing engines rather than gating.
+     */
+    @Test(groups = "perf")
+    public void testThroughputByInput() {
+        final Random random = new Random(SEED);
+        final Map<String, Function<String, Either<Value, JSONParserException>>> engines = engines(random);
+        for (final Input input : Input.values()) {
+            final Generator generator = new Generator(random, input);
+            final List<String> corpus = new ArrayList<>();
+            long bytes = 0;
+            while (bytes < 1 << 20) {
+                corpus.add(generator.document());
+                bytes += corpus.get(corpus.size() - 1).length();
+            }
+            final StringBuilder line = new StringBuilder(String.format("%-10s", input));
+            for (final Map.Entry<String, Function<String, Either<Value, JSONParserException>>> engine : engines.entrySet()) {
+                long best = Long.MAX_VALUE;
+                for (int round = 0; round < 5; round++) {
+                    final long start = System.nanoTime();
+                    for (final String doc : corpus)
+                        engine.getValue().apply(doc);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                line.append(String.format("  %s %.1f MB/s", engine.getKey(), bytes * 1e3 / best));
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -1,12 +1,22 @@
 package io.github.senthilganeshs.parser.json;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
 
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
 import io.github.senthilganeshs.parser.json.Parser.Value;
 
 public class GeneratorTest {
@@ -36,6 +46,48 @@ public class GeneratorTest {
         AssertJUnit.assertEquals("false", Generator.create().generate(Value.bool(false)));
     }
     
+    @Test
+    public void testStringEscapes() throws Exception {
+        final String text = "q\" b\\ s/ \b\f\n\r\t \u0001\u001f caf\u00e9 \u20ac \uD83D\uDE00";
+        AssertJUnit.assertEquals("\"q\\\" b\\\\ s/ \\b\\f\\n\\r\\t \\u0001\\u001f caf\u00e9 \u20ac \uD83D\uDE00\"",
+            Generator.create().generate(Value.string(text)));
+        Parser.create().parse(Generator.create().generate(Value.string(text)))
+        .ifSuccess(v -> AssertJUnit.assertEquals(Value.string(text), v))
+        .ifFailure(e -> AssertJUnit.fail(e.getLocalizedMessage()));
+    }
+
+    @Test
+    public void testLoneSurrogatesRoundTrip() throws Exception {
+        final String document = "[\"a\\ud800b\\udc00\",\"\\udbff\\udfff\"]";
+        final Value[] parsed = {null};
+        Parser.create().parse(document).ifSuccess(v -> parsed[0] = v);
+        AssertJUnit.assertEquals("[\"a\\ud800b\\udc00\",\"\udbff\udfff\"]", Generator.create().generate(parsed[0]));
+        AssertJUnit.assertEquals("[\"a\\ud800b\\udc00\",\"\udbff\udfff\"]", Generator.create().generate(Tape.of(parsed[0]).root()));
+        Parser.create().parse(Generator.create().generate(parsed[0]))
+        .ifSuccess(v -> AssertJUnit.assertEquals(parsed[0], v))
+        .ifFailure(e -> AssertJUnit.fail(e.getMessage()));
+        try {
+            Generator.canonical().generate(parsed[0]);
+            AssertJUnit.fail("lone surrogate in canonical form");
+        } catch (final IllegalArgumentException e) {
+            AssertJUnit.assertEquals("lone surrogate in string", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        final double[] doubles = {100.0, 1e7, 9999999.0, 0.001, 1e-4, -0.0, 0.1 + 0.2, 2e23, 5e-324, Double.MAX_VALUE};
+        final String[] simple = {"100.0", "1.0E7", "9999999.0", "0.001", "1.0E-4", "-0.0", "0.30000000000000004", "2.0E23", "5.0E-324", "1.7976931348623157E308"};
+        final String[] canonical = {"100", "10000000", "9999999", "0.001", "0.0001", "0", "0.30000000000000004", "2e+23", "5e-324", "1.7976931348623157e+308"};
+        for (int i = 0; i < doubles.length; i++) {
+            AssertJUnit.assertEquals(simple[i], Generator.create().generate(Value.number(doubles[i])));
+            AssertJUnit.assertEquals(canonical[i], Generator.canonical().generate(Value.number(doubles[i])));
+        }
+        AssertJUnit.assertEquals("-9223372036854775808", Generator.create().generate(Value.integer(Long.MIN_VALUE)));
+        AssertJUnit.assertEquals("[0,-7,10,99,100,-123456789012]", Generator.create().generate(Value.arr(Arrays.asList(
+            Value.integer(0), Value.integer(-7), Value.integer(10), Value.integer(99), Value.integer(100), Value.integer(-123456789012L)))));
+    }
+
     @Test
     public void testArrayJSON() throws Exception {
         AssertJUnit.assertEquals(
@@ -92,7 +144,215 @@ public class GeneratorTest {
                         Value.integer(12), 
                         Value.bool(true)))));
     }
-    
-    
 
+    @Test
+    public void testCanonicalRFC8785Sample() throws Exception {
+        final Value value = Value.json()
+            .with(Value.string("numbers"), Value.arr(Arrays.asList(
+                Value.number(333333333.33333329), Value.number(1E30), Value.number(4.50),
+                Value.number(2e-3), Value.number(0.000000000000000000000000001))))
+            .with(Value.string("string"), Value.string("\u20ac$" + (char) 0x0F + "\nA'B\"\\\\\"/"))
+            .with(Value.string("literals"), Value.arr(Arrays.asList(Value.nil(), Value.bool(true), Value.bool(false))));
+        AssertJUnit.assertEquals(
+            "{\"literals\":[null,true,false],\"numbers\":[333333333.3333333,1e+30,4.5,0.002,1e-27],"
+            + "\"string\":\"\u20ac$\\u000f\\nA'B\\\"\\\\\\\\\\\"/\"}",
+            Generator.canonical().generate(value));
+    }
+
+    @Test
+    public void testCanonicalKeyOrder() throws Exception {
+        Value value = Value.json();
+        for (final String key : new String[] {"\u20ac", "\r", "\ufb33", "1", "\ud83d\ude00", "\u0080", "\u00f6"})
+            value = value.with(Value.string(key), Value.integer(key.length()));
+        AssertJUnit.assertEquals("{\"\\r\":1,\"1\":1,\"\u0080\":1,\"\u00f6\":1,\"\u20ac\":1,\"\ud83d\ude00\":2,\"\ufb33\":1}",
+            Generator.canonical().generate(value));
+
+        final Value[] parsed = {null, null};
+        Parser.create().parse("{\"b\":[1,{\"z\":1,\"y\":2}],\"a\":-0.0}").ifSuccess(v -> parsed[0] = v);
+        Parser.create().parse("{\"a\":0,\"b\":[1.0,{\"y\":2,\"z\":1}]}").ifSuccess(v -> parsed[1] = v);
+        AssertJUnit.assertEquals("{\"a\":0,\"b\":[1,{\"y\":2,\"z\":1}]}", Generator.canonical().generate(parsed[0]));
+        AssertJUnit.assertEquals(Generator.canonical().generate(parsed[0]), Generator.canonical().generate(parsed[1]));
+    }
+
+    @Test
+    public void testCanonicalDigest() throws Exception {
+        final StringBuilder doc = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++)
+            doc.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"n\u00e9").append(i).append("\"}");
+        doc.append("]");
+        final Value[] value = {null};
+        Parser.create().parse(doc.toString()).ifSuccess(v -> value[0] = v);
+        final byte[] expected = MessageDigest.getInstance("SHA-256")
+            .digest(Generator.canonical().generate(value[0]).getBytes(StandardCharsets.UTF_8));
+        AssertJUnit.assertTrue(Arrays.equals(expected,
+            Generator.canonical().digest(value[0], MessageDigest.getInstance("SHA-256"))));
+    }
+
+    @Test
+    public void testMinifyAndPretty() throws Exception {
+        final String doc = " { \"a\" : [ 1 , 2.5e3 , { } , [ ] ] ,\n\t\"s\" : \"x { , y \\\" z\" , \"n\" : { \"b\" : null } } ";
+        AssertJUnit.assertEquals("{\"a\":[1,2.5e3,{},[]],\"s\":\"x { , y \\\" z\",\"n\":{\"b\":null}}", minify(doc));
+        AssertJUnit.assertEquals("{\n"
+            + "  \"a\": [\n"
+            + "    1,\n"
+            + "    2.5e3,\n"
+            + "    {},\n"
+            + "    []\n"
+            + "  ],\n"
+            + "  \"s\": \"x { , y \\\" z\",\n"
+            + "  \"n\": {\n"
+            + "    \"b\": null\n"
+            + "  }\n"
+            + "}\n", pretty(doc, 2));
+        AssertJUnit.assertEquals(pretty(doc, 2), pretty(minify(doc), 2));
+        AssertJUnit.assertEquals("1\n\"a\"\n{\"b\":2}", minify("1 \"a\"\n {\"b\" : 2}\n"));
+    }
+
+    @Test
+    public void testMinifyAcrossBuffers() throws Exception {
+        final StringBuilder doc = new StringBuilder("[\n");
+        for (int i = 0; i < 5000; i++)
+            doc.append(i == 0 ? "" : ",\n").append("  {\"id\" : ").append(i).append(", \"name\" : \"a \\\\ b \\\" ").append(i).append("\"}");
+        doc.append("\n]");
+        final Value[] values = {null, null};
+        Parser.create().parse(doc.toString()).ifSuccess(v -> values[0] = v);
+        Parser.create().parse(minify(doc.toString())).ifSuccess(v -> values[1] = v);
+        AssertJUnit.assertEquals(values[0], values[1]);
+        AssertJUnit.assertEquals(minify(doc.toString()), minify(pretty(doc.toString(), 4)));
+
+        final boolean[] failed = {false};
+        Generator.minify(new ByteArrayInputStream("{\"a\":\"b}".getBytes()), new ByteArrayOutputStream())
+        .ifFailure(e -> failed[0] = true);
+        AssertJUnit.assertTrue(failed[0]);
+    }
+
+    @Test
+    public void testReformatChecksGrammar() throws Exception {
+        AssertJUnit.assertEquals("{}\n[]\n1\n\"a\"", minify("{}[]1\"a\""));
+        AssertJUnit.assertEquals("[-0.5e+3,true,null]", minify("[ -0.5e+3 , true , null ]"));
+        AssertJUnit.assertEquals("", minify(" \n"));
+        final String[][] bad = {
+            {"{\"a\" : tru , }", "unexpected ' ', expected 'e'"},
+            {"{\"a\" : true , }", "unexpected '}', expected a key"},
+            {"][", "unexpected ']', expected a value"},
+            {"[1 2]", "unexpected '2', expected ',' or ']'"},
+            {"[1,,2]", "unexpected ',', expected a value"},
+            {"{\"a\" 1}", "unexpected '1', expected ':'"},
+            {"{1:2}", "unexpected '1', expected a key or '}'"},
+            {"[1}", "unexpected '}', expected ',' or ']'"},
+            {"[01]", "unexpected '1', expected ',' or ']'"},
+            {"[1.]", "unexpected ']', expected a digit"},
+            {"[\"\\x\"]", "unexpected 'x', expected an escape character"},
+            {"[\"\\u12g4\"]", "unexpected 'g', expected a hex digit"},
+            {"[\"a\tb\"]", "unexpected byte 0x09, expected an escaped control character"},
+            {"[1,", "unexpected end of document, expected a value"},
+            {"-", "unexpected end of document, expected a digit"},
+            {"nul", "unexpected end of document, expected 'l'"},
+        };
+        for (final String[] test : bad) {
+            final JSONParserException[] failure = {null};
+            Generator.minify(new ByteArrayInputStream(test[0].getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream())
+            .ifFailure(e -> failure[0] = e);
+            AssertJUnit.assertTrue(test[0], failure[0] != null);
+            AssertJUnit.assertTrue(test[0] + ": " + failure[0].getMessage(), failure[0].getMessage().startsWith(test[1]));
+        }
+    }
+
+    /* rows of objects, each with a nested array, inside an object, so splits happen at two levels. */
+    private static Value rows(final int n, final String name) {
+        final List<Value> rows = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final Map<Value, Value> row = new LinkedHashMap<>();
+            row.put(Value.string("id"), Value.integer(i - n / 2));
+            row.put(Value.string("name"), Value.string(name + i));
+            row.put(Value.string("score"), Value.number(i / 8.0));
+            final List<Value> tags = new ArrayList<>();
+            for (int t = 0; t < i % 40; t++)
+                tags.add(t % 2 == 0 ? Value.bool(true) : Value.nil());
+            row.put(Value.string("tags"), Value.arr(tags));
+            rows.add(Value.json(row));
+        }
+        final Map<Value, Value> doc = new LinkedHashMap<>();
+        doc.put(Value.string("count"), Value.integer(n));
+        doc.put(Value.string("rows"), Value.arr(rows));
+        return Value.json(doc);
+    }
+
+    @Test
+    public void testParallelMatchesSimple() throws Exception {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Value doc = rows(1000, "row ");
+            AssertJUnit.assertEquals(Generator.create().generate(doc), new Generator.Parallel(pool, 16).generate(doc));
+            AssertJUnit.assertEquals(Generator.create().generate(doc), Generator.parallel(pool).generate(doc));
+            AssertJUnit.assertEquals("[]", new Generator.Parallel(pool, 16).generate(Value.arr()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelGatheringWrite() throws Exception {
+        final Value doc = rows(3000, "caf\u00e9 \"\\\n\uD83D\uDE00 ");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final int[] writes = {0};
+        /* takes at most 100 bytes per write, as a congested socket may. */
+        final GatheringByteChannel channel = new GatheringByteChannel() {
+            @Override
+            public long write(final ByteBuffer[] srcs, final int offset, final int length) {
+                writes[0] ++;
+                int budget = 100;
+                for (int i = offset; i < offset + length && budget > 0; i++) {
+                    while (srcs[i].hasRemaining() && budget-- > 0)
+                        out.write(srcs[i].get());
+                }
+                return 100 - Math.max(budget, 0);
+            }
+
+            @Override
+            public long write(final ByteBuffer[] srcs) {
+                return write(srcs, 0, srcs.length);
+            }
+
+            @Override
+            public int write(final ByteBuffer src) {
+                return (int) write(new ByteBuffer[] {src});
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final long[] written = {0};
+        new Generator.Parallel(ForkJoinPool.commonPool(), 64).write(doc, channel)
+        .ifSuccess(n -> written[0] = n)
+        .ifFailure(e -> AssertJUnit.fail(e.getLocalizedMessage()));
+        AssertJUnit.assertEquals(out.size(), written[0]);
+        AssertJUnit.assertTrue(writes[0] > 1);
+        final String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        AssertJUnit.assertEquals(Generator.parallel().generate(doc), text);
+        Parser.create().parse(text)
+        .ifSuccess(v -> AssertJUnit.assertEquals(doc, v))
+        .ifFailure(e -> AssertJUnit.fail(e.getLocalizedMessage()));
+    }
+
+    private static String minify(final String doc) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Generator.minify(new ByteArrayInputStream(doc.getBytes(StandardCharsets.UTF_8)), out)
+        .ifSuccess(n -> AssertJUnit.assertEquals(out.size(), n.intValue()))
+        .ifFailure(e -> AssertJUnit.fail(e.getLocalizedMessage()));
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String pretty(final String doc, final int indent) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Generator.pretty(new ByteArrayInputStream(doc.getBytes(StandardCharsets.UTF_8)), out, indent)
+        .ifFailure(e -> AssertJUnit.fail(e.getLocalizedMessage()));
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
 }
@@ -2,6 +2,13 @@ package io.github.senthilganeshs.parser.json;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.testng.Assert;
 import org.testng.AssertJUnit;
@@ -150,6 +157,413 @@ public class ParserTest {
     }
 
 
+    @Test(dataProvider = "parser")
+    public void testJSONKeyLookup(final Parser parser) throws Exception {
+        final List<String> keys = new ArrayList<>();
+        parser.parse("{\"id\" : 7, \"name\" : \"Arun\", \"id\" : 8}")
+        .ifSuccess(v -> v
+            .isJSONKey(Value.string("id"), id -> id.isInteger(i -> Assert.assertEquals(8, i.intValue())))
+            .isJSONKey(Value.string("name"), name -> name.isString(n -> Assert.assertEquals("Arun", n)))
+            .isJSONKey(Value.string("age"), age -> Assert.fail("unexpected key age"))
+            .isJSON((k, _v) -> k.isString(keys::add)))
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+        Assert.assertEquals(keys, Arrays.asList("id", "name"));
+    }
+
+    @Test
+    public void testObjectsShareShape() throws Exception {
+        final List<Value> objects = new ArrayList<>();
+        Parser.streamParser().parse("[{\"a\" : 1, \"b\" : 2}, {\"a\" : 3, \"b\" : 4}, {\"b\" : 5, \"a\" : 6}]")
+        .ifSuccess(v -> v.isArray(objects::add));
+        Assert.assertEquals(objects.size(), 3);
+        final Value.Shape first = ((Value.ShapedJSONValue) objects.get(0)).shape();
+        Assert.assertSame(((Value.ShapedJSONValue) objects.get(1)).shape(), first);
+        Assert.assertNotSame(((Value.ShapedJSONValue) objects.get(2)).shape(), first);
+    }
+
+    @Test
+    public void testWideObjectFallsBackToDictionary() throws Exception {
+        final StringBuilder doc = new StringBuilder("{");
+        for (int i = 0; i < 100; i++) {
+            doc.append(i == 0 ? "" : ",").append("\"k").append(i).append("\" : ").append(i);
+        }
+        doc.append("}");
+        Parser.streamParser().parse(doc.toString())
+        .ifSuccess(v -> {
+            Assert.assertTrue(v instanceof Value.JSONValue);
+            v.isJSONKey(Value.string("k99"), k -> k.isInteger(i -> Assert.assertEquals(99, i.intValue())));
+        })
+        .ifFailure(e -> Assert.fail(e.getMessage()));
+    }
+
+    @Test
+    public void testManyLayoutsDoNotExhaustShapes() throws Exception {
+        final StringBuilder doc = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++)
+            doc.append(i == 0 ? "" : ",").append("{\"layout").append(i).append("\":1}");
+        doc.append("]");
+        for (final Parser parser : Arrays.asList(Parser.create(), Parser.streamParser())) {
+            parser.parse(doc.toString()).ifFailure(e -> Assert.fail(e.getMessage()));
+            parser.parse("{\"after\" : 1, \"layouts\" : 2}")
+            .ifSuccess(v -> Assert.assertTrue(v instanceof Value.ShapedJSONValue))
+            .ifFailure(e -> Assert.fail(e.getMessage()));
+        }
+    }
+
+    @Test
+    public void testCollidingKeys() throws Exception {
+        // "Aa" and "BB" have the same String.hashCode, so do all 2^14 keys built from them.
+        final List<String> keys = new ArrayList<>();
+        keys.add("");
+        for (int i = 0; i < 14; i++) {
+            final List<String> longer = new ArrayList<>();
+            for (final String key : keys) {
+                longer.add(key + "Aa");
+                longer.add(key + "BB");
+            }
+            keys.clear();
+            keys.addAll(longer);
+        }
+        final java.util.Set<Integer> hashes = new java.util.HashSet<>();
+        final StringBuilder doc = new StringBuilder("{");
+        for (int i = 0; i < keys.size(); i++) {
+            Assert.assertEquals(keys.get(i).hashCode(), keys.get(0).hashCode());
+            hashes.add(Dictionary.hash(Value.string(keys.get(i))));
+            doc.append(i == 0 ? "" : ",").append('"').append(keys.get(i)).append("\":").append(i);
+        }
+        Assert.assertTrue(hashes.size() > keys.size() - 100, String.valueOf(hashes.size()));
+
+        Parser.streamParser().parse(doc.append("}").toString())
+        .ifSuccess(v -> {
+            Assert.assertEquals(Values.size(v), keys.size());
+            for (int i = 0; i < keys.size(); i += 97) {
+                final int expected = i;
+                final boolean[] found = {false};
+                v.isJSONKey(Value.string(keys.get(i)), n -> n.isInteger(l -> found[0] = l == expected));
+                Assert.assertTrue(found[0], keys.get(i));
+            }
+            final Value persistent = v.with(Value.string("x"), Value.nil()).without(Value.string(keys.get(0)));
+            Assert.assertEquals(Values.size(persistent), keys.size());
+            Assert.assertNull(Values.member(persistent, Value.string(keys.get(0))));
+            Assert.assertEquals(Values.member(persistent, Value.string(keys.get(1))), Value.integer(1));
+        })
+        .ifFailure(e -> Assert.fail(e.getMessage()));
+    }
+
+    @Test(dataProvider = "parser")
+    public void testStructuralEquality(final Parser parser) throws Exception {
+        final List<Value> values = new ArrayList<>();
+        parser.parse("{\"a\" : [1, 2.5, true, null], \"b\" : {\"c\" : \"d\"}}").ifSuccess(values::add);
+        parser.parse("{\"b\" : {\"c\" : \"d\"}, \"a\" : [1.0, 2.5, true, null]}").ifSuccess(values::add);
+        Assert.assertEquals(values.get(0), values.get(1));
+        Assert.assertEquals(values.get(0).hashCode(), values.get(1).hashCode());
+
+        final Value built = Value.json()
+            .with(Value.string("a"), Value.arr(Arrays.asList(Value.integer(1), Value.number(2.5), Value.bool(true), Value.nil())))
+            .with(Value.string("b"), Value.json().with(Value.string("c"), Value.string("d")));
+        Assert.assertEquals(built, values.get(0));
+        Assert.assertEquals(built.hashCode(), values.get(0).hashCode());
+        Assert.assertEquals(new java.util.HashSet<>(Arrays.asList(built, values.get(0), values.get(1))).size(), 1);
+
+        Assert.assertNotEquals(built, built.with(Value.string("b"), Value.nil()));
+        Assert.assertNotEquals(Value.integer(Long.MAX_VALUE), Value.number(0x1p63));
+        Assert.assertNotEquals(Value.arr(Arrays.asList(Value.integer(1))), Value.json().with(Value.string("0"), Value.integer(1)));
+        Assert.assertEquals(Value.number(-0.0).hashCode(), Value.integer(0).hashCode());
+    }
+
+    @Test
+    public void testWrappedCollectionsAreCopied() throws Exception {
+        final List<Value> list = new ArrayList<>(Arrays.asList(Value.integer(1)));
+        final Map<Value, Value> map = new LinkedHashMap<>();
+        map.put(Value.string("a"), Value.integer(1));
+        final Value array = Value.arr(list);
+        final Value object = Value.json(map);
+        final Set<Value> set = new HashSet<>(Arrays.asList(array, object));
+
+        list.add(Value.integer(2));
+        map.put(Value.string("b"), Value.integer(2));
+        Assert.assertEquals(array, Value.arr(Arrays.asList(Value.integer(1))));
+        Assert.assertEquals(object, Value.json().with(Value.string("a"), Value.integer(1)));
+        Assert.assertTrue(set.contains(array));
+        Assert.assertTrue(set.contains(object));
+    }
+
+    @DataProvider(name = "validate")
+    public Object[][] validate() {
+        return new Object[][] {
+            {"{\"a\" : [1, -0.5e+3, true, false, null, \"x\\u00e9\\n\"], \"b\" : {}}", null},
+            {" [ ] ", null},
+            {"", "empty document at line 1, column 1 (offset 0)"},
+            {"{a : 1}", "unexpected 'a', expected a key at line 1, column 2 (offset 1)"},
+            {"[1,\n 2,]", "unexpected ']', expected a value at line 2, column 4 (offset 7)"},
+            {"[01]", "unexpected '1', expected ',' or ']' at line 1, column 3 (offset 2)"},
+            {"[1.]", "unexpected ']', expected a digit at line 1, column 4 (offset 3)"},
+            {"{\"a\" 1}", "unexpected '1', expected ':' at line 1, column 6 (offset 5)"},
+            {"\"tab\there\"", "unexpected byte 0x09, expected an escaped control character at line 1, column 5 (offset 4)"},
+            {"\"\\x\"", "unexpected 'x', expected an escape character at line 1, column 3 (offset 2)"},
+            {"nul", "unexpected end of document, expected 'l' at line 1, column 4 (offset 3)"},
+            {"[1] 2", "unexpected '2', expected end of document at line 1, column 5 (offset 4)"},
+            {"[[1]", "unexpected end of document, expected ',' or ']' at line 1, column 5 (offset 4)"},
+            {"\"abc", "unterminated string at line 1, column 5 (offset 4)"},
+        };
+    }
+
+    @DataProvider(name = "malformed")
+    public Object[][] malformed() {
+        return new Object[][] {
+            {"{\"a\":}", "unexpected '}', expected a value at line 1, column 6 (offset 5)"},
+            {"{\"a\"}", "unexpected '}', expected ':' at line 1, column 5 (offset 4)"},
+            {"{\"a\" \"b\"}", "unexpected '\"', expected ':' at line 1, column 6 (offset 5)"},
+            {"{:1}", "unexpected ':', expected a key at line 1, column 2 (offset 1)"},
+            {"{\"a\":1 \"b\":2}", "unexpected '\"', expected ',' or '}' at line 1, column 8 (offset 7)"},
+            {"{\"a\":1,:2}", "unexpected ':', expected a key at line 1, column 8 (offset 7)"},
+            {"{\"a\":1,}", "unexpected '}', expected a key at line 1, column 8 (offset 7)"},
+            {"[1,,2]", "unexpected ',', expected a value at line 1, column 4 (offset 3)"},
+            {"[1 2]", "unexpected '2', expected ',' or ']' at line 1, column 4 (offset 3)"},
+            {"[,]", "unexpected ',', expected a value at line 1, column 2 (offset 1)"},
+            {"{,}", "unexpected ',', expected a key at line 1, column 2 (offset 1)"},
+            {"{\"a\":[1}", "unexpected '}', expected ',' or ']' at line 1, column 8 (offset 7)"},
+        };
+    }
+
+    @Test(dataProvider = "malformed")
+    public void testMalformedContainers(final String document, final String error) throws Exception {
+        final byte[] bytes = document.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        Parser.streamParser().parse(document)
+        .ifSuccess(v -> Assert.fail("parsed " + document))
+        .ifFailure(e -> Assert.assertEquals(e.getMessage(), error));
+        Parser.streamParser().parse(new java.io.ByteArrayInputStream(bytes))
+        .ifSuccess(v -> Assert.fail("parsed " + document))
+        .ifFailure(e -> Assert.assertEquals(e.getMessage(), error));
+        Parser.simple().parse(document)
+        .ifSuccess(v -> Assert.fail("parsed " + document))
+        .ifFailure(e -> Assert.assertTrue(e.offset() >= 0, e.getMessage()));
+        Parser.validate(new java.io.ByteArrayInputStream(bytes))
+        .ifSuccess(n -> Assert.fail("validated " + document));
+    }
+
+    @Test
+    public void testLiteralsAreStrict() throws Exception {
+        final String[] malformed = {"0.", "[01]", "-01", "1e", "[1.5e+]", "[.5]", "\"\\u00e\u0666\"", "\u000b1", "[1,\u001f2]", "frue", "[talse]", "nulL"};
+        for (final String document : malformed) {
+            final List<String> accepted = new ArrayList<>();
+            Parser.streamParser().parse(document).ifSuccess(v -> accepted.add("stream"));
+            Parser.streamParser().parse(new java.io.ByteArrayInputStream(document.getBytes(java.nio.charset.StandardCharsets.UTF_8)))
+            .ifSuccess(v -> accepted.add("stream bytes"));
+            Parser.simple().parse(document).ifSuccess(v -> accepted.add("simple"));
+            Parser.validate(new java.io.ByteArrayInputStream(document.getBytes(java.nio.charset.StandardCharsets.UTF_8)))
+            .ifSuccess(n -> accepted.add("validate"));
+            Assert.assertTrue(accepted.isEmpty(), document + " accepted by " + accepted);
+        }
+    }
+
+    @Test(dataProvider = "validate")
+    public void testValidate(final String document, final String error) throws Exception {
+        final byte[] bytes = document.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        Parser.validate(new java.io.ByteArrayInputStream(bytes))
+        .ifSuccess(n -> Assert.assertEquals(n.intValue(), bytes.length))
+        .ifSuccess(n -> Assert.assertTrue(error == null, document))
+        .ifFailure(e -> Assert.assertEquals(e.getMessage(), error));
+    }
+
+    @Test
+    public void testValidateUTF8() throws Exception {
+        final byte[][] invalid = {
+            {'"', (byte) 0xC0, (byte) 0xAF, '"'},
+            {'"', (byte) 0xED, (byte) 0xA0, (byte) 0x80, '"'},
+            {'"', (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80, '"'},
+            {'"', (byte) 0xE2, (byte) 0x82, '"'},
+            {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '1'},
+        };
+        for (final byte[] bytes : invalid) {
+            final boolean[] failed = {false};
+            Parser.validate(new java.io.ByteArrayInputStream(bytes)).ifFailure(e -> failed[0] = true);
+            Assert.assertTrue(failed[0], Arrays.toString(bytes));
+        }
+        final byte[] valid = {'"', (byte) 0xE2, (byte) 0x82, (byte) 0xAC, (byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80, '"'};
+        final boolean[] failed = {false};
+        Parser.validate(new java.io.ByteArrayInputStream(valid)).ifFailure(e -> failed[0] = true);
+        Assert.assertFalse(failed[0]);
+
+        final StringBuilder wide = new StringBuilder("[");
+        for (int i = 0; i < 10000; i++)
+            wide.append(i == 0 ? "" : ",").append("\"value \\\" ").append(i).append("\"");
+        Parser.validate(new java.io.ByteArrayInputStream(wide.append("]").toString().getBytes()))
+        .ifFailure(e -> Assert.fail(e.getMessage()));
+
+        final StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 100000; i++)
+            deep.append("[{\"k\":");
+        deep.append("1");
+        for (int i = 0; i < 100000; i++)
+            deep.append("}]");
+        Parser.validate(new java.io.ByteArrayInputStream(deep.toString().getBytes()), ParserLimits.unlimited())
+        .ifFailure(e -> Assert.fail(e.getMessage()));
+    }
+
+    @Test(dataProvider = "parser")
+    public void testErrorPosition(final Parser parser) throws Exception {
+        assertPosition(parser, "[1, 2,\n  nul]", 12, 2, 6, "  nul]");
+        assertPosition(parser, "{\"a\" : [1, 2}", 12, 1, 13, "{\"a\" : [1, 2}");
+        assertPosition(parser, "[true, fals]", 11, 1, 12, "[true, fals]");
+        assertPosition(parser, "{} x", 3, 1, 4, "{} x");
+        assertPosition(parser, "\"abc", 4, 1, 5, "\"abc");
+    }
+
+    @Test
+    public void testStreamErrorPosition() throws Exception {
+        final StringBuilder doc = new StringBuilder("[\n");
+        for (int i = 0; i < 2000; i++)
+            doc.append("  {\"id\" : ").append(i).append("},\n");
+        doc.append("  {\"id\" : tru}\n]");
+        final int offset = doc.indexOf("}\n]");
+        final JSONParserException[] failures = {null, null};
+        Parser.streamParser().parse(doc.toString()).ifFailure(e -> failures[0] = e);
+        Parser.streamParser().parse(new java.io.ByteArrayInputStream(doc.toString().getBytes())).ifFailure(e -> failures[1] = e);
+        for (final JSONParserException e : failures) {
+            Assert.assertEquals(e.offset(), offset);
+            Assert.assertEquals(e.line(), 2002);
+            Assert.assertEquals(e.column(), 14);
+            Assert.assertEquals(e.context(), "  {\"id\" : tru}");
+            Assert.assertEquals(e.reason(), "true or false expected");
+        }
+        Parser.streamParser().parse(new java.io.ByteArrayInputStream("[1, 2".getBytes()))
+        .ifSuccess(v -> Assert.fail("unterminated array"))
+        .ifFailure(e -> Assert.assertEquals(e.getMessage(), "unexpected end of document, expected ']' at line 1, column 6 (offset 5)"));
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        final ParserLimits limits = ParserLimits.defaults().maxDepth(3).maxStringLength(5).maxKeys(2).maxDocumentSize(40);
+        final Parser[] parsers = {Parser.simple(limits), Parser.streamParser(limits), Parser.compile(Schema.any(), limits)};
+        final String[][] documents = {
+            {"[[[1]]]", null},
+            {"[[[[1]]]]", "nested deeper than 3 levels at line 1, column 4 (offset 3)"},
+            {"[\"abcde\"]", null},
+            {"[\"abcdef\"]", "string longer than 5 characters at line 1, column 8 (offset 7)"},
+            {"{\"a\":1,\"b\":2}", null},
+            {"{\"a\":1,\"b\":2,\"c\":3}", "object with more than 2 keys"},
+            {"[1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16,17]", "document larger than 40 characters at line 1, column 41 (offset 40)"},
+        };
+        for (final Parser parser : parsers) {
+            for (final String[] document : documents) {
+                final String[] error = {null};
+                parser.parse(document[0]).ifFailure(e -> error[0] = e.getMessage());
+                if (document[1] == null)
+                    Assert.assertNull(error[0]);
+                else
+                    Assert.assertTrue(error[0] != null && error[0].startsWith(document[1]), parser + " " + error[0]);
+                if (parser instanceof Parser.Simple)
+                    continue;
+                error[0] = null;
+                parser.parse(new java.io.ByteArrayInputStream(document[0].getBytes())).ifFailure(e -> error[0] = e.getMessage());
+                Assert.assertEquals(error[0] == null, document[1] == null, document[0]);
+            }
+        }
+        for (final String[] document : documents) {
+            final String[] error = {null};
+            Parser.validate(new java.io.ByteArrayInputStream(document[0].getBytes()), limits).ifFailure(e -> error[0] = e.getMessage());
+            Assert.assertEquals(error[0] == null, document[1] == null, document[0] + " " + error[0]);
+        }
+
+        final StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 100000; i++)
+            deep.append('[');
+        final String[] error = {null};
+        Parser.create().parse(deep.toString()).ifFailure(e -> error[0] = e.reason());
+        Assert.assertEquals(error[0], "nested deeper than 1000 levels");
+    }
+
+    @Test
+    public void testInstrumentation() throws Exception {
+        final Metrics metrics = Metrics.create();
+        final Parser parser = Parser.streamParser(ParserLimits.defaults().maxDepth(4), metrics);
+        parser.parse("{\"a\":[1,2.5,\"x\"],\"b\":{\"c\":null,\"d\":true}}");
+        parser.parse(new java.io.ByteArrayInputStream("[[1]]".getBytes()));
+        parser.parse("[1,}");
+        parser.parse("[[[[[1]]]]]");
+        parser.parse(new java.io.InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("closed");
+            }
+        });
+        Assert.assertEquals(metrics.documents(), 2L);
+        Assert.assertEquals(metrics.refills(), 1L);
+        Assert.assertEquals(metrics.maxDepth(), 2L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.OBJECT), 2L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.ARRAY), 3L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.INTEGER), 2L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.NUMBER), 1L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.STRING), 1L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.NULL), 1L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.BOOLEAN), 1L);
+        Assert.assertEquals(metrics.failures(JSONParserException.Kind.SYNTAX), 1L);
+        Assert.assertEquals(metrics.failures(JSONParserException.Kind.LIMIT), 1L);
+        Assert.assertEquals(metrics.failures(JSONParserException.Kind.IO), 1L);
+        Assert.assertEquals(metrics.parseLatency().count(), 5L);
+        Assert.assertTrue(metrics.parseLatency().percentile(50) <= metrics.parseLatency().max());
+
+        final Generator generator = Generator.create(metrics);
+        Assert.assertEquals(generator.generate(Value.arr(Arrays.asList(Value.integer(1)))), "[1]");
+        Assert.assertEquals(metrics.generated(), 1L);
+        Assert.assertEquals(metrics.generatedChars(), 3L);
+
+        final Metrics.Histogram histogram = new Metrics.Histogram();
+        for (long v = 1; v <= 1000; v++)
+            histogram.record(v * 1000);
+        Assert.assertEquals(histogram.max(), 1000000L);
+        final long p99 = histogram.percentile(99);
+        Assert.assertTrue(p99 >= 990000 && p99 <= 990000 * 1.0625, String.valueOf(p99));
+
+        final javax.management.ObjectName[] name = {null};
+        metrics.register("test").ifSuccess(n -> name[0] = n);
+        Assert.assertEquals(java.lang.management.ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(name[0], "DocumentsParsed"), 2L);
+        final Object[] failures = {null, null};
+        metrics.register("test").ifFailure(e -> failures[0] = e);
+        metrics.register(null).ifFailure(e -> failures[1] = e);
+        java.lang.management.ManagementFactory.getPlatformMBeanServer().unregisterMBean(name[0]);
+        Assert.assertTrue(failures[0] instanceof javax.management.InstanceAlreadyExistsException, String.valueOf(failures[0]));
+        Assert.assertTrue(failures[1] instanceof javax.management.MalformedObjectNameException, String.valueOf(failures[1]));
+    }
+
+    private static void assertPosition(final Parser parser, final String document,
+        final long offset, final long line, final long column, final String context) {
+        final JSONParserException[] failure = {null};
+        parser.parse(document).ifFailure(e -> failure[0] = e);
+        Assert.assertNotNull(failure[0], document);
+        Assert.assertEquals(failure[0].offset(), offset, failure[0].getMessage());
+        Assert.assertEquals(failure[0].line(), line, failure[0].getMessage());
+        Assert.assertEquals(failure[0].column(), column, failure[0].getMessage());
+        Assert.assertEquals(failure[0].context(), context, failure[0].getMessage());
+    }
+
+    @Test(dataProvider = "parser")
+    public void testCachedParser(final Parser parser) throws Exception {
+        final Parser.CachingParser cached = Parser.cached(parser, 2);
+        final List<Value> values = new ArrayList<>();
+        cached.parse("{\"flag\" : true}").ifSuccess(values::add);
+        cached.parse(new java.io.ByteArrayInputStream("{\"flag\" : true}".getBytes())).ifSuccess(values::add);
+        Assert.assertSame(values.get(1), values.get(0));
+        Assert.assertEquals(cached.hits(), 1);
+        Assert.assertEquals(cached.misses(), 1);
+
+        cached.parse("[1]");
+        cached.parse("[2]");
+        cached.parse("[3]");
+        Assert.assertEquals(cached.size(), 2);
+        Assert.assertEquals(cached.evictions(), 2);
+        cached.parse((String) null).ifFailure(ParserTest::assertJSONParserException);
+
+        /* 20 entries over 16 stripes: four of them hold two. */
+        final Parser.CachingParser striped = Parser.cached(parser, 20);
+        for (int i = 0; i < 1000; i++)
+            striped.parse("[" + i + "]");
+        Assert.assertEquals(striped.size(), 20);
+        Assert.assertEquals(striped.evictions(), 980);
+    }
+
     @Test(dataProvider = "parser")
     public void testJSONToObject(final Parser parser) throws Exception {
         parser.parse("{" + 
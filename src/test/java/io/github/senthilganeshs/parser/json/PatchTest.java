@@ -0,0 +1,173 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+public class PatchTest {
+
+    @DataProvider(name = "json")
+    public Object[][] json() {
+        return new Object[][] {
+            // RFC 6902 appendix A
+            {"{\"foo\":\"bar\"}", "[{\"op\":\"add\",\"path\":\"/baz\",\"value\":\"qux\"}]", "{\"foo\":\"bar\",\"baz\":\"qux\"}"},
+            {"{\"foo\":[\"bar\",\"baz\"]}", "[{\"op\":\"add\",\"path\":\"/foo/1\",\"value\":\"qux\"}]", "{\"foo\":[\"bar\",\"qux\",\"baz\"]}"},
+            {"{\"baz\":\"qux\",\"foo\":\"bar\"}", "[{\"op\":\"remove\",\"path\":\"/baz\"}]", "{\"foo\":\"bar\"}"},
+            {"{\"foo\":[\"bar\",\"qux\",\"baz\"]}", "[{\"op\":\"remove\",\"path\":\"/foo/1\"}]", "{\"foo\":[\"bar\",\"baz\"]}"},
+            {"{\"baz\":\"qux\",\"foo\":\"bar\"}", "[{\"op\":\"replace\",\"path\":\"/baz\",\"value\":\"boo\"}]", "{\"baz\":\"boo\",\"foo\":\"bar\"}"},
+            {"{\"foo\":{\"bar\":\"baz\",\"waldo\":\"fred\"},\"qux\":{\"corge\":\"grault\"}}",
+                "[{\"op\":\"move\",\"from\":\"/foo/waldo\",\"path\":\"/qux/thud\"}]",
+                "{\"foo\":{\"bar\":\"baz\"},\"qux\":{\"corge\":\"grault\",\"thud\":\"fred\"}}"},
+            {"{\"foo\":[\"all\",\"grass\",\"cows\",\"eat\"]}", "[{\"op\":\"move\",\"from\":\"/foo/1\",\"path\":\"/foo/3\"}]",
+                "{\"foo\":[\"all\",\"cows\",\"eat\",\"grass\"]}"},
+            {"{\"foo\":\"bar\"}", "[{\"op\":\"add\",\"path\":\"/child\",\"value\":{\"grandchild\":{}}}]",
+                "{\"foo\":\"bar\",\"child\":{\"grandchild\":{}}}"},
+            {"{\"foo\":[\"bar\"]}", "[{\"op\":\"add\",\"path\":\"/foo/-\",\"value\":[\"abc\",\"def\"]}]",
+                "{\"foo\":[\"bar\",[\"abc\",\"def\"]]}"},
+            {"{\"a\":{\"b\":[1,2]},\"c\":3}", "[{\"op\":\"copy\",\"from\":\"/a/b\",\"path\":\"/d\"},"
+                + "{\"op\":\"test\",\"path\":\"/d/1\",\"value\":2.0},{\"op\":\"remove\",\"path\":\"/a\"}]",
+                "{\"c\":3,\"d\":[1,2]}"},
+        };
+    }
+
+    @Test(dataProvider = "json")
+    public void testJSONPatch(final String document, final String patch, final String expected) throws Exception {
+        final Patch p = Patch.json(parse(patch));
+        p.apply(parse(document))
+        .ifSuccess(v -> Assert.assertEquals(v, parse(expected)))
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+
+        final String streamed = stream(p, document);
+        Assert.assertEquals(parse(streamed), parse(expected), streamed);
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        final String[] patches = {
+            "[{\"op\":\"remove\",\"path\":\"/missing\"}]",
+            "[{\"op\":\"test\",\"path\":\"/a\",\"value\":2}]",
+            "[{\"op\":\"add\",\"path\":\"/b/5\",\"value\":2}]",
+            "[{\"op\":\"replace\",\"path\":\"/b/x/y\",\"value\":2}]",
+            "{\"op\":\"add\"}",
+        };
+        for (final String patch : patches) {
+            final Patch p = Patch.json(parse(patch));
+            final boolean[] failed = {false, false};
+            p.apply(parse("{\"a\":1,\"b\":[1]}")).ifFailure(e -> failed[0] = true);
+            p.apply(new ByteArrayInputStream("{\"a\":1,\"b\":[1]}".getBytes()), new ByteArrayOutputStream())
+            .ifFailure(e -> failed[1] = true);
+            Assert.assertTrue(failed[0] && failed[1], patch);
+        }
+    }
+
+    @Test
+    public void testStreamCopiesUntouchedBytes() throws Exception {
+        final String document = "{ \"keep\" : [1.50, {\"x\" : \"a\\\"b\"}],\n \"n\" : {\"deep\" : {\"v\" : 1, \"w\" : 2}} }";
+        final String patch = "[{\"op\":\"replace\",\"path\":\"/n/deep/v\",\"value\":7},{\"op\":\"add\",\"path\":\"/n/new\",\"value\":true}]";
+        Assert.assertEquals(stream(Patch.json(parse(patch)), document),
+            "{\"keep\":[1.50, {\"x\" : \"a\\\"b\"}],\"n\":{\"deep\":{\"v\":7,\"w\":2},\"new\":true}}");
+    }
+
+    @Test
+    public void testMergePatch() throws Exception {
+        // RFC 7386 section 3
+        final String document = "{\"title\":\"Goodbye!\",\"author\":{\"givenName\":\"John\",\"familyName\":\"Doe\"},"
+            + "\"tags\":[\"example\",\"sample\"],\"content\":\"This will be unchanged\"}";
+        final String patch = "{\"title\":\"Hello!\",\"phoneNumber\":\"+01-123-456-7890\",\"author\":{\"familyName\":null},\"tags\":[\"example\"]}";
+        final String expected = "{\"title\":\"Hello!\",\"author\":{\"givenName\":\"John\"},\"tags\":[\"example\"],"
+            + "\"content\":\"This will be unchanged\",\"phoneNumber\":\"+01-123-456-7890\"}";
+
+        final Patch p = Patch.merge(parse(patch));
+        p.apply(parse(document))
+        .ifSuccess(v -> Assert.assertEquals(Generator.create().generate(v), expected))
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+        Assert.assertEquals(stream(p, document), expected);
+
+        Assert.assertEquals(stream(Patch.merge(parse("{\"a\":{\"b\":1}}")), "[1,2]"), "{\"a\":{\"b\":1}}");
+    }
+
+    @DataProvider(name = "diff")
+    public Object[][] diff() {
+        return new Object[][] {
+            {"{\"a\":1,\"b\":{\"c\":[1,2,3]}}", "{\"a\":1,\"b\":{\"c\":[1,2,3]}}", 0},
+            {"{\"a\":1,\"b\":{\"c\":[1,2,3]}}", "{\"a\":2,\"b\":{\"c\":[1,5]}}", 3},
+            {"{\"a\":1,\"b\":2,\"c\":{\"x\":1}}", "{\"c\":{\"x\":2},\"b\":2,\"d\":null}", 3},
+            {"[1,{\"a\":[]},\"s\"]", "[1,{\"a\":[true]},\"s\",[4],5]", 3},
+            {"{\"a\":[1,2]}", "{\"a\":{\"0\":1}}", 1},
+            {"\"x\"", "\"y\"", 1},
+        };
+    }
+
+    @Test(dataProvider = "diff")
+    public void testDiff(final String source, final String target, final int operations) throws Exception {
+        Patch.diff(
+            new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)),
+            new ByteArrayInputStream(target.getBytes(StandardCharsets.UTF_8)))
+        .ifSuccess(ops -> {
+            Assert.assertEquals(Values.size(ops), operations, Generator.create().generate(ops));
+            Patch.json(ops).apply(parse(source))
+            .ifSuccess(v -> Assert.assertEquals(v, parse(target)))
+            .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+        })
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+
+        final Value ops = Patch.diff(parse(source), parse(target));
+        Assert.assertEquals(Values.size(ops), operations, Generator.create().generate(ops));
+    }
+
+    @Test
+    public void testDiffOfMalformedDocuments() throws Exception {
+        final String[][] pairs = {
+            {"[1,,2]", "[]"}, {"[]", "[1,,2]"}, {"{\"a\":}", "{\"a\":1}"}, {"{\"a\":1}", "{\"a\" 1}"}
+        };
+        for (final String[] pair : pairs) {
+            final List<JSONParserException> errors = new ArrayList<>();
+            Patch.diff(
+                new ByteArrayInputStream(pair[0].getBytes(StandardCharsets.UTF_8)),
+                new ByteArrayInputStream(pair[1].getBytes(StandardCharsets.UTF_8)))
+            .ifSuccess(ops -> Assert.fail("diffed " + Arrays.toString(pair)))
+            .ifFailure(errors::add);
+            Assert.assertEquals(errors.get(0).kind(), JSONParserException.Kind.SYNTAX, Arrays.toString(pair));
+        }
+    }
+
+    @Test
+    public void testUnwritableValuesFail() throws Exception {
+        final Patch nan = Patch.json(Value.arr(Arrays.asList(Value.json()
+            .with(Value.string("op"), Value.string("add"))
+            .with(Value.string("path"), Value.string("/a"))
+            .with(Value.string("value"), Value.number(Double.NaN)))));
+        final List<JSONParserException> errors = new ArrayList<>();
+        nan.apply(new ByteArrayInputStream("{\"b\":1}".getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream())
+        .ifSuccess(n -> Assert.fail("NaN written"))
+        .ifFailure(errors::add);
+        Patch.json(parse("[{\"op\":\"remove\",\"path\":\"/99999999999\"}]")).apply(parse("[1]"))
+        .ifSuccess(v -> Assert.fail("removed " + Generator.create().generate(v)))
+        .ifFailure(errors::add);
+        Assert.assertEquals(errors.size(), 2);
+    }
+
+    private static Value parse(final String document) {
+        final Value[] value = {null};
+        Parser.create().parse(document).ifSuccess(v -> value[0] = v);
+        return value[0];
+    }
+
+    private static String stream(final Patch patch, final String document) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        patch.apply(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)), out)
+        .ifSuccess(written -> Assert.assertEquals(written.intValue(), out.size()))
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
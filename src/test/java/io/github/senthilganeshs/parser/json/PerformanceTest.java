@@ -0,0 +1,247 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+/**
+ * Allocation and throughput budgets for the hot paths, run with {@code mvn -P perf test}.
+ * Allocations are counted per document by {@code ThreadMXBean.getThreadAllocatedBytes} after
+ * warm up. They vary by about 10% between runs with what the JIT manages to scalar replace,
+ * so the budgets sit about a third above what the code needs today. Throughput is measured relative to a plain scan of the same
+ * corpus so the floors hold on any machine; timings are noisy, so the floors only catch
+ * slowdowns of 3x and more. Lower the budgets when an optimization lands.
+ */
+public class PerformanceTest {
+
+    private static final int WARMUP = 20;
+
+    private static final int ROUNDS = 10;
+
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+
+    private static final long PARSE_STRING_BYTES = 14_000;
+
+    private static final long PARSE_STREAM_BYTES = 14_000;
+
+    private static final long GENERATE_BYTES = 3_000;
+
+    private static final long CANONICAL_BYTES = 3_700;
+
+    /* parallel generation of a large array on every core against the same on one worker. */
+    private static final double PARALLEL_FLOOR = 1.2;
+
+    /* throughput as a fraction of scan(). */
+    private static final double PARSE_FLOOR = 0.012;
+
+    private static final double GENERATE_FLOOR = 0.06;
+
+    private static final List<String> CORPUS = corpus(500, 42);
+
+    private static final List<byte[]> BYTES = new ArrayList<>();
+
+    static {
+        for (final String document : CORPUS)
+            BYTES.add(document.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /* deterministic documents of about a kilobyte, mixing every kind of value. */
+    static List<String> corpus(final int n, final long seed) {
+        final Random random = new Random(seed);
+        final List<String> corpus = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final StringBuilder doc = new StringBuilder();
+            doc.append("{\"id\":").append(random.nextInt(1_000_000))
+            .append(",\"name\":\"").append(word(random, 12)).append('"')
+            .append(",\"price\":").append(random.nextInt(100_000) / 100.0)
+            .append(",\"active\":").append(random.nextBoolean())
+            .append(",\"note\":null")
+            .append(",\"address\":{\"street\":\"").append(word(random, 20))
+            .append("\",\"city\":\"").append(word(random, 8))
+            .append("\",\"zip\":").append(10000 + random.nextInt(89999)).append('}')
+            .append(",\"tags\":[");
+            for (int t = 0, tags = 1 + random.nextInt(8); t < tags; t++)
+                doc.append(t == 0 ? "" : ",").append('"').append(word(random, 6)).append('"');
+            doc.append("],\"scores\":[");
+            for (int s = 0, scores = 10 + random.nextInt(40); s < scores; s++)
+                doc.append(s == 0 ? "" : ",").append(random.nextInt(1000) - 500);
+            doc.append("],\"lines\":[");
+            for (int l = 0, lines = 1 + random.nextInt(5); l < lines; l++) {
+                doc.append(l == 0 ? "" : ",").append("{\"sku\":\"").append(word(random, 10))
+                .append("\",\"qty\":").append(1 + random.nextInt(9))
+                .append(",\"weight\":").append(random.nextInt(1_000_000) / 1000.0).append('}');
+            }
+            corpus.add(doc.append("]}").toString());
+        }
+        return corpus;
+    }
+
+    private static String word(final Random random, final int length) {
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static boolean measurable() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * @return bytes allocated per document by one pass over the corpus, after warm up.
+     */
+    private static long allocationPerDocument(final Runnable pass) {
+        for (int i = 0; i < WARMUP; i++)
+            pass.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            final long before = allocated();
+            pass.run();
+            best = Math.min(best, allocated() - before);
+        }
+        return best / CORPUS.size();
+    }
+
+    /**
+     * @return fastest of a few timed passes, in nanoseconds.
+     */
+    private static long time(final Runnable pass) {
+        for (final long end = System.nanoTime() + WARMUP_NANOS; System.nanoTime() < end; )
+            pass.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            final long start = System.nanoTime();
+            pass.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static final Object[] SINK = new Object[1];
+
+    /* yardstick for the machine: one branchy pass over every character, as any parser makes. */
+    private static void scan() {
+        int depth = 0;
+        for (final String document : CORPUS) {
+            boolean string = false;
+            for (int i = 0; i < document.length(); i++) {
+                final char ch = document.charAt(i);
+                if (string) {
+                    if (ch == '"')
+                        string = false;
+                    else if (ch == '\\')
+                        i ++;
+                } else if (ch == '"') {
+                    string = true;
+                } else if (ch == '{' || ch == '[') {
+                    depth ++;
+                } else if (ch == '}' || ch == ']') {
+                    depth --;
+                }
+            }
+        }
+        SINK[0] = depth;
+    }
+
+    private static void parseStrings(final Parser parser) {
+        for (final String document : CORPUS)
+            parser.parse(document).ifSuccess(v -> SINK[0] = v);
+    }
+
+    private static void parseStreams(final Parser parser) {
+        for (final byte[] bytes : BYTES)
+            parser.parse(new ByteArrayInputStream(bytes)).ifSuccess(v -> SINK[0] = v);
+    }
+
+    private static List<Value> values() {
+        final List<Value> values = new ArrayList<>();
+        for (final String document : CORPUS)
+            Parser.streamParser().parse(document).ifSuccess(values::add);
+        Assert.assertEquals(values.size(), CORPUS.size());
+        return values;
+    }
+
+    private static void generate(final Generator generator, final List<Value> values) {
+        for (final Value value : values)
+            SINK[0] = generator.generate(value);
+    }
+
+    @Test(groups = "perf")
+    public void testStreamParserAllocation() {
+        if (!measurable())
+            return;
+        final Parser parser = Parser.streamParser();
+        final long strings = allocationPerDocument(() -> parseStrings(parser));
+        final long streams = allocationPerDocument(() -> parseStreams(parser));
+        System.out.println("stream parser allocation per document: string " + strings + " B, stream " + streams + " B");
+        Assert.assertTrue(strings <= PARSE_STRING_BYTES, "string " + strings);
+        Assert.assertTrue(streams <= PARSE_STREAM_BYTES, "stream " + streams);
+    }
+
+    @Test(groups = "perf")
+    public void testGeneratorAllocation() {
+        if (!measurable())
+            return;
+        final List<Value> values = values();
+        final long simple = allocationPerDocument(() -> generate(Generator.create(), values));
+        final long canonical = allocationPerDocument(() -> generate(Generator.canonical(), values));
+        System.out.println("generator allocation per document: simple " + simple + " B, canonical " + canonical + " B");
+        Assert.assertTrue(simple <= GENERATE_BYTES, "simple " + simple);
+        Assert.assertTrue(canonical <= CANONICAL_BYTES, "canonical " + canonical);
+    }
+
+    @Test(groups = "perf")
+    public void testParallelGenerator() {
+        final int cores = Runtime.getRuntime().availableProcessors();
+        if (cores < 2)
+            return;
+        final List<Value> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            rows.addAll(values());
+        final Value large = Value.arr(rows);
+        final ForkJoinPool one = new ForkJoinPool(1);
+        final ForkJoinPool all = new ForkJoinPool(cores);
+        try {
+            final Generator.Parallel sequential = Generator.parallel(one);
+            final Generator.Parallel parallel = Generator.parallel(all);
+            Assert.assertEquals(parallel.generate(large), Generator.create().generate(large));
+            final double speedup = time(() -> SINK[0] = sequential.generate(large))
+                / time(() -> SINK[0] = parallel.generate(large));
+            System.out.printf("parallel generator speedup %.2f on %d cores%n", speedup, cores);
+            Assert.assertTrue(speedup >= PARALLEL_FLOOR, "parallel " + speedup);
+        } finally {
+            one.shutdown();
+            all.shutdown();
+        }
+    }
+
+    @Test(groups = "perf")
+    public void testThroughput() {
+        final double baseline = time(PerformanceTest::scan);
+        final Parser parser = Parser.streamParser();
+        final List<Value> values = values();
+        final double strings = baseline / time(() -> parseStrings(parser));
+        final double streams = baseline / time(() -> parseStreams(parser));
+        final double generator = baseline / time(() -> generate(Generator.create(), values));
+        System.out.printf("throughput relative to a scan: parse string %.4f, parse stream %.4f, generate %.4f%n",
+            strings, streams, generator);
+        Assert.assertTrue(strings >= PARSE_FLOOR, "parse string " + strings);
+        Assert.assertTrue(streams >= PARSE_FLOOR, "parse stream " + streams);
+        Assert.assertTrue(generator >= GENERATE_FLOOR, "generate " + generator);
+    }
+}
@@ -0,0 +1,173 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+public class PersistentTest {
+
+    @Test
+    public void testVectorMatchesList() throws Exception {
+        final List<Integer> expected = new ArrayList<>();
+        Persistent.Vector<Integer> vector = Persistent.Vector.empty();
+        final List<Persistent.Vector<Integer>> versions = new ArrayList<>();
+        for (int i = 0; i < 40000; i++) {
+            expected.add(i);
+            vector = vector.append(i);
+            if (i % 997 == 0)
+                versions.add(vector);
+        }
+        final Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            final int at = random.nextInt(expected.size());
+            expected.set(at, -at);
+            vector = vector.set(at, -at);
+        }
+        Assert.assertEquals(vector.size(), expected.size());
+        final List<Integer> actual = new ArrayList<>();
+        vector.forEach(actual::add);
+        Assert.assertEquals(actual, expected);
+        for (int i = 0; i < expected.size(); i += 101)
+            Assert.assertEquals(vector.get(i), expected.get(i));
+
+        for (int v = 0; v < versions.size(); v++) {
+            final Persistent.Vector<Integer> version = versions.get(v);
+            Assert.assertEquals(version.size(), v * 997 + 1);
+            for (int i = 0; i < version.size(); i += 13)
+                Assert.assertEquals(version.get(i).intValue(), i);
+        }
+    }
+
+    @Test
+    public void testHashTrieWithCollisions() throws Exception {
+        // "Aa" and "BB" share a hash code, so do all strings composed of these blocks.
+        final String[] blocks = {"Aa", "BB"};
+        final Map<String, Integer> expected = new HashMap<>();
+        Persistent.HashTrie<String, Integer> trie = Persistent.HashTrie.empty();
+        for (int i = 0; i < 3000; i++) {
+            final String key = i < 64
+                ? blocks[i & 1] + blocks[(i >> 1) & 1] + blocks[(i >> 2) & 1] + blocks[(i >> 3) & 1] + (i >> 4)
+                : "k" + i;
+            expected.put(key, i);
+            trie = trie.put(key, i);
+        }
+        final Persistent.HashTrie<String, Integer> full = trie;
+        for (int i = 0; i < 3000; i += 3) {
+            final String key = expected.keySet().iterator().next();
+            expected.remove(key);
+            trie = trie.remove(key);
+        }
+        Assert.assertEquals(trie.size(), expected.size());
+        Assert.assertEquals(full.size(), 3000);
+        for (final Map.Entry<String, Integer> e : expected.entrySet()) {
+            Assert.assertEquals(trie.get(e.getKey()), e.getValue());
+            Assert.assertEquals(full.get(e.getKey()), e.getValue());
+        }
+        Assert.assertNull(trie.get("missing"));
+        Assert.assertSame(trie.remove("missing"), trie);
+    }
+
+    @Test
+    public void testWithLeavesOriginalUntouched() throws Exception {
+        Parser.create().parse("{\"a\":1,\"b\":[1,2],\"c\":\"x\"}")
+        .ifSuccess(doc -> {
+            final Value changed = doc
+                .with(Value.string("d"), Value.bool(true))
+                .with(Value.string("a"), Value.integer(2))
+                .without(Value.string("c"));
+            Assert.assertEquals(Generator.create().generate(doc), "{\"a\":1,\"b\":[1,2],\"c\":\"x\"}");
+            Assert.assertEquals(Generator.create().generate(changed), "{\"a\":2,\"b\":[1,2],\"d\":true}");
+
+            final List<Value> shared = new ArrayList<>();
+            doc.isJSONKey(Value.string("b"), shared::add);
+            changed.isJSONKey(Value.string("b"), shared::add);
+            Assert.assertSame(shared.get(0), shared.get(1));
+        })
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+    }
+
+    @Test
+    public void testUpdatesOverParsedObjects() throws Exception {
+        final StringBuilder doc = new StringBuilder("{");
+        for (int i = 0; i < 100_000; i++)
+            doc.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":").append(i);
+        final Value[] parsed = {null};
+        Parser.create().parse(doc.append('}').toString()).ifSuccess(v -> parsed[0] = v);
+        final Value large = parsed[0];
+
+        final Value changed = large
+            .with(Value.string("k1"), Value.string("one"))
+            .without(Value.string("k2"))
+            .with(Value.string("new"), Value.nil())
+            .with(Value.string("k2"), Value.bool(true));
+        Value expected = Value.PersistentJSONValue.of(large);
+        expected = expected.with(Value.string("k1"), Value.string("one")).without(Value.string("k2"))
+            .with(Value.string("new"), Value.nil()).with(Value.string("k2"), Value.bool(true));
+        Assert.assertEquals(changed, expected);
+        Assert.assertEquals(Generator.create().generate(changed), Generator.create().generate(expected));
+        Assert.assertEquals(Values.size(changed), 100_001);
+        Assert.assertEquals(Values.member(large, Value.string("k1")), Value.integer(1));
+        Assert.assertSame(large.without(Value.string("missing")), large);
+
+        /* a first update does not copy the members, so a thousand of them beat one copy. */
+        long lazy = Long.MAX_VALUE;
+        long eager = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 1000; i++)
+                Assert.assertEquals(Values.size(large.with(Value.string("k" + i), Value.integer(-i))), 100_000);
+            lazy = Math.min(lazy, System.nanoTime() - start);
+            start = System.nanoTime();
+            Assert.assertEquals(Value.PersistentJSONValue.of(large).size(), 100_000);
+            eager = Math.min(eager, System.nanoTime() - start);
+        }
+        Assert.assertTrue(lazy < eager, "1000 first updates took " + lazy + "ns, one copy " + eager + "ns");
+
+        Parser.create().parse("{\"a\":1,\"b\":2}").ifSuccess(small -> {
+            Assert.assertSame(small.with(Value.string("a"), Value.integer(3)).getClass(), Value.ShapedJSONValue.class);
+            Assert.assertSame(small.with(Value.string("c"), Value.integer(3)).getClass(), Value.ShapedJSONValue.class);
+            Assert.assertEquals(Generator.create().generate(small.with(Value.string("c"), Value.integer(3))),
+                "{\"a\":1,\"b\":2,\"c\":3}");
+        });
+    }
+
+    @Test
+    public void testArrayAppendAndSet() throws Exception {
+        Parser.create().parse("[1,2]")
+        .ifSuccess(arr -> {
+            final Value grown = arr.append(Value.integer(3)).withAt(0, Value.string("one"));
+            Assert.assertEquals(Generator.create().generate(arr), "[1,2]");
+            Assert.assertEquals(Generator.create().generate(grown), "[\"one\",2,3]");
+        })
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+
+        Value built = Value.arr();
+        for (int i = 0; i < 100; i++)
+            built = built.append(Value.json().with(Value.string("i"), Value.integer(i)));
+        Assert.assertEquals(((Value.PersistentArrayValue) built).size(), 100);
+        built.isArrayAt(99, v -> v.isJSONKey(Value.string("i"), i -> i.isInteger(l -> Assert.assertEquals(l.longValue(), 99L))));
+    }
+
+    @Test
+    public void testRemovalsCompact() throws Exception {
+        Value obj = Value.json();
+        for (int i = 0; i < 1000; i++)
+            obj = obj.with(Value.string("k" + i), Value.integer(i));
+        for (int i = 0; i < 990; i++)
+            obj = obj.without(Value.string("k" + i));
+        final List<Long> left = new ArrayList<>();
+        obj.isJSON((k, v) -> v.isInteger(left::add));
+        Assert.assertEquals(left.size(), 10);
+        Assert.assertEquals(left.get(0).longValue(), 990L);
+        Assert.assertEquals(((Value.PersistentJSONValue) obj).size(), 10);
+        Assert.assertSame(obj.without(Value.string("k0")), obj);
+        Assert.assertSame(Value.integer(1).with(Value.string("a"), Value.nil()).getClass(), Value.IntValue.class);
+    }
+}
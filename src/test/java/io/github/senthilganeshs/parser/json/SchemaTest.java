@@ -0,0 +1,150 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+public class SchemaTest {
+
+    private static final Parser ORDER = Parser.compile(Schema.object()
+        .field("id", Schema.integer())
+        .field("price", Schema.number())
+        .field("symbol", Schema.string())
+        .field("buy", Schema.bool())
+        .field("fills", Schema.array(Schema.integer())));
+
+    @Test
+    public void testExpectedOrder() throws Exception {
+        ORDER.parse("{\"id\" : 42, \"price\" : -1.5e2, \"symbol\" : \"A\\\"B\", \"buy\" : true, \"fills\" : [1, 2, 3]}")
+        .ifSuccess(v -> {
+            Assert.assertTrue(v instanceof Value.ShapedJSONValue);
+            assertOrder(v, 42, -150.0, "A\"B", true, Arrays.asList(1L, 2L, 3L));
+        })
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+    }
+
+    @Test
+    public void testSharesShapeWithGenericParser() throws Exception {
+        final String doc = "{\"id\":1,\"price\":2,\"symbol\":\"X\",\"buy\":false,\"fills\":[]}";
+        final List<Value> values = new ArrayList<>();
+        ORDER.parse(doc).ifSuccess(values::add);
+        Parser.streamParser().parse(doc).ifSuccess(values::add);
+        Assert.assertSame(
+            ((Value.ShapedJSONValue) values.get(0)).shape(),
+            ((Value.ShapedJSONValue) values.get(1)).shape());
+    }
+
+    @Test
+    public void testOutOfOrderAndUnknownKeys() throws Exception {
+        ORDER.parse(new ByteArrayInputStream(
+            "{\"symbol\":\"X\",\"idx\":{\"nested\":[1]},\"id\":7,\"price\":3,\"fills\":[4],\"buy\":false}".getBytes()))
+        .ifSuccess(v -> {
+            assertOrder(v, 7, 3.0, "X", false, Arrays.asList(4L));
+            v.isJSONKey(Value.string("idx"), idx -> idx
+                .isJSONKey(Value.string("nested"), n -> n
+                    .isArrayAt(0, i -> i.isInteger(_i -> Assert.assertEquals(1, _i.intValue())))));
+        })
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+    }
+
+    @Test
+    public void testTypeMismatchFallsBack() throws Exception {
+        ORDER.parse("{\"id\":\"seven\",\"price\":12345678901234567890}")
+        .ifSuccess(v -> v
+            .isJSONKey(Value.string("id"), id -> id.isString(s -> Assert.assertEquals("seven", s)))
+            .isJSONKey(Value.string("price"), p -> p.isDouble(d -> Assert.assertEquals(d, 1.2345678901234567e19, 1e4))))
+        .ifFailure(e -> Assert.fail(e.getLocalizedMessage()));
+    }
+
+    @Test
+    public void testIntegersKeepEveryDigit() throws Exception {
+        final Parser ids = Parser.compile(Schema.array(Schema.integer()));
+        ids.parse("[1234567890123456789, -9223372036854775808, 9223372036854775807, 9223372036854775808]")
+        .ifSuccess(v -> {
+            final List<Object> actual = new ArrayList<>();
+            v.isArray(i -> i.isInteger(actual::add).isDouble(actual::add));
+            Assert.assertEquals(actual, Arrays.asList(1234567890123456789L, Long.MIN_VALUE, Long.MAX_VALUE, 9.223372036854775808e18));
+        })
+        .ifFailure(e -> Assert.fail(e.getMessage()));
+    }
+
+    @Test
+    public void testMalformedInputFails() throws Exception {
+        final String[][] documents = {
+            {"{\"buy\":tru}", "true or false expected at line 1, column 11 (offset 10)"},
+            {"{\"id\":1 \"buy\":true}", "unexpected '\"', expected ',' or '}' at line 1, column 9 (offset 8)"},
+            {"{\"fills\":[1 2]}", "unexpected '2', expected ',' or ']' at line 1, column 13 (offset 12)"},
+            {"{\"fills\":[1,]}", "unexpected ']', expected a value at line 1, column 13 (offset 12)"},
+            {"{\"id\":-x}", "digit expected after '-' at line 1, column 8 (offset 7)"},
+            {"{\"id\":1,}", "unexpected '}', expected a key at line 1, column 9 (offset 8)"},
+            {"{1:2}", "unexpected '1', expected a key at line 1, column 2 (offset 1)"},
+            {"{\"id\" 1}", "unexpected '1', expected ':' at line 1, column 7 (offset 6)"},
+            {"{\"id\":1", "unexpected end of document, expected '}' at line 1, column 8 (offset 7)"},
+        };
+        for (final String[] document : documents) {
+            ORDER.parse(document[0])
+            .ifSuccess(v -> Assert.fail("parsed " + document[0]))
+            .ifFailure(e -> Assert.assertEquals(e.getMessage(), document[1]));
+            ORDER.parse(new ByteArrayInputStream(document[0].getBytes()))
+            .ifSuccess(v -> Assert.fail("parsed " + document[0]))
+            .ifFailure(e -> Assert.assertEquals(e.getMessage(), document[1]));
+        }
+    }
+
+    @Test
+    public void testKeysCompareAsUTF8() throws Exception {
+        /* the UTF-8 of \u00e9 read as two Latin-1 characters, and a name sharing a lead byte with the key. */
+        final Parser parser = Parser.compile(Schema.object()
+            .field("\u00c3\u00a9", Schema.integer())
+            .field("\u00e9x", Schema.integer())
+            .field("\u00e9", Schema.integer()));
+        final String doc = "{\"\u00e9\":1,\"\u00eay\":2,\"\u00e9\":3}";
+        final List<Object> keys = new ArrayList<>();
+        parser.parse(new ByteArrayInputStream(doc.getBytes(StandardCharsets.UTF_8)))
+        .ifSuccess(v -> v.isJSON((k, _v) -> k.isString(keys::add)))
+        .ifFailure(e -> Assert.fail(e.getMessage()));
+        Assert.assertEquals(keys, Arrays.asList("\u00e9", "\u00eay"));
+        parser.parse(new ByteArrayInputStream(doc.getBytes(StandardCharsets.UTF_8)))
+        .ifSuccess(v -> v.isJSONKey(Value.string("\u00e9"), i -> i.isInteger(keys::add)));
+        Assert.assertEquals(keys.get(2), 3L);
+    }
+
+    @Test
+    public void testInstrumentationCountsTypedValues() throws Exception {
+        final Metrics metrics = Metrics.create();
+        final Parser parser = Parser.compile(Schema.object()
+            .field("id", Schema.integer())
+            .field("price", Schema.number())
+            .field("symbol", Schema.string())
+            .field("buy", Schema.bool())
+            .field("fills", Schema.array(Schema.integer())), ParserLimits.defaults(), metrics);
+        parser.parse("{\"id\":1,\"price\":2.5,\"symbol\":\"X\",\"buy\":true,\"fills\":[1,2],\"x\":{\"y\":null}}")
+        .ifFailure(e -> Assert.fail(e.getMessage()));
+        Assert.assertEquals(metrics.maxDepth(), 2L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.OBJECT), 2L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.ARRAY), 1L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.INTEGER), 3L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.NUMBER), 1L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.STRING), 1L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.BOOLEAN), 1L);
+        Assert.assertEquals(metrics.values(Instrumentation.Kind.NULL), 1L);
+    }
+
+    private static void assertOrder(final Value v, final long id, final double price, final String symbol,
+        final boolean buy, final List<Long> fills) {
+        final List<Long> actual = new ArrayList<>();
+        v.isJSONKey(Value.string("id"), _v -> _v.isInteger(i -> Assert.assertEquals(i.longValue(), id)))
+        .isJSONKey(Value.string("price"), _v -> _v.isDouble(d -> Assert.assertEquals(d.doubleValue(), price, 0.0)))
+        .isJSONKey(Value.string("symbol"), _v -> _v.isString(s -> Assert.assertEquals(s, symbol)))
+        .isJSONKey(Value.string("buy"), _v -> _v.isBool(b -> Assert.assertEquals(b.booleanValue(), buy)))
+        .isJSONKey(Value.string("fills"), _v -> _v.isArray(f -> f.isInteger(actual::add)));
+        Assert.assertEquals(actual, fills);
+    }
+}
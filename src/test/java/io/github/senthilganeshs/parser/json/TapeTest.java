@@ -0,0 +1,177 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+public class TapeTest {
+
+    private static final String DOCUMENT = "{\"id\": 7, \"name\": \"caf\\u00e9 \\u4e2d \\ud800 \\\"q\\\"\", "
+        + "\"price\": -12.5e-3, \"big\": 123456789012345678901234, \"tags\": [\"a\", true, false, null, [], {}], "
+        + "\"nested\": {\"z\": [1, [2, [3]]], \"a\": {\"b\": {\"c\": \"d\"}}}, \"empty\": \"\"}";
+
+    private static Value rows(final int n) {
+        final List<Value> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final Map<Value, Value> row = new LinkedHashMap<>();
+            row.put(Value.string("id"), Value.integer(i));
+            row.put(Value.string("name"), Value.string("row " + i + (i % 3 == 0 ? " \u20ac" : "")));
+            row.put(Value.string("ratio"), Value.number(i / 3.0));
+            row.put(Value.string("k" + i % 40), Value.bool(i % 2 == 0));
+            values.add(Value.json(row));
+        }
+        return Value.arr(values);
+    }
+
+    private static Value parse(final String text) {
+        final Value[] value = {null};
+        Parser.create().parse(text).ifSuccess(v -> value[0] = v).ifFailure(e -> Assert.fail(e.getMessage()));
+        return value[0];
+    }
+
+    private static Tape tape(final String text, final int shift) {
+        final Tape[] tape = {null};
+        Tape.parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))::read, ParserLimits.defaults(), shift)
+        .ifSuccess(t -> tape[0] = t)
+        .ifFailure(e -> Assert.fail(e.getMessage()));
+        return tape[0];
+    }
+
+    @Test
+    public void testViewsEqualParsedValues() throws Exception {
+        final Value expected = parse(DOCUMENT);
+        /* 64 byte segments, so that numbers, strings and tables straddle buffers. */
+        for (final int shift : new int[] {6, 7, 30}) {
+            final Value parsed = tape(DOCUMENT, shift).root();
+            final Value copied = Tape.of(expected, shift).root();
+            Assert.assertEquals(parsed, expected);
+            Assert.assertEquals(expected, parsed);
+            Assert.assertEquals(copied, expected);
+            Assert.assertEquals(parsed.hashCode(), expected.hashCode());
+        }
+
+        final Value large = rows(5_000);
+        for (final int shift : new int[] {6, 30}) {
+            final Value root = Tape.of(large, shift).root();
+            Assert.assertEquals(root, large);
+            Assert.assertEquals(Generator.create().generate(root), Generator.create().generate(large));
+            Assert.assertEquals(Generator.canonical().generate(root), Generator.canonical().generate(large));
+            Assert.assertEquals(tape(Generator.create().generate(large), shift).root(), large);
+        }
+    }
+
+    @Test
+    public void testLookups() throws Exception {
+        final Value root = tape(DOCUMENT, 6).root();
+        final List<Object> found = new ArrayList<>();
+        root.isJSONKey(Value.string("name"), v -> v.isString(found::add));
+        root.isJSONKey(Value.string("nested"), n -> n.isJSONKey(Value.string("z"),
+            z -> z.isArrayAt(1, a -> a.isArrayAt(1, b -> b.isArrayAt(0, c -> c.isInteger(found::add))))));
+        root.isJSONKey(Value.string("missing"), found::add);
+        root.isJSONKey(Value.integer(7), found::add);
+        Assert.assertEquals(found, Arrays.asList("caf\u00e9 \u4e2d \ud800 \"q\"", 3L));
+
+        final Value rows = Tape.of(rows(1_000), 6).root();
+        for (int i = 0; i < 1_000; i += 37) {
+            final int index = i;
+            rows.isArrayAt(i, row -> row.isJSONKey(Value.string("k" + index % 40), b -> b.isBool(found::add)));
+        }
+        Assert.assertEquals(found.size(), 2 + 28);
+        try {
+            rows.isArrayAt(1_000, found::add);
+            Assert.fail("index out of range");
+        } catch (final IndexOutOfBoundsException e) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void testDuplicateKeysKeepTheLastValue() throws Exception {
+        final String text = "{\"b\": 1, \"a\": 2, \"b\": 3, \"c\": {\"x\": 1, \"x\": [4]}, \"b\": 5}";
+        final Value root = tape(text, 30).root();
+        Assert.assertEquals(root, parse(text));
+        Assert.assertEquals(Values.size(root), 3);
+        final List<Object> found = new ArrayList<>();
+        root.isJSONKey(Value.string("b"), v -> v.isInteger(found::add));
+        root.isJSON((k, v) -> k.isString(found::add));
+        Assert.assertEquals(found, Arrays.asList(5L, "a", "c", "b"));
+    }
+
+    @Test
+    public void testCopyOnWrite() throws Exception {
+        final Value root = tape(DOCUMENT, 30).root();
+        final Value changed = root.with(Value.string("id"), Value.integer(8)).without(Value.string("tags"));
+        Assert.assertEquals(Values.size(changed), Values.size(root) - 1);
+        Assert.assertEquals(root, parse(DOCUMENT));
+        final Value[] tags = {null};
+        root.isJSONKey(Value.string("tags"), v -> tags[0] = v.append(Value.integer(1)).withAt(0, Value.string("b")));
+        Assert.assertEquals(tags[0], parse("[\"b\", true, false, null, [], {}, 1]"));
+    }
+
+    @Test
+    public void testSaveAndOpen() throws Exception {
+        final Path file = Files.createTempFile("tape", ".bin");
+        try {
+            final Value large = rows(3_000);
+            for (final int shift : new int[] {6, 12, 30}) {
+                final Tape tape = Tape.of(large, shift);
+                tape.save(file)
+                .ifSuccess(n -> Assert.assertEquals(n.longValue(), tape.size()))
+                .ifFailure(e -> Assert.fail(e.getMessage()));
+                Assert.assertEquals(Files.size(file), tape.size());
+                for (final int reopen : new int[] {7, 30}) {
+                    Tape.open(file, reopen)
+                    .ifSuccess(t -> Assert.assertEquals(t.root(), large))
+                    .ifFailure(e -> Assert.fail(e.getMessage()));
+                }
+            }
+
+            final List<Exception> errors = new ArrayList<>();
+            Files.write(file, DOCUMENT.getBytes(StandardCharsets.UTF_8));
+            Tape.open(file).ifFailure(errors::add);
+            Tape.open(file.resolveSibling(file.getFileName() + ".missing")).ifFailure(errors::add);
+            Assert.assertEquals(errors.size(), 2);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        final String[] malformed = {"", "[1,]", "[1 2]", "{\"a\" 1}", "{1: 2}", "{\"a\": 1,}", "[1", "\"abc", "[1] x", "{\"a\": tru}"};
+        for (final String text : malformed) {
+            final List<JSONParserException> errors = new ArrayList<>();
+            Tape.parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)))
+            .ifSuccess(t -> Assert.fail("parsed " + text))
+            .ifFailure(errors::add);
+            Assert.assertEquals(errors.get(0).kind(), JSONParserException.Kind.SYNTAX, text);
+        }
+        final List<JSONParserException> errors = new ArrayList<>();
+        Tape.parse(new ByteArrayInputStream("[[[[1]]]]".getBytes()), ParserLimits.defaults().maxDepth(3))
+        .ifFailure(errors::add);
+        Tape.parse(new ByteArrayInputStream("{\"a\": 1, \"b\": 2}".getBytes()), ParserLimits.defaults().maxKeys(1))
+        .ifFailure(errors::add);
+        Assert.assertEquals(errors.size(), 2);
+        Assert.assertEquals(errors.get(0).kind(), JSONParserException.Kind.LIMIT);
+        Assert.assertEquals(errors.get(1).kind(), JSONParserException.Kind.LIMIT);
+
+        try {
+            Tape.of(Value.arr(Arrays.asList(Value.integer(1), Value.err("broken"))));
+            Assert.fail("error value stored");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertEquals(e.getMessage(), "broken");
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Parses documents from many concurrent loopback sockets on virtual threads. Every server
+ * writes half of the document, stalls and then writes the rest, so a parse that pinned its
+ * carrier thread while blocked in a read would serialize on the carrier pool. Failsafe runs
+ * it with a scheduler of {@value #CARRIERS} carriers, so parses that overlap beyond that count
+ * show that none pinned one. Compiled by the java21 profile and run by failsafe against the
+ * multi-release jar, since a directory of classes never loads the Java 21 variants.
+ */
+public class VirtualThreadIT {
+
+    private static final byte[] DOCUMENT = ("{\"id\":1,\"name\":\"order\",\"lines\":["
+        + "{\"sku\":\"A-1\",\"qty\":2,\"price\":10.5},{\"sku\":\"B-2\",\"qty\":1,\"price\":99.0}],"
+        + "\"paid\":true}").getBytes(StandardCharsets.UTF_8);
+
+    private static final int CONNECTIONS = 2_000;
+
+    private static final long STALL_MILLIS = 50;
+
+    /* jdk.virtualThreadScheduler.parallelism set by failsafe. */
+    private static final int CARRIERS = 2;
+
+    @Test
+    public void testStalledStreams() throws Exception {
+        run(false);
+    }
+
+    @Test
+    public void testStalledChannels() throws Exception {
+        run(true);
+    }
+
+    @Test
+    public void testCharactersComeWithTheScratchSpace() throws Exception {
+        final StringBuilder[] seen = new StringBuilder[4];
+        Thread.ofVirtual().start(() -> {
+            seen[0] = Scratch.chars();
+            final Scratch scratch = Scratch.acquire();
+            try {
+                seen[1] = Scratch.chars();
+                seen[2] = Scratch.chars();
+            } finally {
+                scratch.release();
+            }
+            seen[3] = Scratch.chars();
+        }).join();
+        Assert.assertSame(seen[1], seen[2]);
+        Assert.assertNotSame(seen[0], seen[1]);
+        Assert.assertNotSame(seen[3], seen[1]);
+    }
+
+    private static void run(final boolean channel) throws Exception {
+        final Parser parser = Parser.create();
+        Assert.assertEquals(System.getProperty("jdk.virtualThreadScheduler.parallelism"), String.valueOf(CARRIERS));
+        final AtomicInteger parsed = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger overlap = new AtomicInteger();
+        try (ServerSocket server = new ServerSocket(0, CONNECTIONS, InetAddress.getLoopbackAddress());
+             ExecutorService servers = Executors.newVirtualThreadPerTaskExecutor()) {
+            final InetSocketAddress address = new InetSocketAddress(server.getInetAddress(), server.getLocalPort());
+            servers.submit(() -> {
+                for (int i = 0; i < CONNECTIONS; i++) {
+                    final Socket accepted = server.accept();
+                    servers.submit(() -> serve(accepted));
+                }
+                return null;
+            });
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < CONNECTIONS; i++) {
+                    clients.submit(() -> {
+                        if (channel) {
+                            try (SocketChannel socket = SocketChannel.open(address)) {
+                                overlap.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                                parser.parse(socket).ifSuccess(v -> parsed.incrementAndGet());
+                            }
+                        } else {
+                            try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+                                overlap.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                                parser.parse(socket.getInputStream()).ifSuccess(v -> parsed.incrementAndGet());
+                            }
+                        }
+                        inFlight.decrementAndGet();
+                        return null;
+                    });
+                }
+            }
+            Assert.assertEquals(parsed.get(), CONNECTIONS);
+            /* every parse stalls for 50ms, so pinned carriers would keep this at CARRIERS. */
+            Assert.assertTrue(overlap.get() > CARRIERS * 10, "at most " + overlap.get() + " parses overlapped");
+        }
+    }
+
+    private static Void serve(final Socket socket) throws IOException, InterruptedException {
+        try (Socket s = socket) {
+            final OutputStream out = s.getOutputStream();
+            out.write(DOCUMENT, 0, DOCUMENT.length / 2);
+            out.flush();
+            Thread.sleep(STALL_MILLIS);
+            out.write(DOCUMENT, DOCUMENT.length / 2, DOCUMENT.length - DOCUMENT.length / 2);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,207 @@
+package io.github.senthilganeshs.parser.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.github.senthilganeshs.parser.json.Parser.JSONParserException;
+import io.github.senthilganeshs.parser.json.Parser.Value;
+
+/**
+ * Compiled and run by the java9 profile only.
+ */
+public class FlowParserTest {
+
+    private static final String ARRAY = "[ {\"a\" : \"x]},\\\"y\"}, [1, [2]], \"s,\", 10.5, true ,{}]";
+
+    private static final List<String> ELEMENTS = Arrays.asList(
+        "{\"a\":\"x]},\\\"y\"}", "[1,[2]]", "\"s,\"", "10.5", "true", "{}");
+
+    /**
+     * records what the processor delivers; demand is left to the test.
+     */
+    private static final class Recorder implements Flow.Subscriber<Value> {
+
+        final List<String> received = new CopyOnWriteArrayList<>();
+
+        final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(final Value item) {
+            received.add(Generator.create().generate(item));
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            completed.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.complete(null);
+        }
+
+        Throwable failure() {
+            try {
+                completed.getNow(null);
+                return null;
+            } catch (final Exception e) {
+                return e.getCause();
+            }
+        }
+    }
+
+    /**
+     * feeds the processor one chunk per request on the requesting thread.
+     */
+    private static void feed(final FlowParser processor, final String document, final int size) {
+        final byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+        processor.onSubscribe(new Flow.Subscription() {
+            private int offset;
+
+            private boolean cancelled;
+
+            @Override
+            public void request(final long n) {
+                if (cancelled)
+                    return;
+                if (offset >= bytes.length) {
+                    cancelled = true;
+                    processor.onComplete();
+                    return;
+                }
+                final int from = offset;
+                offset += size;
+                processor.onNext(ByteBuffer.wrap(bytes, from, Math.min(size, bytes.length - from)));
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+        });
+    }
+
+    @Test
+    public void testFlowHonorsDemand() throws Exception {
+        final FlowParser processor = FlowParser.elements();
+        final Recorder recorder = new Recorder();
+        processor.subscribe(recorder);
+
+        final byte[] bytes = ARRAY.getBytes(StandardCharsets.UTF_8);
+        try (SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            for (int offset = 0; offset < bytes.length; offset += 7)
+                publisher.submit(ByteBuffer.wrap(bytes, offset, Math.min(7, bytes.length - offset)));
+
+            recorder.subscription.request(2);
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (recorder.received.size() < 2 && System.currentTimeMillis() < deadline)
+                Thread.sleep(5);
+            Thread.sleep(50);
+            Assert.assertEquals(recorder.received.size(), 2);
+
+            recorder.subscription.request(Long.MAX_VALUE);
+        }
+        recorder.completed.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(recorder.received, ELEMENTS);
+    }
+
+    @Test
+    public void testSecondSubscriberCannotTouchTheStream() throws Exception {
+        final FlowParser processor = FlowParser.elements();
+        final Recorder first = new Recorder();
+        final Recorder second = new Recorder();
+        processor.subscribe(first);
+        processor.subscribe(second);
+        Assert.assertTrue(second.failure() instanceof IllegalStateException);
+        Assert.assertNotSame(second.subscription, first.subscription);
+
+        second.subscription.request(-1);
+        second.subscription.cancel();
+        feed(processor, ARRAY, 5);
+        first.subscription.request(Long.MAX_VALUE);
+        Assert.assertNull(first.failure());
+        Assert.assertTrue(first.completed.isDone());
+        Assert.assertEquals(first.received, ELEMENTS);
+        Assert.assertTrue(second.received.isEmpty());
+    }
+
+    @Test
+    public void testNonPositiveRequestFailsWithoutDemand() throws Exception {
+        final FlowParser processor = FlowParser.elements();
+        final Recorder recorder = new Recorder();
+        processor.subscribe(recorder);
+        feed(processor, ARRAY, ARRAY.length());
+        recorder.subscription.request(1);
+        Assert.assertEquals(recorder.received.size(), 1);
+
+        /* the second element is framed and pending, but there is no demand for it. */
+        recorder.subscription.request(0);
+        Assert.assertTrue(recorder.failure() instanceof IllegalArgumentException);
+        Assert.assertEquals(recorder.received.size(), 1);
+    }
+
+    @Test
+    public void testMalformedValueFails() throws Exception {
+        final FlowParser processor = FlowParser.elements();
+        final Recorder recorder = new Recorder();
+        processor.subscribe(recorder);
+        feed(processor, "[1, {\"a\" 2}, 3]", 4);
+        recorder.subscription.request(Long.MAX_VALUE);
+        Assert.assertEquals(recorder.received, Arrays.asList("1"));
+        Assert.assertTrue(recorder.failure() instanceof JSONParserException);
+        Assert.assertEquals(((JSONParserException) recorder.failure()).kind(), JSONParserException.Kind.SYNTAX);
+    }
+
+    @Test
+    public void testValueBeyondLimitsFails() throws Exception {
+        final FlowParser processor = FlowParser.values(ParserLimits.defaults().maxDocumentSize(16));
+        final Recorder recorder = new Recorder();
+        processor.subscribe(recorder);
+        final StringBuilder large = new StringBuilder("{\"id\":1}\n[");
+        for (int i = 0; i < 10_000; i++)
+            large.append(i).append(',');
+        feed(processor, large.append("0]\n{\"id\":2}").toString(), 64);
+        recorder.subscription.request(Long.MAX_VALUE);
+        Assert.assertEquals(recorder.received, Arrays.asList("{\"id\":1}"));
+        Assert.assertEquals(((JSONParserException) recorder.failure()).kind(), JSONParserException.Kind.LIMIT);
+    }
+
+    @Test
+    public void testUpstreamFailureFollowsTheValues() throws Exception {
+        final FlowParser processor = FlowParser.values();
+        final Recorder recorder = new Recorder();
+        processor.subscribe(recorder);
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(final long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        recorder.subscription.request(5);
+        processor.onNext(ByteBuffer.wrap("{\"id\":1} {\"id\":2} ".getBytes()));
+        processor.onError(new IllegalStateException("broken"));
+        Assert.assertEquals(recorder.received, Arrays.asList("{\"id\":1}", "{\"id\":2}"));
+        Assert.assertEquals(recorder.failure().getMessage(), "broken");
+    }
+}